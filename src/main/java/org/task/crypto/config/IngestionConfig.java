@@ -0,0 +1,39 @@
+package org.task.crypto.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class IngestionConfig {
+
+    /**
+     * Executor that parses and persists price files concurrently. Each file runs on its own virtual thread;
+     * {@code crypto.ingestion.parallelism} caps how many files are processed at once (defaults to the number of CPUs).
+     */
+    @Bean
+    public AsyncTaskExecutor ingestionExecutor(@Value("${crypto.ingestion.parallelism:0}") int parallelism) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ingestion-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        return executor;
+    }
+
+    /**
+     * Executor for background import jobs. {@code crypto.ingestion.jobs.workers} jobs run at once and at most
+     * {@code crypto.ingestion.jobs.queue-capacity} wait; further submissions are rejected.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor ingestionJobExecutor(@Value("${crypto.ingestion.jobs.workers:2}") int workers,
+                                                       @Value("${crypto.ingestion.jobs.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ingestion-job-");
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        return executor;
+    }
+}
@@ -0,0 +1,62 @@
+package org.task.crypto.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Map;
+
+/**
+ * Consumer setup for live price ticks, enabled with {@code crypto.kafka.enabled=true}.
+ * <p>
+ * Records are delivered in batches of up to {@code crypto.kafka.max-batch-records}; the broker holds a fetch back
+ * until {@code crypto.kafka.min-batch-bytes} are available or {@code crypto.kafka.max-batch-wait-ms} have passed, so
+ * batches fill up under load without delaying ticks when the feed is quiet. Offsets are committed manually by the
+ * listener, and a batch whose write fails is redelivered every {@code crypto.kafka.retry-interval-ms} until it
+ * succeeds.
+ */
+@EnableKafka
+@Configuration
+@ConditionalOnProperty(name = "crypto.kafka.enabled", havingValue = "true")
+public class KafkaIngestionConfig {
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> priceTickListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            @Value("${crypto.kafka.concurrency:1}") int concurrency,
+            @Value("${crypto.kafka.max-batch-records:5000}") int maxBatchRecords,
+            @Value("${crypto.kafka.min-batch-bytes:65536}") int minBatchBytes,
+            @Value("${crypto.kafka.max-batch-wait-ms:200}") int maxBatchWaitMillis,
+            @Value("${crypto.kafka.retry-interval-ms:1000}") long retryIntervalMillis) {
+        Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable());
+        consumerProperties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProperties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxBatchRecords);
+        consumerProperties.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, minBatchBytes);
+        consumerProperties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, maxBatchWaitMillis);
+
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(consumerProperties));
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(retryIntervalMillis, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+}
@@ -0,0 +1,56 @@
+package org.task.crypto.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+
+/**
+ * Kafka Streams setup for the per-symbol price statistics, enabled with {@code crypto.kafka.streams.enabled=true}.
+ * The state stores live under {@code crypto.kafka.streams.state-dir} and are restored from their changelog topics
+ * when the directory is lost. The producer publishes every batch written to the database to the topic the statistics
+ * are computed from.
+ */
+@EnableKafkaStreams
+@Configuration
+@ConditionalOnProperty(name = "crypto.kafka.streams.enabled", havingValue = "true")
+public class KafkaStreamsConfig {
+
+    @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
+    public KafkaStreamsConfiguration priceStatisticsStreamsConfig(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            @Value("${crypto.kafka.streams.application-id:crypto-price-statistics}") String applicationId,
+            @Value("${crypto.kafka.streams.state-dir:}") String stateDir) {
+        Map<String, Object> streamsProperties = kafkaProperties.buildStreamsProperties(sslBundles.getIfAvailable());
+        streamsProperties.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        if (StringUtils.hasText(stateDir)) {
+            streamsProperties.put(StreamsConfig.STATE_DIR_CONFIG, stateDir);
+        }
+        return new KafkaStreamsConfiguration(streamsProperties);
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> storedPriceTicksKafkaTemplate(KafkaProperties kafkaProperties,
+                                                                       ObjectProvider<SslBundles> sslBundles) {
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable());
+        producerProperties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerProperties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(producerProperties));
+    }
+}
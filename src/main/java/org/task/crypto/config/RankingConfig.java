@@ -0,0 +1,27 @@
+package org.task.crypto.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+@Configuration
+public class RankingConfig {
+
+    /**
+     * Fork-join pool the in-memory normalized range rankings split their per-symbol queries over. It is separate from
+     * the common pool, so large rankings do not delay other parallel work; {@code crypto.ranking.parallelism} sets its
+     * size (defaults to the number of CPUs).
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool rankingPool(@Value("${crypto.ranking.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("ranking-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+}
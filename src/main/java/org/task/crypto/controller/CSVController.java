@@ -6,50 +6,91 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
-import org.task.crypto.service.CryptoPriceService;
+import org.task.crypto.dto.IngestionJobStatus;
+import org.task.crypto.service.IngestionJobService;
 import org.task.crypto.validation.ValidFileType;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/csv")
 public class CSVController {
 
-    private final CryptoPriceService cryptoPriceService;
+    private final IngestionJobService ingestionJobService;
 
     @Operation(
             summary = "Upload a single CSV file",
-            description = "Uploads a single CSV file containing cryptocurrency prices and processes it."
+            description = "Uploads a single CSV file containing cryptocurrency prices and queues a job that persists it."
     )
-    @ApiResponse(responseCode = "200", description = "File successfully uploaded and processed")
+    @ApiResponse(responseCode = "202", description = "File accepted; the returned job reports the progress")
     @ApiResponse(responseCode = "400", description = "Invalid file format")
+    @ApiResponse(responseCode = "503", description = "Too many ingestion jobs are waiting")
     @PostMapping("/upload")
-    @ResponseStatus(HttpStatus.OK)
-    public void uploadFile(
-            @Parameter(description = "The CSV file containing cryptocurrency prices to be uploaded")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public IngestionJobStatus uploadFile(
+            @Parameter(description = "The CSV file containing cryptocurrency prices to be uploaded, optionally gzip or zstd compressed")
             @RequestParam("file")
             @NotNull(message = "File must not be null")
             @NotEmpty(message = "File must not be empty")
-            @ValidFileType(allowedTypes = {"text/csv"}) MultipartFile file) {
-        cryptoPriceService.loadCryptoPrices(file);
+            @ValidFileType(allowedTypes = {"text/csv", "application/gzip", "application/x-gzip", "application/zstd"}) MultipartFile file) {
+        return ingestionJobService.submitUpload(file);
+    }
+
+    @Operation(
+            summary = "Upload several CSV files",
+            description = "Imports many CSV files sent as parts of one request. The files are parsed and persisted in "
+                    + "parallel and the response lists the outcome for each file."
+    )
+    @ApiResponse(responseCode = "200", description = "Files processed; the returned job holds the per-file results")
+    @ApiResponse(responseCode = "400", description = "No files were sent, or a file has an invalid format")
+    @PostMapping("/upload/batch")
+    public IngestionJobStatus uploadFiles(
+            @Parameter(description = "The CSV files containing cryptocurrency prices, optionally gzip or zstd compressed")
+            @RequestParam("files") List<MultipartFile> files) {
+        return ingestionJobService.importUploads(files);
     }
 
     @Operation(
             summary = "Upload all CSV files",
-            description = "Uploads and processes all available CSV files containing cryptocurrency prices."
+            description = "Queues a job that processes all available CSV files containing cryptocurrency prices in parallel."
+    )
+    @ApiResponse(responseCode = "202", description = "Job queued; the returned job reports the progress")
+    @ApiResponse(responseCode = "503", description = "Too many ingestion jobs are waiting")
+    @RequestMapping(value = "/upload/all", method = {RequestMethod.GET, RequestMethod.POST})
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public IngestionJobStatus uploadAllFiles() {
+        return ingestionJobService.submitLoadAll();
+    }
+
+    @Operation(
+            summary = "Get an ingestion job",
+            description = "Returns the state, row counts, throughput and per-file results of an ingestion job."
+    )
+    @ApiResponse(responseCode = "200", description = "Job found")
+    @ApiResponse(responseCode = "404", description = "Unknown job id")
+    @GetMapping("/jobs/{id}")
+    public IngestionJobStatus getJob(@Parameter(description = "The job id returned by an upload") @PathVariable UUID id) {
+        return ingestionJobService.getStatus(id);
+    }
+
+    @Operation(
+            summary = "List ingestion jobs",
+            description = "Returns the status of recent ingestion jobs, most recent first."
     )
-    @ApiResponse(responseCode = "200", description = "All files successfully uploaded and processed")
-    @GetMapping("/upload/all")
-    @ResponseStatus(HttpStatus.OK)
-    public void uploadAllFiles() {
-        cryptoPriceService.loadAllCsvFiles();
+    @GetMapping("/jobs")
+    public List<IngestionJobStatus> getJobs() {
+        return ingestionJobService.getStatuses();
     }
-}
\ No newline at end of file
+}
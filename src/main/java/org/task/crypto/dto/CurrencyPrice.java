@@ -0,0 +1,8 @@
+package org.task.crypto.dto;
+
+/**
+ * Tick of a currency read without its entity, as the stored epoch millis and scaled price, for aggregations that only
+ * need these columns.
+ */
+public record CurrencyPrice(Long cryptoCurrencyId, long epochMillis, long scaledPrice) {
+}
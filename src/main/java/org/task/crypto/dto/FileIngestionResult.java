@@ -0,0 +1,14 @@
+package org.task.crypto.dto;
+
+import org.task.crypto.enums.IngestionMode;
+
+public record FileIngestionResult(
+        String fileName,
+        IngestionMode mode,
+        long pricesParsed,
+        long pricesRejected,
+        long pricesPersisted,
+        long durationMillis,
+        String error
+) {
+}
@@ -0,0 +1,23 @@
+package org.task.crypto.dto;
+
+import org.task.crypto.enums.IngestionJobState;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public record IngestionJobStatus(
+        UUID id,
+        String source,
+        IngestionJobState state,
+        long rowsParsed,
+        long rowsRejected,
+        long rowsPersisted,
+        double rowsPerSecond,
+        LocalDateTime submittedAt,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String error,
+        List<FileIngestionResult> files
+) {
+}
@@ -0,0 +1,20 @@
+package org.task.crypto.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Lowest and highest price of a symbol in a period; both are {@code null} when the period has no prices.
+ */
+public record PriceBounds(BigDecimal minPrice, BigDecimal maxPrice) {
+    public static final PriceBounds EMPTY = new PriceBounds(null, null);
+
+    public PriceBounds merge(PriceBounds other) {
+        if (other.minPrice == null) {
+            return this;
+        }
+        if (minPrice == null) {
+            return other;
+        }
+        return new PriceBounds(minPrice.min(other.minPrice), maxPrice.max(other.maxPrice));
+    }
+}
@@ -0,0 +1,35 @@
+package org.task.crypto.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Summary of the ticks of one symbol within a bucket (a day, a month or all time).
+ * First and last are ordered by tick timestamp, not by arrival, so out-of-order ticks merge correctly.
+ */
+public record PriceStatistics(
+        long count,
+        long firstTimestamp,
+        BigDecimal firstPrice,
+        long lastTimestamp,
+        BigDecimal lastPrice,
+        BigDecimal minPrice,
+        BigDecimal maxPrice
+) {
+
+    public static PriceStatistics of(long timestamp, BigDecimal price) {
+        return new PriceStatistics(1, timestamp, price, timestamp, price, price, price);
+    }
+
+    public PriceStatistics merge(PriceStatistics other) {
+        boolean otherFirst = other.firstTimestamp < firstTimestamp;
+        boolean otherLast = other.lastTimestamp >= lastTimestamp;
+        return new PriceStatistics(
+                count + other.count,
+                otherFirst ? other.firstTimestamp : firstTimestamp,
+                otherFirst ? other.firstPrice : firstPrice,
+                otherLast ? other.lastTimestamp : lastTimestamp,
+                otherLast ? other.lastPrice : lastPrice,
+                minPrice.min(other.minPrice),
+                maxPrice.max(other.maxPrice));
+    }
+}
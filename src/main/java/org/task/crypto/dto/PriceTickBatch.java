@@ -0,0 +1,143 @@
+package org.task.crypto.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reusable, fixed-capacity buffer of price ticks stored column by column.
+ * <p>
+ * Timestamps are epoch millis and prices are longs scaled by {@code 10^PRICE_SCALE}, so filling and reading a batch
+ * does not allocate per tick. The scale of the source literal is kept as well, so {@link #price(int)} returns a
+ * {@link BigDecimal} equal to the parsed value. Batches are handed to consumers and then cleared for reuse, so a
+ * consumer must copy a batch if it needs it after returning.
+ */
+public final class PriceTickBatch {
+    public static final int PRICE_SCALE = 8;
+
+    private final long[] timestamps;
+    private final String[] symbols;
+    private final long[] prices;
+    private final byte[] scales;
+    private int size;
+
+    public PriceTickBatch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Batch capacity must be positive: " + capacity);
+        }
+        this.timestamps = new long[capacity];
+        this.symbols = new String[capacity];
+        this.prices = new long[capacity];
+        this.scales = new byte[capacity];
+    }
+
+    /**
+     * Appends a tick.
+     *
+     * @param timestamp   Epoch millis of the tick
+     * @param symbol      The cryptocurrency symbol
+     * @param scaledPrice The price multiplied by {@code 10^PRICE_SCALE}
+     * @param scale       Number of decimals of the source value, between 0 and {@code PRICE_SCALE}
+     */
+    public void add(long timestamp, String symbol, long scaledPrice, int scale) {
+        if (size == timestamps.length) {
+            throw new IllegalStateException("Batch is full");
+        }
+        timestamps[size] = timestamp;
+        symbols[size] = symbol;
+        prices[size] = scaledPrice;
+        scales[size] = (byte) scale;
+        size++;
+    }
+
+    /**
+     * Appends a tick given as a {@link BigDecimal}; decimals beyond {@code PRICE_SCALE} are rounded half up.
+     *
+     * @throws ArithmeticException If the price does not fit the scaled representation
+     */
+    public void add(long timestamp, String symbol, BigDecimal price) {
+        long scaledPrice = price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        add(timestamp, symbol, scaledPrice, Math.max(0, Math.min(price.scale(), PRICE_SCALE)));
+    }
+
+    public void add(CryptoPriceDto price) {
+        add(price.timestamp(), price.symbol(), price.price());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == timestamps.length;
+    }
+
+    public void clear() {
+        Arrays.fill(symbols, 0, size, null);
+        size = 0;
+    }
+
+    public long timestamp(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    public String symbol(int index) {
+        return symbols[checkIndex(index)];
+    }
+
+    public long scaledPrice(int index) {
+        return prices[checkIndex(index)];
+    }
+
+    public BigDecimal price(int index) {
+        return BigDecimal.valueOf(prices[checkIndex(index)], PRICE_SCALE).setScale(scales[index]);
+    }
+
+    public CryptoPriceDto toDto(int index) {
+        return new CryptoPriceDto(timestamp(index), symbol(index), price(index));
+    }
+
+    public List<CryptoPriceDto> toDtos() {
+        List<CryptoPriceDto> dtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dtos.add(toDto(i));
+        }
+        return dtos;
+    }
+
+    /**
+     * Copies the ticks at the given positions, in the given order, into a new batch.
+     *
+     * @param indexes Positions of the ticks to copy
+     * @param count   Number of leading entries of {@code indexes} to use
+     */
+    public PriceTickBatch select(int[] indexes, int count) {
+        PriceTickBatch selected = new PriceTickBatch(Math.max(1, count));
+        for (int i = 0; i < count; i++) {
+            int index = checkIndex(indexes[i]);
+            selected.add(timestamps[index], symbols[index], prices[index], scales[index]);
+        }
+        return selected;
+    }
+
+    public static PriceTickBatch of(List<CryptoPriceDto> prices) {
+        PriceTickBatch batch = new PriceTickBatch(Math.max(1, prices.size()));
+        prices.forEach(batch::add);
+        return batch;
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+}
@@ -0,0 +1,10 @@
+package org.task.crypto.enums;
+
+/**
+ * Compression of a price file, detected from its leading bytes.
+ */
+public enum Compression {
+    NONE,
+    GZIP,
+    ZSTD
+}
@@ -0,0 +1,5 @@
+package org.task.crypto.enums;
+
+public enum IngestionJobState {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
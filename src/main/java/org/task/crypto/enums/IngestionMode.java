@@ -0,0 +1,13 @@
+package org.task.crypto.enums;
+
+/**
+ * How much of a price file an import run had to read.
+ */
+public enum IngestionMode {
+    /** The file was new or rewritten and was imported from the start. */
+    FULL,
+    /** Data was appended since the last run; only the new tail was imported. */
+    APPEND,
+    /** The file did not change since the last run and was skipped. */
+    UNCHANGED
+}
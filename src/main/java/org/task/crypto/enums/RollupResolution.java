@@ -0,0 +1,27 @@
+package org.task.crypto.enums;
+
+/**
+ * Bucket sizes of the price rollups. Buckets are aligned to the epoch, so a day bucket is a UTC day.
+ */
+public enum RollupResolution {
+    MINUTE(60_000L),
+    HOUR(3_600_000L),
+    DAY(86_400_000L);
+
+    private final long millis;
+
+    RollupResolution(long millis) {
+        this.millis = millis;
+    }
+
+    public long millis() {
+        return millis;
+    }
+
+    /**
+     * @return The start of the bucket containing {@code epochMilli}
+     */
+    public long bucketStart(long epochMilli) {
+        return epochMilli - Math.floorMod(epochMilli, millis);
+    }
+}
@@ -0,0 +1,150 @@
+package org.task.crypto.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.task.crypto.dto.PriceStatistics;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
+import org.task.crypto.service.PriceStatisticsStore;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Optional;
+
+import static org.task.crypto.messaging.PriceStatisticsTopology.dayKey;
+import static org.task.crypto.messaging.PriceStatisticsTopology.lifetimeKey;
+import static org.task.crypto.messaging.PriceStatisticsTopology.monthKey;
+
+/**
+ * Answers statistics queries from the local {@link PriceStatisticsTopology} state store, and feeds that store by
+ * publishing every batch written to the database to {@code crypto.kafka.streams.stored-ticks-topic}, as
+ * {@code timestamp,symbol,price} lines of at most {@value #RECORD_TICKS} ticks per record.
+ * <p>
+ * Prices stored before the statistics were enabled are published once at startup with
+ * {@code crypto.kafka.streams.backfill=true}; first, last, min and max are unaffected by a tick published twice.
+ * Only partitions hosted by this instance are visible, so with several instances a symbol owned by another one reads
+ * as missing and the caller falls back to the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "crypto.kafka.streams.enabled", havingValue = "true")
+public class KafkaPriceStatisticsStore implements PriceStatisticsStore {
+    private static final int RECORD_TICKS = 1000;
+    private static final int BACKFILL_BATCH_SIZE = 10_000;
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final CryptoPriceBulkRepository cryptoPriceBulkRepository;
+
+    @Value("${crypto.kafka.streams.stored-ticks-topic:" + PriceStatisticsTopology.DEFAULT_STORED_TICKS_TOPIC + "}")
+    private String storedTicksTopic = PriceStatisticsTopology.DEFAULT_STORED_TICKS_TOPIC;
+
+    @Value("${crypto.kafka.streams.backfill:false}")
+    private boolean backfill;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfill) {
+            return;
+        }
+        long start = System.nanoTime();
+        cryptoPriceBulkRepository.forEachBatch(Long.MIN_VALUE, BACKFILL_BATCH_SIZE, this::addAll);
+        log.info("Published the stored prices to {} in {} ms", storedTicksTopic,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void addAll(PriceTickBatch prices) {
+        StringBuilder lines = new StringBuilder(RECORD_TICKS * 32);
+        for (int i = 0; i < prices.size(); i++) {
+            lines.append(prices.timestamp(i)).append(',').append(prices.symbol(i)).append(',')
+                    .append(prices.price(i).toPlainString()).append('\n');
+            if ((i + 1) % RECORD_TICKS == 0 || i == prices.size() - 1) {
+                publish(lines.toString());
+                lines.setLength(0);
+            }
+        }
+    }
+
+    @Override
+    public Optional<PriceStatistics> getStatistics(String symbol) {
+        return store().map(store -> store.get(lifetimeKey(symbol)));
+    }
+
+    @Override
+    public Optional<PriceStatistics> getStatistics(String symbol, LocalDate from, LocalDate to) {
+        return store().flatMap(store -> aggregate(store, symbol, from, to));
+    }
+
+    /**
+     * Merges the buckets covering the days {@code from} to {@code to}: whole months are read from their month bucket
+     * and only the partial months at both ends are scanned day by day.
+     */
+    public static Optional<PriceStatistics> aggregate(ReadOnlyKeyValueStore<String, PriceStatistics> store,
+                                                      String symbol, LocalDate from, LocalDate to) {
+        PriceStatistics result = null;
+        LocalDate day = from;
+        while (!day.isAfter(to)) {
+            YearMonth month = YearMonth.from(day);
+            LocalDate monthEnd = month.atEndOfMonth();
+            if (day.getDayOfMonth() == 1 && !monthEnd.isAfter(to)) {
+                result = merge(result, store.get(monthKey(symbol, month)));
+            } else {
+                LocalDate last = monthEnd.isAfter(to) ? to : monthEnd;
+                try (KeyValueIterator<String, PriceStatistics> days =
+                             store.range(dayKey(symbol, day), dayKey(symbol, last))) {
+                    while (days.hasNext()) {
+                        KeyValue<String, PriceStatistics> entry = days.next();
+                        result = merge(result, entry.value);
+                    }
+                }
+            }
+            day = monthEnd.plusDays(1);
+        }
+        return Optional.ofNullable(result);
+    }
+
+    private void publish(String lines) {
+        kafkaTemplate.send(storedTicksTopic, lines.getBytes(StandardCharsets.UTF_8)).whenComplete((result, e) -> {
+            if (e != null) {
+                log.error("Failed to publish stored prices to {}; the statistics miss them", storedTicksTopic, e);
+            }
+        });
+    }
+
+    private static PriceStatistics merge(PriceStatistics result, PriceStatistics bucket) {
+        if (bucket == null) {
+            return result;
+        }
+        return result == null ? bucket : result.merge(bucket);
+    }
+
+    private Optional<ReadOnlyKeyValueStore<String, PriceStatistics>> store() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null || kafkaStreams.state() != KafkaStreams.State.RUNNING) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(kafkaStreams.store(StoreQueryParameters.fromNameAndType(
+                    PriceStatisticsTopology.STORE_NAME, QueryableStoreTypes.keyValueStore())));
+        } catch (InvalidStateStoreException e) {
+            return Optional.empty();
+        }
+    }
+}
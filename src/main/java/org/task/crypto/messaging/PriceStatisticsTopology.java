@@ -0,0 +1,118 @@
+package org.task.crypto.messaging;
+
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.serializer.JsonSerde;
+import org.springframework.stereotype.Component;
+import org.task.crypto.dto.PriceStatistics;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.utils.PriceTickParser;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kafka Streams topology that keeps {@link PriceStatistics} per symbol in the {@value #STORE_NAME} state store.
+ * <p>
+ * It reads the stored ticks topic, to which {@link KafkaPriceStatisticsStore} publishes every batch written to the
+ * database, so the statistics cover the CSV import, uploads and live ticks alike, and only the prices actually stored.
+ * Every tick is folded into three buckets: its day ({@code BTC|D|2022-01-31}), its month ({@code BTC|M|2022-01}) and
+ * the lifetime of the symbol ({@code BTC|L}). Days are taken in the system time zone, like the timestamps stored by
+ * the CSV import. Plain key-value buckets are used instead of windowed stores, so no bucket expires and day keys of a
+ * symbol can be scanned as a range because ISO dates sort lexicographically.
+ */
+@Component
+@ConditionalOnProperty(name = "crypto.kafka.streams.enabled", havingValue = "true")
+public class PriceStatisticsTopology {
+    public static final String STORE_NAME = "stored-price-statistics";
+    public static final String DEFAULT_STORED_TICKS_TOPIC = "crypto-stored-price-ticks";
+    private static final int RECORD_BATCH_SIZE = 256;
+    private static final int RECORD_BUFFER_SIZE = 1024;
+    private static final Serde<PriceStatistics> STATISTICS_SERDE =
+            new JsonSerde<>(PriceStatistics.class).noTypeInfo().ignoreTypeHeaders();
+
+    private final String storedTicksTopic;
+    private final ThreadLocal<PriceTickParser> parsers =
+            ThreadLocal.withInitial(() -> new PriceTickParser(RECORD_BUFFER_SIZE));
+    private final ThreadLocal<PriceTickBatch> batches =
+            ThreadLocal.withInitial(() -> new PriceTickBatch(RECORD_BATCH_SIZE));
+
+    public PriceStatisticsTopology(
+            @Value("${crypto.kafka.streams.stored-ticks-topic:" + DEFAULT_STORED_TICKS_TOPIC + "}")
+            String storedTicksTopic) {
+        this.storedTicksTopic = storedTicksTopic;
+    }
+
+    public static String dayKey(String symbol, LocalDate day) {
+        return symbol + "|D|" + day;
+    }
+
+    public static String monthKey(String symbol, YearMonth month) {
+        return symbol + "|M|" + month;
+    }
+
+    public static String lifetimeKey(String symbol) {
+        return symbol + "|L";
+    }
+
+    @Autowired
+    public void buildPipeline(StreamsBuilder streamsBuilder) {
+        streamsBuilder.stream(storedTicksTopic, Consumed.with(Serdes.String(), Serdes.ByteArray()))
+                .flatMap((key, value) -> toBuckets(value))
+                .groupByKey(Grouped.with(Serdes.String(), STATISTICS_SERDE))
+                .reduce(PriceStatistics::merge,
+                        Materialized.<String, PriceStatistics, KeyValueStore<Bytes, byte[]>>as(STORE_NAME)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(STATISTICS_SERDE));
+    }
+
+    /**
+     * Parses the lines of one record and merges its ticks per bucket, so a record carrying many ticks of the same
+     * symbol and day produces three updates instead of three per tick.
+     */
+    private List<KeyValue<String, PriceStatistics>> toBuckets(byte[] value) {
+        if (value == null) {
+            return List.of();
+        }
+        Map<String, PriceStatistics> buckets = new LinkedHashMap<>();
+        PriceTickBatch batch = batches.get();
+        try {
+            parsers.get().parseLines(ByteBuffer.wrap(value), true, batch, full -> addBuckets(full, buckets));
+            addBuckets(batch, buckets);
+        } finally {
+            batch.clear();
+        }
+        List<KeyValue<String, PriceStatistics>> records = new ArrayList<>(buckets.size());
+        buckets.forEach((key, statistics) -> records.add(KeyValue.pair(key, statistics)));
+        return records;
+    }
+
+    private static void addBuckets(PriceTickBatch batch, Map<String, PriceStatistics> buckets) {
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < batch.size(); i++) {
+            String symbol = batch.symbol(i);
+            PriceStatistics tick = PriceStatistics.of(batch.timestamp(i), batch.price(i));
+            LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(batch.timestamp(i)), zone);
+            buckets.merge(dayKey(symbol, day), tick, PriceStatistics::merge);
+            buckets.merge(monthKey(symbol, YearMonth.from(day)), tick, PriceStatistics::merge);
+            buckets.merge(lifetimeKey(symbol), tick, PriceStatistics::merge);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.task.crypto.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.service.CryptoPriceService;
+import org.task.crypto.utils.PriceTickParser;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Ingests live price ticks from Kafka.
+ * <p>
+ * Each record value holds one or more {@code timestamp,symbol,price} lines without a header. The records of a poll
+ * are parsed into a per-thread {@link PriceTickBatch}, written through the bulk persistence path, and only then
+ * acknowledged; if the write fails nothing is committed and the error handler redelivers the batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "crypto.kafka.enabled", havingValue = "true")
+public class PriceTickListener {
+    private static final int DEFAULT_BATCH_SIZE = 5_000;
+    private static final int RECORD_BUFFER_SIZE = 1024;
+
+    private final CryptoPriceService cryptoPriceService;
+
+    @Value("${crypto.ingestion.batch-size:" + DEFAULT_BATCH_SIZE + "}")
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private final ThreadLocal<PriceTickParser> parsers =
+            ThreadLocal.withInitial(() -> new PriceTickParser(RECORD_BUFFER_SIZE));
+    private final ThreadLocal<PriceTickBatch> batches = ThreadLocal.withInitial(() -> new PriceTickBatch(batchSize));
+
+    @KafkaListener(
+            id = "price-ticks",
+            topics = "${crypto.kafka.ticks-topic:crypto-price-ticks}",
+            groupId = "${crypto.kafka.group-id:crypto-price-ingestion}",
+            containerFactory = "priceTickListenerContainerFactory")
+    public void onTicks(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        PriceTickParser parser = parsers.get();
+        PriceTickBatch batch = batches.get();
+        long parsed = 0;
+        try {
+            for (ConsumerRecord<String, byte[]> tickRecord : records) {
+                if (tickRecord.value() != null) {
+                    parsed += parser.parseLines(ByteBuffer.wrap(tickRecord.value()), true, batch,
+                            cryptoPriceService::saveCryptoPricesToDatabase);
+                }
+            }
+            if (!batch.isEmpty()) {
+                cryptoPriceService.saveCryptoPricesToDatabase(batch);
+            }
+        } finally {
+            batch.clear();
+        }
+        acknowledgment.acknowledge();
+        log.debug("Persisted {} ticks from {} records", parsed, records.size());
+    }
+}
@@ -1,5 +1,8 @@
 package org.task.crypto.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -8,29 +11,67 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 
+/**
+ * A price tick. The timestamp is stored as epoch milliseconds and the price as a long with
+ * {@link org.task.crypto.dto.PriceTickBatch#PRICE_SCALE} implied decimals, so rows are two fixed-width columns that
+ * compare as integers and can be written straight from a {@link org.task.crypto.dto.PriceTickBatch}.
+ * Rows are keyed by the id of their {@link CryptoCurrency}: the unique key on currency id and timestamp doubles as
+ * the index for the per-currency aggregate queries. The symbol is kept as a label for the API.
+ */
 @Data
 @Entity
-@Table(name = "crypto_prices")
+@Table(name = "crypto_prices", uniqueConstraints = @UniqueConstraint(
+        name = "uk_crypto_prices_currency_timestamp", columnNames = {"crypto_currency_id", "epoch_millis"}))
 public class CryptoPrice {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String symbol;
+
+    @Column(name = "scaled_price")
+    @Convert(converter = ScaledPriceConverter.class)
     private BigDecimal price;
+
+    @Column(name = "epoch_millis")
+    @Convert(converter = EpochMillisConverter.class)
     private LocalDateTime timestamp;
 
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "crypto_currency_id", nullable = false)
     private CryptoCurrency cryptoCurrency;
 
+    /**
+     * Read-only view of the join column, so prices can be filtered and grouped by currency without loading it.
+     */
+    @JsonIgnore
+    @Column(name = "crypto_currency_id", insertable = false, updatable = false)
+    private Long cryptoCurrencyId;
+
+    /**
+     * Read-only views of the stored columns, so aggregations can read the primitives without the converters.
+     */
+    @JsonIgnore
+    @Column(name = "epoch_millis", insertable = false, updatable = false)
+    private Long epochMillis;
+
+    @JsonIgnore
+    @Column(name = "scaled_price", insertable = false, updatable = false)
+    private Long scaledPrice;
+
     public void setTimestampFromEpochMilli(Long epochMilli) {
         if (epochMilli != null) {
             this.timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
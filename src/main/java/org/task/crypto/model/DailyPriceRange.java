@@ -0,0 +1,52 @@
+package org.task.crypto.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Lowest and highest price of one currency on one day in the server time zone, the day the normalized range
+ * endpoints use. Prices are scaled longs like in {@link CryptoPrice}. The unique key on day and currency doubles as
+ * the index for reading a day's leaderboard. Rows are maintained at ingest, see {@code DailyPriceRangeRepository}.
+ */
+@Entity
+@Table(name = "crypto_daily_ranges", uniqueConstraints = @UniqueConstraint(
+        name = "uk_crypto_daily_ranges_day_currency", columnNames = {"trading_day", "crypto_currency_id"}))
+@Getter
+@Setter
+public class DailyPriceRange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trading_day", nullable = false)
+    private LocalDate tradingDay;
+
+    @Column(name = "crypto_currency_id", nullable = false)
+    private long cryptoCurrencyId;
+
+    private long lowPrice;
+    private long highPrice;
+
+    public static DailyPriceRange of(LocalDate tradingDay, long cryptoCurrencyId, long scaledPrice) {
+        DailyPriceRange range = new DailyPriceRange();
+        range.setTradingDay(tradingDay);
+        range.setCryptoCurrencyId(cryptoCurrencyId);
+        range.setLowPrice(scaledPrice);
+        range.setHighPrice(scaledPrice);
+        return range;
+    }
+
+    public void add(long scaledPrice) {
+        lowPrice = Math.min(lowPrice, scaledPrice);
+        highPrice = Math.max(highPrice, scaledPrice);
+    }
+}
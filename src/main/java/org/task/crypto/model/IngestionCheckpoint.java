@@ -0,0 +1,37 @@
+package org.task.crypto.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the price file import for one file in {@code crypto.prices-directory}.
+ * The content hash covers the first {@code byteOffset} bytes of the file, which have all been imported.
+ */
+@Entity
+@Table(name = "ingestion_checkpoints")
+@Getter
+@Setter
+public class IngestionCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String filePath;
+
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    private long byteOffset;
+    private long fileModifiedAt;
+    private Long lastTimestamp;
+    private LocalDateTime updatedAt;
+}
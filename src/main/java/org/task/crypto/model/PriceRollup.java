@@ -0,0 +1,77 @@
+package org.task.crypto.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+import org.task.crypto.enums.RollupResolution;
+
+/**
+ * Open, high, low, close and tick count of one currency within a minute, hour or day bucket. Prices are scaled longs
+ * like in {@link CryptoPrice}; open and close keep the timestamp of their tick so buckets filled out of order stay
+ * correct. Rows are maintained by the bulk write path, see {@code PriceRollupRepository}.
+ */
+@Entity
+@Table(name = "crypto_price_rollups", uniqueConstraints = @UniqueConstraint(
+        name = "uk_crypto_price_rollups_bucket", columnNames = {"crypto_currency_id", "resolution", "bucket_start"}))
+@Getter
+@Setter
+public class PriceRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "crypto_currency_id", nullable = false)
+    private long cryptoCurrencyId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RollupResolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private long bucketStart;
+
+    private long openMillis;
+    private long openPrice;
+    private long highPrice;
+    private long lowPrice;
+    private long closeMillis;
+    private long closePrice;
+    private long tickCount;
+
+    public static PriceRollup of(long cryptoCurrencyId, RollupResolution resolution, long timestamp, long scaledPrice) {
+        PriceRollup rollup = new PriceRollup();
+        rollup.setCryptoCurrencyId(cryptoCurrencyId);
+        rollup.setResolution(resolution);
+        rollup.setBucketStart(resolution.bucketStart(timestamp));
+        rollup.setOpenMillis(timestamp);
+        rollup.setOpenPrice(scaledPrice);
+        rollup.setHighPrice(scaledPrice);
+        rollup.setLowPrice(scaledPrice);
+        rollup.setCloseMillis(timestamp);
+        rollup.setClosePrice(scaledPrice);
+        rollup.setTickCount(1);
+        return rollup;
+    }
+
+    public void add(long timestamp, long scaledPrice) {
+        if (timestamp < openMillis) {
+            openMillis = timestamp;
+            openPrice = scaledPrice;
+        }
+        if (timestamp >= closeMillis) {
+            closeMillis = timestamp;
+            closePrice = scaledPrice;
+        }
+        highPrice = Math.max(highPrice, scaledPrice);
+        lowPrice = Math.min(lowPrice, scaledPrice);
+        tickCount++;
+    }
+}
@@ -0,0 +1,32 @@
+package org.task.crypto.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.task.crypto.dto.PriceTickBatch;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Stores a price as a long scaled by {@link PriceTickBatch#PRICE_SCALE} decimals, the layout the tick parser
+ * produces. Prices read back have their trailing zeros removed, keeping at least two decimals.
+ */
+@Converter
+public class ScaledPriceConverter implements AttributeConverter<BigDecimal, Long> {
+    private static final int MIN_SCALE = 2;
+
+    @Override
+    public Long convertToDatabaseColumn(BigDecimal price) {
+        return price == null ? null
+                : price.setScale(PriceTickBatch.PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    @Override
+    public BigDecimal convertToEntityAttribute(Long scaledPrice) {
+        if (scaledPrice == null) {
+            return null;
+        }
+        BigDecimal price = BigDecimal.valueOf(scaledPrice, PriceTickBatch.PRICE_SCALE).stripTrailingZeros();
+        return price.scale() < MIN_SCALE ? price.setScale(MIN_SCALE) : price;
+    }
+}
@@ -0,0 +1,63 @@
+package org.task.crypto.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.task.crypto.model.CryptoCurrency;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached mapping between cryptocurrency symbols and their {@code crypto_currencies} ids.
+ * <p>
+ * Prices are keyed by the currency id, so ingestion and queries resolve each symbol here once instead of carrying and
+ * hashing the symbol string per row. Entries are loaded on first use; unknown symbols are not cached, so a currency
+ * registered later is found on its next lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class CryptoCurrencyDictionary {
+
+    private final CryptoCurrencyRepository cryptoCurrencyRepository;
+
+    private final Map<String, Long> idsBySymbol = new ConcurrentHashMap<>();
+    private final Map<Long, String> symbolsById = new ConcurrentHashMap<>();
+
+    public Optional<Long> findId(String symbol) {
+        Long id = idsBySymbol.get(symbol);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        return cryptoCurrencyRepository.findBySymbol(symbol).map(this::register);
+    }
+
+    public Optional<String> findSymbol(long id) {
+        String symbol = symbolsById.get(id);
+        if (symbol != null) {
+            return Optional.of(symbol);
+        }
+        return cryptoCurrencyRepository.findById(id).map(cryptoCurrency -> {
+            register(cryptoCurrency);
+            return cryptoCurrency.getSymbol();
+        });
+    }
+
+    /**
+     * Caches a stored currency.
+     *
+     * @return The id of the currency
+     */
+    public Long register(CryptoCurrency cryptoCurrency) {
+        idsBySymbol.put(cryptoCurrency.getSymbol(), cryptoCurrency.getId());
+        symbolsById.put(cryptoCurrency.getId(), cryptoCurrency.getSymbol());
+        return cryptoCurrency.getId();
+    }
+
+    public void evict(String symbol) {
+        Long id = idsBySymbol.remove(symbol);
+        if (id != null) {
+            symbolsById.remove(id);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package org.task.crypto.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.enums.RollupResolution;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+
+/**
+ * Write path for large volumes of price ticks that bypasses Hibernate, and the matching bulk read.
+ * <p>
+ * {@code CryptoPrice} uses an identity id, so {@code saveAll} issues one INSERT round trip per row. On PostgreSQL
+ * this repository streams the rows through {@code COPY ... FROM STDIN} into a session-local staging table and moves
+ * them with one {@code INSERT ... ON CONFLICT DO NOTHING}; on other databases (H2 in tests) it falls back to a batched
+ * JDBC insert. Either way a price whose currency and timestamp are already stored is skipped, so re-imported files and
+ * redelivered ticks do not create duplicates, and only the prices actually inserted are reported back to the caller.
+ * Symbols are resolved to currency ids through the {@link CryptoCurrencyDictionary}, once per symbol and batch.
+ * <p>
+ * With {@code crypto.rollups.enabled=true} the inserted prices are also folded into their minute, hour and day
+ * rollups, within the same transaction; skipped duplicates are not counted twice.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class CryptoPriceBulkRepository {
+    private static final String POSTGRESQL = "PostgreSQL";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String CREATE_STAGING_SQL = "CREATE TEMPORARY TABLE IF NOT EXISTS crypto_prices_staging "
+            + "(symbol VARCHAR(255), scaled_price BIGINT, epoch_millis BIGINT, crypto_currency_id BIGINT) "
+            + "ON COMMIT DELETE ROWS";
+    private static final String COPY_SQL = "COPY crypto_prices_staging (symbol, scaled_price, epoch_millis, "
+            + "crypto_currency_id) FROM STDIN WITH (FORMAT csv)";
+    private static final String MERGE_STAGING_SQL =
+            "INSERT INTO crypto_prices (symbol, scaled_price, epoch_millis, crypto_currency_id) "
+                    + "SELECT symbol, scaled_price, epoch_millis, crypto_currency_id FROM crypto_prices_staging "
+                    + "ON CONFLICT (crypto_currency_id, epoch_millis) DO NOTHING";
+    private static final String MERGE_STAGING_RETURNING_SQL =
+            MERGE_STAGING_SQL + " RETURNING crypto_currency_id, epoch_millis";
+    private static final String MERGE_STAGING_WITH_ROLLUPS_SQL = "WITH inserted AS (" + MERGE_STAGING_SQL
+            + " RETURNING scaled_price, epoch_millis, crypto_currency_id), "
+            + "rolled_up AS (INSERT INTO crypto_price_rollups AS r (" + PriceRollupRepository.ROLLUP_COLUMNS + ") "
+            + "SELECT crypto_currency_id, resolution, bucket_start, MIN(epoch_millis), "
+            + "(ARRAY_AGG(scaled_price ORDER BY epoch_millis))[1], MAX(scaled_price), MIN(scaled_price), "
+            + "MAX(epoch_millis), (ARRAY_AGG(scaled_price ORDER BY epoch_millis DESC))[1], COUNT(*) "
+            + "FROM (SELECT i.crypto_currency_id, b.resolution, i.scaled_price, i.epoch_millis, "
+            + "i.epoch_millis - MOD(MOD(i.epoch_millis, b.millis) + b.millis, b.millis) AS bucket_start "
+            + "FROM inserted i CROSS JOIN (VALUES " + resolutionValues() + ") b(resolution, millis)) ticks "
+            + "GROUP BY crypto_currency_id, resolution, bucket_start "
+            + "ORDER BY crypto_currency_id, resolution, bucket_start "
+            + "ON CONFLICT (crypto_currency_id, resolution, bucket_start) DO UPDATE SET "
+            + PriceRollupRepository.mergeAssignments("EXCLUDED") + ") "
+            + "SELECT crypto_currency_id, epoch_millis FROM inserted";
+    private static final String TRUNCATE_STAGING_SQL = "TRUNCATE crypto_prices_staging";
+    private static final String INSERT_SQL =
+            "INSERT INTO crypto_prices (symbol, scaled_price, epoch_millis, crypto_currency_id) SELECT ?, ?, ?, ? "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM crypto_prices WHERE crypto_currency_id = ? AND epoch_millis = ?)";
+    private static final String SELECT_FROM_SQL =
+            "SELECT symbol, epoch_millis, scaled_price FROM crypto_prices WHERE epoch_millis >= ? "
+                    + "ORDER BY symbol, epoch_millis";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PriceRollupRepository priceRollupRepository;
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+    private volatile Boolean postgres;
+
+    @Value("${crypto.rollups.enabled:false}")
+    private boolean maintainRollups;
+
+    /**
+     * Inserts the given prices as one COPY stream or one JDBC batch.
+     * Prices whose symbol is not registered in {@code crypto_currencies} are skipped, since the currency
+     * reference is mandatory, and so are prices whose currency and timestamp are already stored.
+     *
+     * @param prices The prices to insert
+     * @return The prices actually inserted, in batch order; the given batch itself when every price was inserted
+     */
+    @Transactional
+    public PriceTickBatch insertAll(PriceTickBatch prices) {
+        int[] accepted = new int[prices.size()];
+        long[] currencyIds = new long[prices.size()];
+        int rowCount = 0;
+        Map<String, Long> idsBySymbol = new HashMap<>();
+        for (int i = 0; i < prices.size(); i++) {
+            String symbol = prices.symbol(i);
+            if (!idsBySymbol.containsKey(symbol)) {
+                idsBySymbol.put(symbol, cryptoCurrencyDictionary.findId(symbol).orElse(null));
+            }
+            Long currencyId = idsBySymbol.get(symbol);
+            if (currencyId != null) {
+                accepted[rowCount] = i;
+                currencyIds[rowCount] = currencyId;
+                rowCount++;
+            }
+        }
+        if (rowCount < prices.size()) {
+            log.warn("Skipped {} prices with unknown cryptocurrency symbols", prices.size() - rowCount);
+        }
+        if (rowCount == 0) {
+            return prices.select(accepted, 0);
+        }
+
+        PriceRows rows = new PriceRows(prices, accepted, currencyIds, rowCount);
+        int[] inserted = new int[rowCount];
+        int written = isPostgres()
+                ? jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> copyIn(connection, rows, inserted))
+                : batchInsert(rows, inserted);
+        logDuplicates(rowCount - written);
+        return written == prices.size() ? prices : prices.select(inserted, written);
+    }
+
+    /**
+     * Streams the stored prices from {@code fromEpochMilli} on, ordered by symbol and timestamp, in batches of
+     * {@code batchSize}. The batch is reused, so the consumer must not keep it.
+     */
+    @Transactional(readOnly = true)
+    public void forEachBatch(long fromEpochMilli, int batchSize, Consumer<PriceTickBatch> consumer) {
+        PriceTickBatch batch = new PriceTickBatch(batchSize);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_FROM_SQL);
+            statement.setLong(1, fromEpochMilli);
+            statement.setFetchSize(batchSize);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            batch.add(resultSet.getLong(2), resultSet.getString(1), resultSet.getLong(3), PriceTickBatch.PRICE_SCALE);
+            if (batch.isFull()) {
+                consumer.accept(batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    /**
+     * Streams the rows into the staging table and moves them over; fills {@code inserted} with the batch positions
+     * of the rows actually inserted and returns their number.
+     */
+    private int copyIn(Connection connection, PriceRows rows, int[] inserted) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+        }
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        StringBuilder line = new StringBuilder(128);
+        try (Writer writer = new OutputStreamWriter(
+                new PGCopyOutputStream(pgConnection, COPY_SQL, COPY_BUFFER_SIZE), StandardCharsets.UTF_8)) {
+            for (int row = 0; row < rows.count(); row++) {
+                int index = rows.indexes()[row];
+                line.setLength(0);
+                line.append('"').append(rows.prices().symbol(index).replace("\"", "\"\"")).append("\",")
+                        .append(rows.prices().scaledPrice(index)).append(',')
+                        .append(rows.prices().timestamp(index)).append(',')
+                        .append(rows.currencyIds()[row]).append('\n');
+                writer.append(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("COPY into crypto_prices_staging failed", e);
+        }
+        Map<PriceKey, Integer> indexesByKey = new HashMap<>(rows.count() * 2);
+        for (int row = 0; row < rows.count(); row++) {
+            int index = rows.indexes()[row];
+            indexesByKey.putIfAbsent(new PriceKey(rows.currencyIds()[row], rows.prices().timestamp(index)), index);
+        }
+        boolean[] insertedIndexes = new boolean[rows.prices().size()];
+        // With rollups the staged rows are moved and the inserted ones folded into their rollups in one statement
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery(
+                    maintainRollups ? MERGE_STAGING_WITH_ROLLUPS_SQL : MERGE_STAGING_RETURNING_SQL)) {
+                while (resultSet.next()) {
+                    Integer index = indexesByKey.get(new PriceKey(resultSet.getLong(1), resultSet.getLong(2)));
+                    if (index != null) {
+                        insertedIndexes[index] = true;
+                    }
+                }
+            }
+            statement.execute(TRUNCATE_STAGING_SQL);
+        }
+        int written = 0;
+        for (int index = 0; index < insertedIndexes.length; index++) {
+            if (insertedIndexes[index]) {
+                inserted[written++] = index;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Inserts the rows one statement per row in a JDBC batch; fills {@code inserted} with the batch positions of the
+     * rows actually inserted and returns their number.
+     */
+    private int batchInsert(PriceRows rows, int[] inserted) {
+        int[] updateCounts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int row) throws SQLException {
+                int index = rows.indexes()[row];
+                statement.setString(1, rows.prices().symbol(index));
+                statement.setLong(2, rows.prices().scaledPrice(index));
+                statement.setLong(3, rows.prices().timestamp(index));
+                statement.setLong(4, rows.currencyIds()[row]);
+                statement.setLong(5, rows.currencyIds()[row]);
+                statement.setLong(6, rows.prices().timestamp(index));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.count();
+            }
+        });
+        int written = 0;
+        long[] insertedCurrencyIds = new long[rows.count()];
+        for (int row = 0; row < updateCounts.length; row++) {
+            if (updateCounts[row] == Statement.SUCCESS_NO_INFO || updateCounts[row] > 0) {
+                insertedCurrencyIds[written] = rows.currencyIds()[row];
+                inserted[written++] = rows.indexes()[row];
+            }
+        }
+        if (maintainRollups) {
+            priceRollupRepository.addTicks(rows.prices(), inserted, insertedCurrencyIds, written);
+        }
+        return written;
+    }
+
+    private static String resolutionValues() {
+        StringJoiner values = new StringJoiner(", ");
+        for (RollupResolution resolution : RollupResolution.values()) {
+            values.add("('" + resolution.name() + "', " + resolution.millis() + ")");
+        }
+        return values.toString();
+    }
+
+    private static void logDuplicates(int duplicates) {
+        if (duplicates > 0) {
+            log.debug("Skipped {} prices that were already stored", duplicates);
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    /**
+     * The accepted positions of a batch, paired with their resolved currency ids.
+     */
+    private record PriceRows(PriceTickBatch prices, int[] indexes, long[] currencyIds, int count) {
+    }
+
+    /**
+     * The unique key of a stored price, used to map the rows returned by the database back to their batch positions.
+     */
+    private record PriceKey(long currencyId, long epochMillis) {
+    }
+}
@@ -0,0 +1,80 @@
+package org.task.crypto.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manages the monthly partitions of a PostgreSQL {@code crypto_prices} table partitioned by range of
+ * {@code epoch_millis} (see {@code templates/queryPartitionCryptoPricesByMonth}). A partition covers one UTC month
+ * and is named {@code crypto_prices_pYYYY_MM}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CryptoPricePartitionRepository {
+    private static final String PARTITION_PREFIX = "crypto_prices_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String IS_PARTITIONED_SQL = "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table t "
+            + "JOIN pg_class c ON c.oid = t.partrelid WHERE c.relname = 'crypto_prices' AND pg_table_is_visible(c.oid))";
+    private static final String FIND_PARTITIONS_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'crypto_prices' AND pg_table_is_visible(p.oid)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return Whether {@code crypto_prices} is a partitioned table; always {@code false} on other databases
+     */
+    public boolean isPartitioned() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>)
+                connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(product)
+                && Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED_SQL, Boolean.class));
+    }
+
+    /**
+     * @return The months that have a partition, in no particular order; the default partition is not included
+     */
+    public List<YearMonth> findMonthlyPartitions() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(FIND_PARTITIONS_SQL, String.class)) {
+            if (name.startsWith(PARTITION_PREFIX)) {
+                try {
+                    months.add(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+                } catch (DateTimeParseException e) {
+                    // not one of ours
+                }
+            }
+        }
+        return months;
+    }
+
+    public void createMonthlyPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                + " PARTITION OF crypto_prices FOR VALUES FROM (" + startEpochMilli(month) + ") TO ("
+                + startEpochMilli(month.plusMonths(1)) + ")");
+    }
+
+    /**
+     * Drops the partition with all its rows; unlike a DELETE this takes constant time and leaves no dead tuples.
+     */
+    public void dropMonthlyPartition(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(month));
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    public static long startEpochMilli(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+}
@@ -1,19 +1,65 @@
 package org.task.crypto.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.task.crypto.dto.CurrencyPrice;
+import org.task.crypto.dto.PriceBounds;
 import org.task.crypto.model.CryptoPrice;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CryptoPriceRepository extends JpaRepository<CryptoPrice, Long> {
+    String STREAM_FETCH_SIZE = "1000";
 
-    List<CryptoPrice> findBySymbol(String symbol);
+    List<CryptoPrice> findByCryptoCurrencyId(Long cryptoCurrencyId);
 
-    List<CryptoPrice> findBySymbolAndTimestampBetween(String symbol, LocalDateTime start, LocalDateTime end);
+    List<CryptoPrice> findByCryptoCurrencyIdAndTimestampBetween(Long cryptoCurrencyId,
+                                                                 LocalDateTime start,
+                                                                 LocalDateTime end);
 
-    List<CryptoPrice> findByTimestampBetween(LocalDateTime start, LocalDateTime end);
+    /**
+     * Streams currency id, epoch millis and scaled price of every tick in the period as projections, so no entity enters the persistence
+     * context. Rows are fetched in chunks of {@link #STREAM_FETCH_SIZE}; the stream must be consumed and closed within
+     * a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new org.task.crypto.dto.CurrencyPrice(p.cryptoCurrencyId, p.epochMillis, p.scaledPrice) "
+            + "from CryptoPrice p where p.timestamp between :start and :end")
+    Stream<CurrencyPrice> streamByTimestampBetween(@Param("start") LocalDateTime start,
+                                                   @Param("end") LocalDateTime end);
+
+    /**
+     * Reads only the (currency id, timestamp) index range of the period, so imports can skip the stored ticks.
+     */
+    @Query("select p.epochMillis from CryptoPrice p "
+            + "where p.cryptoCurrencyId = :cryptoCurrencyId and p.epochMillis between :start and :end")
+    List<Long> findEpochMillis(@Param("cryptoCurrencyId") Long cryptoCurrencyId,
+                               @Param("start") long start,
+                               @Param("end") long end);
+
+    Optional<CryptoPrice> findFirstByCryptoCurrencyIdOrderByTimestampAsc(Long cryptoCurrencyId);
+
+    Optional<CryptoPrice> findFirstByCryptoCurrencyIdOrderByTimestampDesc(Long cryptoCurrencyId);
+
+    /**
+     * Computes both bounds in the database, reading only the (currency id, timestamp) index range of the period.
+     */
+    @Query("select new org.task.crypto.dto.PriceBounds(min(p.price), max(p.price)) from CryptoPrice p "
+            + "where p.cryptoCurrencyId = :cryptoCurrencyId and p.timestamp between :start and :end")
+    PriceBounds findPriceBounds(@Param("cryptoCurrencyId") Long cryptoCurrencyId,
+                                @Param("start") LocalDateTime start,
+                                @Param("end") LocalDateTime end);
 
 }
@@ -0,0 +1,91 @@
+package org.task.crypto.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.task.crypto.model.DailyPriceRange;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads and maintains the daily normalized range leaderboard in {@code crypto_daily_ranges}.
+ * <p>
+ * Each touched day and currency is upserted once per batch, keeping the lower low and the higher high of the stored
+ * and the new values, so batches may arrive in any order and re-adding a tick changes nothing. Rows are written in key
+ * order, which keeps concurrent writers from deadlocking.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyPriceRangeRepository {
+    private static final String POSTGRESQL = "PostgreSQL";
+    private static final String UPSERT_SQL = "INSERT INTO crypto_daily_ranges AS r "
+            + "(trading_day, crypto_currency_id, low_price, high_price) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (trading_day, crypto_currency_id) DO UPDATE SET "
+            + "low_price = LEAST(r.low_price, EXCLUDED.low_price), high_price = GREATEST(r.high_price, EXCLUDED.high_price)";
+    private static final String MERGE_SQL = "MERGE INTO crypto_daily_ranges r USING (VALUES (CAST(? AS DATE), "
+            + "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+            + "s(trading_day, crypto_currency_id, low_price, high_price) "
+            + "ON r.trading_day = s.trading_day AND r.crypto_currency_id = s.crypto_currency_id "
+            + "WHEN MATCHED THEN UPDATE SET low_price = LEAST(r.low_price, s.low_price), "
+            + "high_price = GREATEST(r.high_price, s.high_price) "
+            + "WHEN NOT MATCHED THEN INSERT (trading_day, crypto_currency_id, low_price, high_price) "
+            + "VALUES (s.trading_day, s.crypto_currency_id, s.low_price, s.high_price)";
+    private static final String SELECT_DAY_SQL = "SELECT crypto_currency_id, low_price, high_price "
+            + "FROM crypto_daily_ranges WHERE trading_day = ? AND low_price > 0 ORDER BY crypto_currency_id";
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM crypto_daily_ranges WHERE trading_day < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    /**
+     * Folds the given ranges into the stored ones.
+     */
+    public void addRanges(Collection<DailyPriceRange> ranges) {
+        if (ranges.isEmpty()) {
+            return;
+        }
+        List<DailyPriceRange> ordered = new ArrayList<>(ranges);
+        ordered.sort(Comparator.comparing(DailyPriceRange::getTradingDay)
+                .thenComparingLong(DailyPriceRange::getCryptoCurrencyId));
+        jdbcTemplate.batchUpdate(isPostgres() ? UPSERT_SQL : MERGE_SQL, ordered, ordered.size(),
+                (statement, range) -> {
+                    statement.setObject(1, range.getTradingDay());
+                    statement.setLong(2, range.getCryptoCurrencyId());
+                    statement.setLong(3, range.getLowPrice());
+                    statement.setLong(4, range.getHighPrice());
+                });
+    }
+
+    /**
+     * @return The ranges of every currency with a positive low price on {@code day}, in currency id order
+     */
+    public List<DailyPriceRange> findRanges(LocalDate day) {
+        return jdbcTemplate.query(SELECT_DAY_SQL, (resultSet, rowNum) -> {
+            DailyPriceRange range = DailyPriceRange.of(day, resultSet.getLong(1), resultSet.getLong(2));
+            range.add(resultSet.getLong(3));
+            return range;
+        }, day);
+    }
+
+    /**
+     * Deletes the ranges of the days before {@code day}, after their prices were dropped.
+     *
+     * @return The number of deleted rows
+     */
+    public int deleteBefore(LocalDate day) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, day);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
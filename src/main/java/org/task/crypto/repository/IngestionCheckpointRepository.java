@@ -0,0 +1,13 @@
+package org.task.crypto.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.task.crypto.model.IngestionCheckpoint;
+
+import java.util.Optional;
+
+@Repository
+public interface IngestionCheckpointRepository extends JpaRepository<IngestionCheckpoint, Long> {
+
+    Optional<IngestionCheckpoint> findByFilePath(String filePath);
+}
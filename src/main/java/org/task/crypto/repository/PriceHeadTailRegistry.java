@@ -0,0 +1,128 @@
+package org.task.crypto.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.model.EpochMillisConverter;
+import org.task.crypto.model.ScaledPriceConverter;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Oldest and newest price of every cryptocurrency, kept up to date by ingestion.
+ * <p>
+ * Each symbol maps to an immutable {@link Edges} value that is replaced atomically, so reads are a single map lookup
+ * without locks or database access. Every persisted batch is merged in with {@link #addAll}. An entry is only trusted
+ * once it has been seeded from the database with the first and last stored price; until then, and after
+ * {@link #evict} or {@link #clear}, the next read seeds it again. Merging keeps the earliest first and the latest last
+ * tick, so seeding and ingestion can run in any order.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceHeadTailRegistry {
+    private static final ScaledPriceConverter PRICE_CONVERTER = new ScaledPriceConverter();
+    private static final EpochMillisConverter TIMESTAMP_CONVERTER = new EpochMillisConverter();
+
+    private final CryptoPriceRepository cryptoPriceRepository;
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    private final Map<String, Edges> edgesBySymbol = new ConcurrentHashMap<>();
+
+    public Optional<CryptoPrice> findOldestPrice(String symbol) {
+        return findEdges(symbol).map(edges -> toCryptoPrice(symbol, edges.firstTimestamp(), edges.firstPrice()));
+    }
+
+    public Optional<CryptoPrice> findNewestPrice(String symbol) {
+        return findEdges(symbol).map(edges -> toCryptoPrice(symbol, edges.lastTimestamp(), edges.lastPrice()));
+    }
+
+    /**
+     * Merges a persisted batch in, with one atomic update per symbol; ticks of unknown symbols are ignored, as they
+     * are not stored.
+     *
+     * @param prices The persisted prices; not retained after the call
+     */
+    public void addAll(PriceTickBatch prices) {
+        Map<String, int[]> edgeIndexes = new HashMap<>();
+        for (int i = 0; i < prices.size(); i++) {
+            int[] indexes = edgeIndexes.computeIfAbsent(prices.symbol(i), symbol -> new int[]{-1, -1});
+            long timestamp = prices.timestamp(i);
+            if (indexes[0] < 0 || timestamp < prices.timestamp(indexes[0])) {
+                indexes[0] = i;
+            }
+            if (indexes[1] < 0 || timestamp > prices.timestamp(indexes[1])) {
+                indexes[1] = i;
+            }
+        }
+        edgeIndexes.forEach((symbol, indexes) -> {
+            if (cryptoCurrencyDictionary.findId(symbol).isPresent()) {
+                edgesBySymbol.merge(symbol, new Edges(
+                        prices.timestamp(indexes[0]), PRICE_CONVERTER.convertToEntityAttribute(prices.scaledPrice(indexes[0])),
+                        prices.timestamp(indexes[1]), PRICE_CONVERTER.convertToEntityAttribute(prices.scaledPrice(indexes[1])),
+                        false), Edges::merge);
+            }
+        });
+    }
+
+    /**
+     * Drops the entry of a symbol, for a removed currency.
+     */
+    public void evict(String symbol) {
+        edgesBySymbol.remove(symbol);
+    }
+
+    /**
+     * Drops every entry, after stored prices were deleted in bulk.
+     */
+    public void clear() {
+        edgesBySymbol.clear();
+    }
+
+    private Optional<Edges> findEdges(String symbol) {
+        Edges edges = edgesBySymbol.get(symbol);
+        if (edges != null && edges.seeded()) {
+            return Optional.of(edges);
+        }
+        return cryptoCurrencyDictionary.findId(symbol)
+                .flatMap(this::loadEdges)
+                .map(loaded -> edgesBySymbol.merge(symbol, loaded, Edges::merge));
+    }
+
+    private Optional<Edges> loadEdges(Long cryptoCurrencyId) {
+        return cryptoPriceRepository.findFirstByCryptoCurrencyIdOrderByTimestampAsc(cryptoCurrencyId)
+                .flatMap(oldest -> cryptoPriceRepository.findFirstByCryptoCurrencyIdOrderByTimestampDesc(cryptoCurrencyId)
+                        .map(newest -> new Edges(
+                                TIMESTAMP_CONVERTER.convertToDatabaseColumn(oldest.getTimestamp()), oldest.getPrice(),
+                                TIMESTAMP_CONVERTER.convertToDatabaseColumn(newest.getTimestamp()), newest.getPrice(),
+                                true)));
+    }
+
+    private static CryptoPrice toCryptoPrice(String symbol, long timestamp, BigDecimal price) {
+        CryptoPrice cryptoPrice = new CryptoPrice();
+        cryptoPrice.setSymbol(symbol);
+        cryptoPrice.setPrice(price);
+        cryptoPrice.setTimestampFromEpochMilli(timestamp);
+        return cryptoPrice;
+    }
+
+    /**
+     * First and last tick of a symbol; {@code seeded} once the stored prices have been merged in.
+     */
+    private record Edges(long firstTimestamp, BigDecimal firstPrice, long lastTimestamp, BigDecimal lastPrice,
+                         boolean seeded) {
+
+        Edges merge(Edges other) {
+            boolean otherFirst = other.firstTimestamp < firstTimestamp;
+            boolean otherLast = other.lastTimestamp > lastTimestamp;
+            return new Edges(
+                    otherFirst ? other.firstTimestamp : firstTimestamp, otherFirst ? other.firstPrice : firstPrice,
+                    otherLast ? other.lastTimestamp : lastTimestamp, otherLast ? other.lastPrice : lastPrice,
+                    seeded || other.seeded);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.task.crypto.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.enums.RollupResolution;
+import org.task.crypto.model.PriceRollup;
+import org.task.crypto.model.ScaledPriceConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and maintains the minute, hour and day rollups in {@code crypto_price_rollups}.
+ * <p>
+ * Ticks are folded into their buckets in memory and each touched bucket is upserted once per batch, combining the
+ * stored and the new values, so batches may arrive in any order. Buckets are written in key order, which keeps
+ * concurrent writers of the same currency from deadlocking. Rollups and ticks are both read by currency id, the
+ * leading column of their unique keys.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PriceRollupRepository {
+    private static final String POSTGRESQL = "PostgreSQL";
+    static final String ROLLUP_COLUMNS = "crypto_currency_id, resolution, bucket_start, open_millis, open_price, "
+            + "high_price, low_price, close_millis, close_price, tick_count";
+    private static final String UPSERT_SQL = "INSERT INTO crypto_price_rollups AS r (" + ROLLUP_COLUMNS + ") "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (crypto_currency_id, resolution, bucket_start) DO UPDATE SET "
+            + mergeAssignments("EXCLUDED");
+    private static final String MERGE_SQL = "MERGE INTO crypto_price_rollups r USING (VALUES (CAST(? AS BIGINT), "
+            + "CAST(? AS VARCHAR), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+            + "CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT))) s(" + ROLLUP_COLUMNS + ") "
+            + "ON r.crypto_currency_id = s.crypto_currency_id AND r.resolution = s.resolution "
+            + "AND r.bucket_start = s.bucket_start "
+            + "WHEN MATCHED THEN UPDATE SET " + mergeAssignments("s") + " "
+            + "WHEN NOT MATCHED THEN INSERT (" + ROLLUP_COLUMNS + ") VALUES (s.crypto_currency_id, s.resolution, "
+            + "s.bucket_start, s.open_millis, s.open_price, s.high_price, s.low_price, s.close_millis, s.close_price, "
+            + "s.tick_count)";
+    private static final String SELECT_BOUNDS_SQL = "SELECT MIN(low_price), MAX(high_price) FROM crypto_price_rollups "
+            + "WHERE crypto_currency_id = ? AND resolution = ? AND bucket_start >= ? AND bucket_start < ?";
+    private static final String SELECT_TICK_BOUNDS_SQL = "SELECT MIN(scaled_price), MAX(scaled_price) "
+            + "FROM crypto_prices WHERE crypto_currency_id = ? AND epoch_millis >= ? AND epoch_millis < ?";
+    private static final String DELETE_BEFORE_SQL = "DELETE FROM crypto_price_rollups WHERE bucket_start < ?";
+    private static final ScaledPriceConverter PRICE_CONVERTER = new ScaledPriceConverter();
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    /**
+     * Adds ticks of a batch to their rollups.
+     *
+     * @param prices      The batch holding the ticks
+     * @param indexes     Positions of the ticks to add; only the first {@code count} are read
+     * @param currencyIds Currency id of each tick, aligned with {@code indexes}
+     * @param count       Number of ticks to add
+     */
+    public void addTicks(PriceTickBatch prices, int[] indexes, long[] currencyIds, int count) {
+        Map<RollupKey, PriceRollup> rollups = new HashMap<>();
+        for (int row = 0; row < count; row++) {
+            int index = indexes[row];
+            long cryptoCurrencyId = currencyIds[row];
+            long timestamp = prices.timestamp(index);
+            long scaledPrice = prices.scaledPrice(index);
+            for (RollupResolution resolution : RollupResolution.values()) {
+                RollupKey key = new RollupKey(cryptoCurrencyId, resolution, resolution.bucketStart(timestamp));
+                PriceRollup rollup = rollups.get(key);
+                if (rollup == null) {
+                    rollups.put(key, PriceRollup.of(cryptoCurrencyId, resolution, timestamp, scaledPrice));
+                } else {
+                    rollup.add(timestamp, scaledPrice);
+                }
+            }
+        }
+        if (rollups.isEmpty()) {
+            return;
+        }
+
+        List<PriceRollup> ordered = new ArrayList<>(rollups.values());
+        ordered.sort(Comparator.comparingLong(PriceRollup::getCryptoCurrencyId)
+                .thenComparing(PriceRollup::getResolution)
+                .thenComparingLong(PriceRollup::getBucketStart));
+        jdbcTemplate.batchUpdate(isPostgres() ? UPSERT_SQL : MERGE_SQL, ordered, ordered.size(),
+                (statement, rollup) -> {
+                    statement.setLong(1, rollup.getCryptoCurrencyId());
+                    statement.setString(2, rollup.getResolution().name());
+                    statement.setLong(3, rollup.getBucketStart());
+                    statement.setLong(4, rollup.getOpenMillis());
+                    statement.setLong(5, rollup.getOpenPrice());
+                    statement.setLong(6, rollup.getHighPrice());
+                    statement.setLong(7, rollup.getLowPrice());
+                    statement.setLong(8, rollup.getCloseMillis());
+                    statement.setLong(9, rollup.getClosePrice());
+                    statement.setLong(10, rollup.getTickCount());
+                });
+    }
+
+    /**
+     * @return Lowest and highest price of the buckets of {@code resolution} starting in {@code [from, to)}
+     */
+    public PriceBounds findBounds(long cryptoCurrencyId, RollupResolution resolution, long from, long to) {
+        return jdbcTemplate.query(SELECT_BOUNDS_SQL, PriceRollupRepository::toBounds,
+                cryptoCurrencyId, resolution.name(), from, to);
+    }
+
+    /**
+     * @return Lowest and highest raw tick price in {@code [from, to)}
+     */
+    public PriceBounds findTickBounds(long cryptoCurrencyId, long from, long to) {
+        return jdbcTemplate.query(SELECT_TICK_BOUNDS_SQL, PriceRollupRepository::toBounds, cryptoCurrencyId, from, to);
+    }
+
+    /**
+     * Deletes the buckets starting before {@code epochMilli}, after their prices were dropped.
+     *
+     * @return The number of deleted rows
+     */
+    public int evictBefore(long epochMilli) {
+        return jdbcTemplate.update(DELETE_BEFORE_SQL, epochMilli);
+    }
+
+    /**
+     * SET clause folding the bucket {@code source} into the stored bucket {@code r}.
+     */
+    static String mergeAssignments(String source) {
+        return "open_price = CASE WHEN " + source + ".open_millis < r.open_millis THEN " + source
+                + ".open_price ELSE r.open_price END, "
+                + "open_millis = LEAST(r.open_millis, " + source + ".open_millis), "
+                + "high_price = GREATEST(r.high_price, " + source + ".high_price), "
+                + "low_price = LEAST(r.low_price, " + source + ".low_price), "
+                + "close_price = CASE WHEN " + source + ".close_millis >= r.close_millis THEN " + source
+                + ".close_price ELSE r.close_price END, "
+                + "close_millis = GREATEST(r.close_millis, " + source + ".close_millis), "
+                + "tick_count = r.tick_count + " + source + ".tick_count";
+    }
+
+    private static PriceBounds toBounds(ResultSet resultSet) throws SQLException {
+        if (!resultSet.next()) {
+            return PriceBounds.EMPTY;
+        }
+        long min = resultSet.getLong(1);
+        if (resultSet.wasNull()) {
+            return PriceBounds.EMPTY;
+        }
+        return new PriceBounds(PRICE_CONVERTER.convertToEntityAttribute(min),
+                PRICE_CONVERTER.convertToEntityAttribute(resultSet.getLong(2)));
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    POSTGRESQL.equals(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    private record RollupKey(long cryptoCurrencyId, RollupResolution resolution, long bucketStart) {
+    }
+}
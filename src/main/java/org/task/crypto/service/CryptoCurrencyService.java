@@ -3,7 +3,9 @@ package org.task.crypto.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.task.crypto.model.CryptoCurrency;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
 import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
 
 import java.util.List;
 
@@ -12,19 +14,25 @@ import java.util.List;
 public class CryptoCurrencyService {
 
     private final CryptoCurrencyRepository cryptoCurrencyRepository;
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+    private final PriceHeadTailRegistry priceHeadTailRegistry;
 
     public CryptoCurrency addCryptoCurrency(CryptoCurrency cryptoCurrency) {
         cryptoCurrencyRepository.findBySymbol(cryptoCurrency.getSymbol())
                 .ifPresent(existing -> {
                     throw new IllegalArgumentException("Cryptocurrency with this symbol already exists.");
                 });
-        return cryptoCurrencyRepository.save(cryptoCurrency);
+        CryptoCurrency saved = cryptoCurrencyRepository.save(cryptoCurrency);
+        cryptoCurrencyDictionary.register(saved);
+        return saved;
     }
 
     public void removeCryptoCurrency(String symbol) {
         CryptoCurrency cryptoCurrency = cryptoCurrencyRepository.findBySymbol(symbol)
                 .orElseThrow(() -> new IllegalArgumentException("Cryptocurrency with this symbol does not exist."));
         cryptoCurrencyRepository.delete(cryptoCurrency);
+        cryptoCurrencyDictionary.evict(symbol);
+        priceHeadTailRegistry.evict(symbol);
     }
 
     public List<CryptoCurrency> getAllCryptoCurrencies() {
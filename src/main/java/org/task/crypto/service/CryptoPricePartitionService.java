@@ -0,0 +1,112 @@
+package org.task.crypto.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.task.crypto.repository.CryptoPricePartitionRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps the monthly partitions of {@code crypto_prices} ahead of incoming ticks and drops expired ones, enabled with
+ * {@code crypto.partitions.enabled=true}.
+ * <p>
+ * At startup and then on {@code crypto.partitions.cron}, partitions are created for the current UTC month and the
+ * following {@code crypto.partitions.months-ahead} months. With {@code crypto.partitions.retention-months} above zero,
+ * partitions of months before that many full months ago are dropped as a whole, and evicted from the in-memory price
+ * store, the daily leaderboard and the price rollups when those are enabled.
+ * Nothing happens until the table has been converted with {@code templates/queryPartitionCryptoPricesByMonth}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "crypto.partitions.enabled", havingValue = "true")
+public class CryptoPricePartitionService {
+    private final CryptoPricePartitionRepository partitionRepository;
+    private final PriceHeadTailRegistry priceHeadTailRegistry;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private InMemoryPriceStore inMemoryPriceStore;
+    private DailyRangeLeaderboardService dailyRangeLeaderboardService;
+    private PriceRollupService priceRollupService;
+
+    public CryptoPricePartitionService(CryptoPricePartitionRepository partitionRepository,
+                                       PriceHeadTailRegistry priceHeadTailRegistry,
+                                       @Value("${crypto.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${crypto.partitions.retention-months:0}") int retentionMonths) {
+        this.partitionRepository = partitionRepository;
+        this.priceHeadTailRegistry = priceHeadTailRegistry;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * Lets dropped months also be evicted from the in-memory price columns and their segment files.
+     */
+    @Autowired(required = false)
+    public void setInMemoryPriceStore(InMemoryPriceStore inMemoryPriceStore) {
+        this.inMemoryPriceStore = inMemoryPriceStore;
+    }
+
+    /**
+     * Lets the daily leaderboard rows of dropped months be deleted as well.
+     */
+    @Autowired(required = false)
+    public void setDailyRangeLeaderboardService(DailyRangeLeaderboardService dailyRangeLeaderboardService) {
+        this.dailyRangeLeaderboardService = dailyRangeLeaderboardService;
+    }
+
+    /**
+     * Lets the price rollups of dropped months be deleted as well.
+     */
+    @Autowired(required = false)
+    public void setPriceRollupService(PriceRollupService priceRollupService) {
+        this.priceRollupService = priceRollupService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${crypto.partitions.cron:0 0 1 * * *}", zone = "UTC")
+    public void maintainPartitions() {
+        maintainPartitions(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    public void maintainPartitions(YearMonth currentMonth) {
+        try {
+            if (!partitionRepository.isPartitioned()) {
+                log.warn("crypto_prices is not partitioned, skipping partition maintenance");
+                return;
+            }
+            for (int i = 0; i <= monthsAhead; i++) {
+                partitionRepository.createMonthlyPartition(currentMonth.plusMonths(i));
+            }
+            if (retentionMonths > 0) {
+                YearMonth oldestRetained = currentMonth.minusMonths(retentionMonths);
+                for (YearMonth month : partitionRepository.findMonthlyPartitions()) {
+                    if (month.isBefore(oldestRetained)) {
+                        partitionRepository.dropMonthlyPartition(month);
+                        log.info("Dropped price partition {}", CryptoPricePartitionRepository.partitionName(month));
+                        priceHeadTailRegistry.clear();
+                        if (inMemoryPriceStore != null) {
+                            inMemoryPriceStore.evictBefore(month.plusMonths(1));
+                        }
+                        if (dailyRangeLeaderboardService != null) {
+                            dailyRangeLeaderboardService.evictBefore(month.plusMonths(1));
+                        }
+                        if (priceRollupService != null) {
+                            priceRollupService.evictBefore(month.plusMonths(1));
+                        }
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            log.error("Error maintaining price partitions: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -5,118 +5,656 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.FileIngestionResult;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.enums.Compression;
+import org.task.crypto.enums.IngestionMode;
 import org.task.crypto.exception.NoContentException;
 import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.model.IngestionCheckpoint;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
 import org.task.crypto.repository.CryptoPriceRepository;
-import org.task.crypto.utils.CustomMultipartFile;
+import org.task.crypto.repository.IngestionCheckpointRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
+import org.task.crypto.utils.CompressedInput;
+import org.task.crypto.utils.PriceTickParser;
 
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CryptoPriceService {
+    private static final int DEFAULT_BATCH_SIZE = 5_000;
+    private static final int DEFAULT_MAX_CONCURRENT_WRITERS = 4;
+    private static final int MAX_HEADER_LENGTH = 1024;
+    private static final int PREFIX_BUFFER_SIZE = 64 * 1024;
+    private static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+    private static final CSVFormat CSV_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+            .setHeader()
+            .setIgnoreHeaderCase(true)
+            .setTrim(true)
+            .build();
+
     private final CryptoPriceRepository cryptoPriceRepository;
+    private final CryptoPriceBulkRepository cryptoPriceBulkRepository;
+    private final IngestionCheckpointRepository checkpointRepository;
+    private final AsyncTaskExecutor ingestionExecutor;
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+    private final CryptoCurrencyRepository cryptoCurrencyRepository;
+    private final PriceHeadTailRegistry priceHeadTailRegistry;
 
     @Value("${crypto.prices-directory}")
     private String pricesDirectory;
 
+    @Value("${crypto.ingestion.batch-size:" + DEFAULT_BATCH_SIZE + "}")
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    @Value("${crypto.ingestion.bulk-insert:true}")
+    private boolean bulkInsert = true;
+
+    private Semaphore writerPermits = new Semaphore(DEFAULT_MAX_CONCURRENT_WRITERS);
+
+    private final Map<String, Lock> fileLocks = new ConcurrentHashMap<>();
+
+    private InMemoryPriceStore inMemoryPriceStore;
+
+    private DailyRangeLeaderboardService dailyRangeLeaderboardService;
+
+    private PriceStatisticsStore priceStatisticsStore;
+
+    @Value("${crypto.ingestion.max-concurrent-writers:" + DEFAULT_MAX_CONCURRENT_WRITERS + "}")
+    void setMaxConcurrentWriters(int maxConcurrentWriters) {
+        this.writerPermits = new Semaphore(maxConcurrentWriters);
+    }
+
+    /**
+     * Feeds every persisted batch into the in-memory price store, when it is enabled.
+     */
+    @Autowired(required = false)
+    public void setInMemoryPriceStore(InMemoryPriceStore inMemoryPriceStore) {
+        this.inMemoryPriceStore = inMemoryPriceStore;
+    }
+
+    /**
+     * Feeds every persisted batch into the precomputed price statistics, when they are enabled.
+     */
+    @Autowired(required = false)
+    public void setPriceStatisticsStore(PriceStatisticsStore priceStatisticsStore) {
+        this.priceStatisticsStore = priceStatisticsStore;
+    }
+
+    /**
+     * Feeds every persisted batch into the daily normalized range leaderboard, when it is enabled.
+     */
+    @Autowired(required = false)
+    public void setDailyRangeLeaderboardService(DailyRangeLeaderboardService dailyRangeLeaderboardService) {
+        this.dailyRangeLeaderboardService = dailyRangeLeaderboardService;
+    }
+
     public List<CryptoPriceDto> loadCryptoPrices(MultipartFile file) {
         List<CryptoPriceDto> prices = new ArrayList<>();
 
-        try (InputStreamReader reader = new InputStreamReader(file.getInputStream());
-             CSVParser csvParser = new CSVParser(reader,
-                     CSVFormat.Builder.create(CSVFormat.DEFAULT)
-                             .setHeader()
-                             .setIgnoreHeaderCase(true)
-                             .setTrim(true)
-                             .build())) {
+        try (InputStream inputStream = file.getInputStream()) {
+            streamCryptoPrices(inputStream, batch -> prices.addAll(batch.toDtos()));
+        } catch (IOException e) {
+            log.error("Error reading the file: {}", file.getOriginalFilename(), e);
+        }
+        return prices;
+    }
+
+    /**
+     * Parses price records from a CSV stream and hands them to the consumer in batches of at most
+     * {@code crypto.ingestion.batch-size} records, so memory usage does not grow with the size of the input.
+     * Files with the plain {@code timestamp,symbol,price} header go through {@link PriceTickParser}; any other
+     * header is resolved by name through commons-csv. Gzip and zstd content is decompressed while it is parsed.
+     *
+     * @param inputStream   The CSV content, including the header line, optionally compressed
+     * @param batchConsumer Receives each batch of parsed prices; the batch is reused once the call returns
+     * @return The number of records parsed
+     * @throws IOException If the stream cannot be read
+     */
+    public long streamCryptoPrices(InputStream inputStream, Consumer<PriceTickBatch> batchConsumer) throws IOException {
+        return parsePrices(inputStream, batchConsumer, rejectedCount -> {
+        });
+    }
+
+    private long parsePrices(InputStream inputStream, Consumer<PriceTickBatch> batchConsumer,
+                             LongConsumer rejectedConsumer) throws IOException {
+        PriceTickBatch batch = new PriceTickBatch(batchSize);
+        BufferedInputStream bufferedStream = new BufferedInputStream(CompressedInput.open(inputStream));
+        bufferedStream.mark(MAX_HEADER_LENGTH);
+        if (PriceTickParser.isTickHeader(PriceTickParser.readLine(bufferedStream, MAX_HEADER_LENGTH))) {
+            PriceTickParser parser = new PriceTickParser();
+            long parsedCount = parser.parse(bufferedStream, batch, batchConsumer);
+            rejectedConsumer.accept(parser.getRejectedCount());
+            return parsedCount;
+        }
+        bufferedStream.reset();
+        return parseCsvRecords(bufferedStream, batch, batchConsumer, rejectedConsumer);
+    }
 
+    private long parseCsvRecords(InputStream inputStream, PriceTickBatch batch, Consumer<PriceTickBatch> batchConsumer,
+                                 LongConsumer rejectedConsumer) throws IOException {
+        long parsedCount = 0;
+        long rejectedCount = 0;
+
+        try (CSVParser csvParser = CSVParser.parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8), CSV_FORMAT)) {
             for (CSVRecord csvRecord : csvParser) {
                 try {
                     long timestamp = Long.parseLong(csvRecord.get("timestamp"));
                     String symbol = csvRecord.get("symbol");
                     BigDecimal price = new BigDecimal(csvRecord.get("price"));
 
-                    CryptoPriceDto cryptoPrice = new CryptoPriceDto(timestamp, symbol, price);
-                    prices.add(cryptoPrice);
-                } catch (NumberFormatException e) {
+                    batch.add(timestamp, symbol, price);
+                    parsedCount++;
+                } catch (NumberFormatException | ArithmeticException e) {
                     log.warn("Invalid data format in record: {}", csvRecord, e);
+                    rejectedCount++;
+                }
+
+                if (batch.isFull()) {
+                    batchConsumer.accept(batch);
+                    batch.clear();
                 }
             }
+        }
 
-        } catch (IOException e) {
-            log.error("Error reading the file: {}", file.getOriginalFilename(), e);
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+            batch.clear();
         }
-        return prices;
+        rejectedConsumer.accept(rejectedCount);
+        return parsedCount;
     }
 
-    public void loadAllCsvFiles() {
-        List<CryptoPriceDto> allPrices = new ArrayList<>();
-        try {
-            List<File> filesInFolder = Files.walk(Paths.get(pricesDirectory))
+    /**
+     * Loads every CSV file in {@code crypto.prices-directory} that changed since the last run. Files are parsed and
+     * persisted concurrently on the ingestion executor, while at most {@code crypto.ingestion.max-concurrent-writers}
+     * chunks are written at once.
+     *
+     * @return The outcome for each file, in directory walk order
+     */
+    public List<FileIngestionResult> loadAllCsvFiles() {
+        return loadAllCsvFiles(new IngestionProgress());
+    }
+
+    /**
+     * Same as {@link #loadAllCsvFiles()}, reporting the rows of all files to {@code progress} while they are processed.
+     */
+    public List<FileIngestionResult> loadAllCsvFiles(IngestionProgress progress) {
+        List<Path> filesInFolder;
+        try (Stream<Path> paths = Files.walk(Paths.get(pricesDirectory))) {
+            filesInFolder = paths
                     .filter(Files::isRegularFile)
-                    .filter(path -> path.toString().endsWith(".csv"))
-                    .map(Path::toFile)
+                    .filter(CompressedInput::isPriceFile)
                     .toList();
-            if (filesInFolder.isEmpty()) {
-                log.warn("No CSV files found in directory {}", pricesDirectory);
+        } catch (IOException e) {
+            log.error("Error walking through directory {}: {}", pricesDirectory, e.getMessage(), e);
+            return List.of();
+        }
+        if (filesInFolder.isEmpty()) {
+            log.warn("No CSV files found in directory {}", pricesDirectory);
+        }
+
+        List<CompletableFuture<FileIngestionResult>> tasks = filesInFolder.stream()
+                .map(file -> ingestionExecutor.submitCompletable(() -> loadCsvFile(file, progress, 0)))
+                .toList();
+        List<FileIngestionResult> results = tasks.stream()
+                .map(CompletableFuture::join)
+                .toList();
+
+        if (results.stream().allMatch(result -> result.mode() == IngestionMode.FULL && result.pricesParsed() == 0)) {
+            throw new NoContentException("No content available in the CSV files.");
+        }
+        return results;
+    }
+
+    /**
+     * Imports one file of {@code crypto.prices-directory}, resuming from its checkpoint like
+     * {@link #loadAllCsvFiles()} does for every file.
+     *
+     * @param file A file inside {@code crypto.prices-directory}
+     * @return The outcome of the import
+     */
+    public FileIngestionResult loadCsvFile(Path file) {
+        return loadCsvFile(file, 0);
+    }
+
+    /**
+     * Same as {@link #loadCsvFile(Path)}, for a file that may still be written to: a last line without line break is
+     * only imported once the file has not been modified for {@code settleMillis}.
+     *
+     * @param file         A file inside {@code crypto.prices-directory}
+     * @param settleMillis How long the file must be unmodified before its unterminated last line counts as complete
+     * @return The outcome of the import
+     */
+    public FileIngestionResult loadCsvFile(Path file, long settleMillis) {
+        return loadCsvFile(file, new IngestionProgress(), settleMillis);
+    }
+
+    /**
+     * Imports one price file, resuming from its checkpoint when possible. A file whose checkpointed prefix is
+     * unchanged is skipped if nothing was appended, and otherwise only its tail is parsed. Any other change to the
+     * file causes a full import. A plain file that was modified within the last {@code settleMillis} is only read up
+     * to its last line break, so a line that is still being written is imported, and checkpointed, once it is complete
+     * or the file has settled. Imports of the same file are serialized so they never read the same checkpoint.
+     */
+    private FileIngestionResult loadCsvFile(Path file, IngestionProgress jobProgress, long settleMillis) {
+        String filePath = Paths.get(pricesDirectory).relativize(file).toString();
+        Lock fileLock = fileLocks.computeIfAbsent(filePath, key -> new ReentrantLock());
+        fileLock.lock();
+        try {
+            return loadCsvFile(file, filePath, jobProgress, settleMillis);
+        } finally {
+            fileLock.unlock();
+        }
+    }
+
+    private FileIngestionResult loadCsvFile(Path file, String filePath, IngestionProgress jobProgress,
+                                            long settleMillis) {
+        String fileName = file.getFileName().toString();
+        long startNanos = System.nanoTime();
+        IngestionProgress progress = jobProgress.newFileProgress();
+        IngestionMode mode = IngestionMode.FULL;
+        String error = null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long modifiedAt = Files.getLastModifiedTime(file).toMillis();
+            IngestionCheckpoint checkpoint = checkpointRepository.findByFilePath(filePath).orElse(null);
+            if (checkpoint != null && checkpoint.getByteOffset() == channel.size()
+                    && checkpoint.getFileModifiedAt() == modifiedAt) {
+                log.info("Skipped {}, unchanged since its last import", fileName);
+                return new FileIngestionResult(fileName, IngestionMode.UNCHANGED, 0, 0, 0,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), null);
             }
-            for (File file : filesInFolder) {
-                try {
-                    String contentType = Files.probeContentType(file.toPath());
-                    byte[] fileContent = Files.readAllBytes(file.toPath());
-                    MultipartFile multipartFile = new CustomMultipartFile(
-                            file.getName(),
-                            contentType,
-                            fileContent
-                    );
-
-                    List<CryptoPriceDto> prices = loadCryptoPrices(multipartFile);
-                    allPrices.addAll(prices);
-                    saveCryptoPricesToDatabase(prices);
-                } catch (IOException e) {
-                    log.error("Error reading file {}: {}", file.getName(), e.getMessage(), e);
+            MessageDigest digest = newContentDigest();
+            Compression compression = detectCompression(channel);
+            // A recently modified plain file may end in a line that is still being written; it is left for the next run
+            boolean settled = settleMillis <= 0 || System.currentTimeMillis() - modifiedAt >= settleMillis;
+            long end = compression == Compression.NONE && !settled ? completeLinesEnd(channel) : channel.size();
+            byte[] header = null;
+
+            if (checkpoint != null) {
+                if (!readVerifiedPrefix(channel, checkpoint, digest)) {
+                    log.warn("File {} changed since its last import, importing it from the start", fileName);
+                    digest.reset();
+                } else if (checkpoint.getByteOffset() >= end) {
+                    mode = IngestionMode.UNCHANGED;
+                } else if (checkpoint.getByteOffset() > 0) {
+                    mode = IngestionMode.APPEND;
+                    header = readHeader(file);
                 }
             }
 
-            if (allPrices.isEmpty()) {
-                throw new NoContentException("No content available in the CSV files.");
+            long start = mode == IngestionMode.APPEND ? checkpoint.getByteOffset() : 0;
+            if (mode != IngestionMode.UNCHANGED) {
+                channel.position(start);
+                DigestInputStream content = new DigestInputStream(
+                        limit(Channels.newInputStream(channel), end - start), digest);
+                // SequenceInputStream closes exhausted streams, which would close the channel before it is drained
+                InputStream tail = new FilterInputStream(content) {
+                    @Override
+                    public void close() {
+                    }
+                };
+                // The tail of a grown archive starts with a new gzip member or zstd frame and is decompressed alone
+                InputStream source = mode == IngestionMode.APPEND
+                        ? new SequenceInputStream(new ByteArrayInputStream(header),
+                        compression == Compression.NONE ? tail : CompressedInput.open(tail))
+                        : content;
+                persistPrices(source, progress);
+                content.transferTo(OutputStream.nullOutputStream());
             }
-
-        } catch (IOException e) {
-            log.error("Error walking through directory {}: {}", pricesDirectory, e.getMessage(), e);
+            saveCheckpoint(checkpoint, filePath, digest, mode == IngestionMode.UNCHANGED ? checkpoint.getByteOffset() : end,
+                    modifiedAt, progress.getLatestTimestamp());
+        } catch (IOException | RuntimeException e) {
+            log.error("Error reading file {}: {}", fileName, e.getMessage(), e);
+            error = e.getMessage();
         }
+        return toResult(fileName, mode, progress, startNanos, error);
+    }
+
+    /**
+     * Parses and persists a price file that is not part of {@code crypto.prices-directory}, such as an upload.
+     * No checkpoint is kept for it.
+     *
+     * @param file     The file to import
+     * @param fileName The name to report the file under
+     * @param progress Receives the row counts while the file is processed
+     * @return The outcome of the import
+     */
+    public FileIngestionResult importCsvFile(Path file, String fileName, IngestionProgress progress) {
+        return importCsvFile(new FileSystemResource(file), fileName, progress);
     }
 
-    private void saveCryptoPricesToDatabase(List<CryptoPriceDto> prices) {
-        List<CryptoPrice> cryptoPricesToSave = prices.stream()
-                .map(this::convertToCryptoPriceEntity)
+    /**
+     * Parses and persists several uploaded price files in parallel on the ingestion executor. Each part is streamed
+     * straight into the parser; no copy of it is written.
+     *
+     * @param files    The uploaded files, plain or compressed
+     * @param progress Receives the row counts of all files while they are processed
+     * @return The outcome for each file, in upload order
+     */
+    public List<FileIngestionResult> importCsvFiles(List<MultipartFile> files, IngestionProgress progress) {
+        List<CompletableFuture<FileIngestionResult>> tasks = files.stream()
+                .map(file -> ingestionExecutor.submitCompletable(
+                        () -> importCsvFile(file, file.getOriginalFilename(), progress)))
+                .toList();
+        return tasks.stream()
+                .map(CompletableFuture::join)
                 .toList();
+    }
+
+    private FileIngestionResult importCsvFile(InputStreamSource source, String fileName, IngestionProgress progress) {
+        long startNanos = System.nanoTime();
+        IngestionProgress fileProgress = progress.newFileProgress();
+        String error = null;
+
+        try (InputStream inputStream = source.getInputStream()) {
+            persistPrices(inputStream, fileProgress);
+        } catch (IOException | RuntimeException e) {
+            log.error("Error reading file {}: {}", fileName, e.getMessage(), e);
+            error = e.getMessage();
+        }
+        return toResult(fileName, IngestionMode.FULL, fileProgress, startNanos, error);
+    }
+
+    private void persistPrices(InputStream source, IngestionProgress progress) throws IOException {
+        parsePrices(source, batch -> {
+            progress.addParsed(batch.size());
+            progress.recordTimestamp(maxTimestamp(batch));
+            progress.addPersisted(saveCryptoPricesToDatabase(batch));
+        }, progress::addRejected);
+    }
+
+    private static FileIngestionResult toResult(String fileName, IngestionMode mode, IngestionProgress progress,
+                                                long startNanos, String error) {
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        log.info("Loaded {} of {} prices from {} ({}) in {} ms, {} rejected", progress.getPersisted(),
+                progress.getParsed(), fileName, mode, durationMillis, progress.getRejected());
+        return new FileIngestionResult(fileName, mode, progress.getParsed(), progress.getRejected(),
+                progress.getPersisted(), durationMillis, error);
+    }
+
+    /**
+     * Hashes the first {@code byteOffset} bytes of the file into {@code digest} and compares them with the checkpoint.
+     *
+     * @return Whether the prefix still matches the checkpoint
+     */
+    private boolean readVerifiedPrefix(FileChannel channel, IngestionCheckpoint checkpoint, MessageDigest digest)
+            throws IOException {
+        if (checkpoint.getByteOffset() > channel.size()) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(PREFIX_BUFFER_SIZE);
+        long position = 0;
+        while (position < checkpoint.getByteOffset()) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), checkpoint.getByteOffset() - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                return false;
+            }
+            digest.update(buffer.array(), 0, read);
+            position += read;
+        }
+        return checkpoint.getContentHash().equals(hashOf(digest));
+    }
+
+    /**
+     * Reads the header line of a possibly compressed price file, so it can be replayed in front of an appended tail.
+     *
+     * @return The decompressed header line followed by a line break
+     */
+    private static byte[] readHeader(Path file) throws IOException {
+        try (InputStream inputStream = CompressedInput.open(Files.newInputStream(file))) {
+            return (PriceTickParser.readLine(inputStream, MAX_HEADER_LENGTH) + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return The position after the last line break of the file, or 0 if it has none
+     */
+    private static long completeLinesEnd(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(PREFIX_BUFFER_SIZE);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            int read;
+            do {
+                read = channel.read(buffer, start + buffer.position());
+            } while (read > 0 && buffer.hasRemaining());
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * @return A stream ending after {@code length} bytes of {@code in}
+     */
+    private static InputStream limit(InputStream in, long length) {
+        return new FilterInputStream(in) {
+            private long remaining = length;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read();
+                if (read >= 0) {
+                    remaining--;
+                }
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (remaining <= 0) {
+                    return -1;
+                }
+                int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+                if (read > 0) {
+                    remaining -= read;
+                }
+                return read;
+            }
+        };
+    }
+
+    private static Compression detectCompression(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(CompressedInput.MAGIC_LENGTH);
+        int read;
+        do {
+            read = channel.read(magic, magic.position());
+        } while (read > 0 && magic.hasRemaining());
+        return CompressedInput.detect(magic.array(), magic.position());
+    }
+
+    private void saveCheckpoint(IngestionCheckpoint checkpoint, String filePath, MessageDigest digest,
+                                long byteOffset, long modifiedAt, Long lastTimestamp) {
+        if (checkpoint == null) {
+            checkpoint = new IngestionCheckpoint();
+            checkpoint.setFilePath(filePath);
+        }
+        checkpoint.setContentHash(HexFormat.of().formatHex(digest.digest()));
+        checkpoint.setByteOffset(byteOffset);
+        checkpoint.setFileModifiedAt(modifiedAt);
+        if (lastTimestamp != null && (checkpoint.getLastTimestamp() == null
+                || lastTimestamp > checkpoint.getLastTimestamp())) {
+            checkpoint.setLastTimestamp(lastTimestamp);
+        }
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    private static long maxTimestamp(PriceTickBatch batch) {
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < batch.size(); i++) {
+            max = Math.max(max, batch.timestamp(i));
+        }
+        return max;
+    }
+
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(CONTENT_HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Returns the hex hash of the bytes digested so far, leaving the digest open for more input.
+     */
+    private static String hashOf(MessageDigest digest) {
+        try {
+            return HexFormat.of().formatHex(((MessageDigest) digest.clone()).digest());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(CONTENT_HASH_ALGORITHM + " digest cannot be cloned", e);
+        }
+    }
+
+    /**
+     * Persists a batch of prices through the bulk writer, or through JPA when {@code crypto.ingestion.bulk-insert}
+     * is off. At most {@code crypto.ingestion.max-concurrent-writers} batches are written at once.
+     *
+     * Only the prices actually written are passed on to the head/tail registry, the daily leaderboard, the in-memory
+     * store and the price statistics, so skipped duplicates and unknown symbols never reach them.
+     *
+     * @param prices The prices to persist; not retained after the call
+     * @return The number of prices written
+     */
+    public int saveCryptoPricesToDatabase(PriceTickBatch prices) {
+        PriceTickBatch written;
+        writerPermits.acquireUninterruptibly();
+        try {
+            written = bulkInsert ? cryptoPriceBulkRepository.insertAll(prices) : saveAllWithJpa(prices);
+        } finally {
+            writerPermits.release();
+        }
+        priceHeadTailRegistry.addAll(written);
+        if (dailyRangeLeaderboardService != null) {
+            dailyRangeLeaderboardService.addAll(written);
+        }
+        if (inMemoryPriceStore != null) {
+            inMemoryPriceStore.addAll(written);
+        }
+        if (priceStatisticsStore != null && !written.isEmpty()) {
+            priceStatisticsStore.addAll(written);
+        }
+        return written.size();
+    }
+
+    /**
+     * Skips prices already stored, or repeated within the batch, before saving, as the bulk path does through its
+     * conflict clause; otherwise an overlapping re-upload fails on the unique key.
+     *
+     * @return The prices saved, in batch order
+     */
+    private PriceTickBatch saveAllWithJpa(PriceTickBatch prices) {
+        Long[] cryptoCurrencyIds = new Long[prices.size()];
+        Map<Long, long[]> periods = new HashMap<>();
+        for (int i = 0; i < prices.size(); i++) {
+            Optional<Long> cryptoCurrencyId = cryptoCurrencyDictionary.findId(prices.symbol(i));
+            if (cryptoCurrencyId.isPresent()) {
+                long timestamp = prices.timestamp(i);
+                cryptoCurrencyIds[i] = cryptoCurrencyId.get();
+                periods.merge(cryptoCurrencyIds[i], new long[]{timestamp, timestamp},
+                        (period, tick) -> new long[]{Math.min(period[0], tick[0]), Math.max(period[1], tick[1])});
+            }
+        }
+        Map<Long, Set<Long>> storedTimestamps = new HashMap<>();
+        periods.forEach((cryptoCurrencyId, period) -> storedTimestamps.put(cryptoCurrencyId,
+                new HashSet<>(cryptoPriceRepository.findEpochMillis(cryptoCurrencyId, period[0], period[1]))));
+
+        List<CryptoPrice> cryptoPricesToSave = new ArrayList<>(prices.size());
+        int[] accepted = new int[prices.size()];
+        int unknown = 0;
+        for (int i = 0; i < prices.size(); i++) {
+            if (cryptoCurrencyIds[i] == null) {
+                unknown++;
+            } else if (storedTimestamps.get(cryptoCurrencyIds[i]).add(prices.timestamp(i))) {
+                accepted[cryptoPricesToSave.size()] = i;
+                cryptoPricesToSave.add(convertToCryptoPriceEntity(prices.toDto(i), cryptoCurrencyIds[i]));
+            }
+        }
+        if (unknown > 0) {
+            log.warn("Skipped {} prices with unknown cryptocurrency symbols", unknown);
+        }
+        int duplicates = prices.size() - unknown - cryptoPricesToSave.size();
+        if (duplicates > 0) {
+            log.debug("Skipped {} prices that were already stored", duplicates);
+        }
 
         cryptoPriceRepository.saveAll(cryptoPricesToSave);
+        return cryptoPricesToSave.size() == prices.size() ? prices : prices.select(accepted, cryptoPricesToSave.size());
     }
 
-    private CryptoPrice convertToCryptoPriceEntity(CryptoPriceDto dto) {
+    /**
+     * @return The entity referencing the registered currency of the price
+     */
+    private CryptoPrice convertToCryptoPriceEntity(CryptoPriceDto dto, Long cryptoCurrencyId) {
         CryptoPrice cryptoPrice = new CryptoPrice();
         cryptoPrice.setSymbol(dto.symbol());
         cryptoPrice.setPrice(dto.price());
         cryptoPrice.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(dto.timestamp()), ZoneId.systemDefault()));
+        cryptoPrice.setCryptoCurrency(cryptoCurrencyRepository.getReferenceById(cryptoCurrencyId));
         return cryptoPrice;
     }
 
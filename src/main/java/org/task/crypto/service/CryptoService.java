@@ -1,82 +1,193 @@
 package org.task.crypto.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.task.crypto.dto.CryptoRange;
+import org.task.crypto.dto.CurrencyPrice;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceStatistics;
 import org.task.crypto.exception.NoContentException;
 import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
 import org.task.crypto.repository.CryptoPriceRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
+import org.task.crypto.utils.WindowStatistics;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class CryptoService {
+    private static final int PARALLEL_RANKING_THRESHOLD = 64;
 
     private final CryptoPriceRepository cryptoPriceRepository;
 
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    private final PriceHeadTailRegistry priceHeadTailRegistry;
+
+    private PriceStatisticsStore priceStatisticsStore;
+
+    private PriceRollupService priceRollupService;
+
+    private InMemoryPriceStore inMemoryPriceStore;
+
+    private ForkJoinPool rankingPool;
+
+    private DailyRangeLeaderboardService dailyRangeLeaderboardService;
+
+    /**
+     * Lets min and max prices be answered from precomputed statistics; whenever the store cannot answer, or does not
+     * hold the oldest stored price of the symbol yet, the prices are read from the database.
+     */
+    @Autowired(required = false)
+    public void setPriceStatisticsStore(PriceStatisticsStore priceStatisticsStore) {
+        this.priceStatisticsStore = priceStatisticsStore;
+    }
+
+    /**
+     * Lets min, max and normalized range queries read the price rollups instead of scanning every tick.
+     */
+    @Autowired(required = false)
+    public void setPriceRollupService(PriceRollupService priceRollupService) {
+        this.priceRollupService = priceRollupService;
+    }
+
+    /**
+     * Lets every aggregate query run against the in-memory price columns once they are loaded; the other sources
+     * are only used before that.
+     */
+    @Autowired(required = false)
+    public void setInMemoryPriceStore(InMemoryPriceStore inMemoryPriceStore) {
+        this.inMemoryPriceStore = inMemoryPriceStore;
+    }
+
+    /**
+     * Lets rankings over at least {@value #PARALLEL_RANKING_THRESHOLD} currencies held in memory query the range of
+     * each currency in parallel on this pool.
+     */
+    @Autowired(required = false)
+    public void setRankingPool(ForkJoinPool rankingPool) {
+        this.rankingPool = rankingPool;
+    }
+
+    /**
+     * Lets the highest normalized range of a day be read from the daily leaderboard instead of the day's ticks.
+     */
+    @Autowired(required = false)
+    public void setDailyRangeLeaderboardService(DailyRangeLeaderboardService dailyRangeLeaderboardService) {
+        this.dailyRangeLeaderboardService = dailyRangeLeaderboardService;
+    }
+
     @Cacheable(value = "cryptoPrices", key = "#symbol")
     public List<CryptoPrice> getCryptoPrices(String symbol) {
-        return cryptoPriceRepository.findBySymbol(symbol);
+        return cryptoCurrencyDictionary.findId(symbol)
+                .map(cryptoPriceRepository::findByCryptoCurrencyId)
+                .orElse(List.of());
     }
 
     public CryptoPrice getOldestPrice(String symbol) {
-        return cryptoPriceRepository.findBySymbol(symbol).stream()
-                .min(Comparator.comparing(CryptoPrice::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder())))
+        if (isInMemoryPriceStoreLoaded()) {
+            return inMemoryPriceStore.getOldestPrice(symbol)
+                    .orElseThrow(() -> new NoContentException("No data found for symbol: " + symbol));
+        }
+        return priceHeadTailRegistry.findOldestPrice(symbol)
                 .orElseThrow(() -> new NoContentException("No data found for symbol: " + symbol));
     }
 
     public CryptoPrice getNewestPrice(String symbol) {
-        return cryptoPriceRepository.findBySymbol(symbol).stream()
-                .max(Comparator.comparing(CryptoPrice::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder())))
+        if (isInMemoryPriceStoreLoaded()) {
+            return inMemoryPriceStore.getNewestPrice(symbol)
+                    .orElseThrow(() -> new NoContentException("No data found for symbol: " + symbol));
+        }
+        return priceHeadTailRegistry.findNewestPrice(symbol)
                 .orElseThrow(() -> new NoContentException("No data found for symbol: " + symbol));
     }
 
     public BigDecimal getMaxPrice(String symbol, Integer months) {
-        return getPrice(symbol, months, Comparator.naturalOrder());
+        return getStatistics(symbol, months)
+                .map(PriceStatistics::maxPrice)
+                .orElseGet(() -> Optional.ofNullable(getPriceBounds(symbol, months).maxPrice()).orElse(BigDecimal.ZERO));
     }
 
     public BigDecimal getMinPrice(String symbol, Integer months) {
-        return getPrice(symbol, months, Comparator.reverseOrder());
+        return getStatistics(symbol, months)
+                .map(PriceStatistics::minPrice)
+                .orElseGet(() -> Optional.ofNullable(getPriceBounds(symbol, months).minPrice()).orElse(BigDecimal.ZERO));
     }
 
-    private BigDecimal getPrice(String symbol, Integer months, Comparator<BigDecimal> comparator) {
+    /**
+     * Statistics are kept per day, so the period starts at the beginning of the day {@code months} ago. The store only
+     * answers once its first tick of the symbol is not after the oldest stored price, so prices stored before the
+     * statistics were fed are never missed, and the period never starts before the day of the oldest stored price,
+     * so months dropped by partition retention are left out.
+     */
+    private Optional<PriceStatistics> getStatistics(String symbol, Integer months) {
+        if (priceStatisticsStore == null || isInMemoryPriceStoreLoaded()) {
+            return Optional.empty();
+        }
+        Optional<LocalDateTime> oldest = priceHeadTailRegistry.findOldestPrice(symbol).map(CryptoPrice::getTimestamp);
+        if (oldest.isEmpty() || !coversOldestPrice(symbol, oldest.get())) {
+            return Optional.empty();
+        }
+        int effectiveMonths = Optional.ofNullable(months).orElse(1);
+        LocalDate from = calculateStartDate(effectiveMonths).toLocalDate();
+        LocalDate oldestDay = oldest.get().toLocalDate();
+        return priceStatisticsStore.getStatistics(symbol, from.isBefore(oldestDay) ? oldestDay : from, LocalDate.now());
+    }
+
+    private boolean coversOldestPrice(String symbol, LocalDateTime oldest) {
+        return priceStatisticsStore.getStatistics(symbol)
+                .map(lifetime -> !LocalDateTime.ofInstant(Instant.ofEpochMilli(lifetime.firstTimestamp()),
+                        ZoneId.systemDefault()).isAfter(oldest))
+                .orElse(false);
+    }
+
+    private PriceBounds getPriceBounds(String symbol, Integer months) {
         int effectiveMonths = Optional.ofNullable(months).orElse(1);
         LocalDateTime startDate = calculateStartDate(effectiveMonths);
         LocalDateTime endDate = LocalDateTime.now();
 
-        List<CryptoPrice> prices = cryptoPriceRepository.findBySymbolAndTimestampBetween(symbol, startDate, endDate);
+        return findPriceBounds(symbol, startDate, endDate);
+    }
 
-        return prices.stream()
-                .map(CryptoPrice::getPrice)
-                .max(comparator)
-                .orElse(BigDecimal.ZERO);
+    private PriceBounds findPriceBounds(String symbol, LocalDateTime start, LocalDateTime end) {
+        if (isInMemoryPriceStoreLoaded()) {
+            return inMemoryPriceStore.getPriceBounds(symbol, start, end);
+        }
+        if (priceRollupService != null) {
+            return priceRollupService.getPriceBounds(symbol, start, end);
+        }
+        return cryptoCurrencyDictionary.findId(symbol)
+                .map(cryptoCurrencyId -> cryptoPriceRepository.findPriceBounds(cryptoCurrencyId, start, end))
+                .orElse(PriceBounds.EMPTY);
     }
 
     public BigDecimal calculateNormalizedRange(String symbol, LocalDateTime start, LocalDateTime end) {
-        List<CryptoPrice> prices = cryptoPriceRepository.findBySymbolAndTimestampBetween(symbol, start, end);
+        PriceBounds bounds = findPriceBounds(symbol, start, end);
 
-        if (prices.isEmpty()) {
+        if (bounds == null || bounds.minPrice() == null) {
             throw new NoContentException("No price data available for the specified period.");
         }
 
-        BigDecimal minPrice = prices.stream()
-                .map(CryptoPrice::getPrice)
-                .min(Comparator.naturalOrder())
-                .orElseThrow(() -> new NoContentException("No data found for symbol: " + symbol));
-
-        BigDecimal maxPrice = prices.stream()
-                .map(CryptoPrice::getPrice)
-                .max(Comparator.naturalOrder())
-                .orElseThrow(() -> new NoContentException("No data found for symbol: " + symbol));
+        BigDecimal minPrice = bounds.minPrice();
+        BigDecimal maxPrice = bounds.maxPrice();
 
         if (minPrice.compareTo(BigDecimal.ZERO) == 0) {
             throw new IllegalArgumentException("Minimum price cannot be zero for normalization calculation.");
@@ -85,50 +196,98 @@ public class CryptoService {
         return (maxPrice.subtract(minPrice)).divide(minPrice, RoundingMode.HALF_UP);
     }
 
+    @Transactional(readOnly = true)
     public List<CryptoRange> getCryptosSortedByNormalizedRange(LocalDateTime start, LocalDateTime end) {
-        List<CryptoPrice> allPrices = cryptoPriceRepository.findByTimestampBetween(start, end);
+        if (isInMemoryPriceStoreLoaded()) {
+            return getInMemoryRanges(start, end);
+        }
+        return getStoredRanges(start, end);
+    }
 
-        Map<String, List<CryptoPrice>> groupedBySymbol = allPrices.stream()
-                .collect(Collectors.groupingBy(CryptoPrice::getSymbol));
+    static BigDecimal normalizedRange(PriceBounds bounds) {
+        return bounds.maxPrice().subtract(bounds.minPrice()).divide(bounds.minPrice(), RoundingMode.HALF_UP);
+    }
 
-        return groupedBySymbol.entrySet().stream()
-                .map(entry -> calculateNormalizedRangeForSymbol(entry.getKey(), entry.getValue()))
-                .sorted(Comparator.comparing(CryptoRange::normalizedRange).reversed())
-                .toList();
+    /**
+     * Folds the ticks of the period into the statistics of each currency in one pass over a read-only projection
+     * stream, so memory stays at one accumulator per currency however wide the period is.
+     */
+    private Map<Long, WindowStatistics> streamStatistics(LocalDateTime start, LocalDateTime end) {
+        Map<Long, WindowStatistics> statisticsByCurrency = new HashMap<>();
+        try (Stream<CurrencyPrice> prices = cryptoPriceRepository.streamByTimestampBetween(start, end)) {
+            prices.forEach(price -> statisticsByCurrency
+                    .computeIfAbsent(price.cryptoCurrencyId(), cryptoCurrencyId -> new WindowStatistics())
+                    .add(price.epochMillis(), price.scaledPrice()));
+        }
+        return statisticsByCurrency;
     }
 
-    private CryptoRange calculateNormalizedRangeForSymbol(String symbol, List<CryptoPrice> prices) {
-        BigDecimal minPrice = prices.stream()
-                .map(CryptoPrice::getPrice)
-                .min(Comparator.naturalOrder())
-                .orElse(BigDecimal.ZERO);
+    private String symbolOf(Long cryptoCurrencyId) {
+        return cryptoCurrencyDictionary.findSymbol(cryptoCurrencyId)
+                .orElseThrow(() -> new IllegalStateException("Unknown cryptocurrency id: " + cryptoCurrencyId));
+    }
 
-        BigDecimal maxPrice = prices.stream()
-                .map(CryptoPrice::getPrice)
-                .max(Comparator.naturalOrder())
-                .orElse(BigDecimal.ZERO);
+    /**
+     * Ranks the currencies from the statistics folded on the request thread; each currency then only costs one
+     * division, which is not worth handing to the ranking pool.
+     */
+    private List<CryptoRange> getStoredRanges(LocalDateTime start, LocalDateTime end) {
+        return sortRanges(streamStatistics(start, end).entrySet().stream().map(entry -> Optional.of(
+                new CryptoRange(symbolOf(entry.getKey()), normalizedRange(entry.getValue().toPriceBounds())))));
+    }
 
-        BigDecimal normalizedRange = maxPrice.subtract(minPrice).divide(minPrice, RoundingMode.HALF_UP);
-        return new CryptoRange(symbol, normalizedRange);
+    /**
+     * Queries the bounds of every symbol held in memory and sorts them from the highest range down. With a ranking
+     * pool and at least {@value #PARALLEL_RANKING_THRESHOLD} symbols, the bounds queries are split across the pool
+     * and the calling thread only waits for the result.
+     */
+    private List<CryptoRange> getInMemoryRanges(LocalDateTime start, LocalDateTime end) {
+        List<String> symbols = List.copyOf(inMemoryPriceStore.getSymbols());
+        Function<String, Optional<CryptoRange>> range = symbol -> {
+            PriceBounds bounds = inMemoryPriceStore.getPriceBounds(symbol, start, end);
+            return bounds.minPrice() == null
+                    ? Optional.empty()
+                    : Optional.of(new CryptoRange(symbol, normalizedRange(bounds)));
+        };
+        if (rankingPool == null || symbols.size() < PARALLEL_RANKING_THRESHOLD) {
+            return sortRanges(symbols.stream().map(range));
+        }
+        return rankingPool.submit(() -> sortRanges(symbols.parallelStream().map(range))).join();
     }
 
+    private static List<CryptoRange> sortRanges(Stream<Optional<CryptoRange>> ranges) {
+        return ranges.flatMap(Optional::stream)
+                .sorted(Comparator.comparing(CryptoRange::normalizedRange).reversed())
+                .toList();
+    }
 
+    @Transactional(readOnly = true)
     public CryptoPrice getCryptoWithHighestNormalizedRange(LocalDateTime day) {
         LocalDateTime startOfDay = day.toLocalDate().atStartOfDay();
         LocalDateTime endOfDay = startOfDay.plusDays(1).minusNanos(1);
 
-        List<CryptoPrice> allPrices = cryptoPriceRepository.findByTimestampBetween(startOfDay, endOfDay);
-
-        Map<String, List<CryptoPrice>> groupedBySymbol = allPrices.stream()
-                .collect(Collectors.groupingBy(CryptoPrice::getSymbol));
+        if (isInMemoryPriceStoreLoaded()) {
+            return getInMemoryRanges(startOfDay, endOfDay).stream()
+                    .findFirst()
+                    .flatMap(range -> inMemoryPriceStore.getOldestPrice(range.symbol()))
+                    .orElseThrow(() -> new NoContentException("No data available for the given day"));
+        }
+        if (dailyRangeLeaderboardService != null) {
+            return dailyRangeLeaderboardService.findHighestNormalizedRange(startOfDay.toLocalDate())
+                    .flatMap(priceHeadTailRegistry::findOldestPrice)
+                    .orElseThrow(() -> new NoContentException("No data available for the given day"));
+        }
 
-        return groupedBySymbol.entrySet().stream()
-                .map(entry -> calculateNormalizedRangeForSymbol(entry.getKey(), entry.getValue()))
-                .max(Comparator.comparing(CryptoRange::normalizedRange))
-                .map(range -> cryptoPriceRepository.findBySymbol(range.symbol()).getFirst())
+        return getStoredRanges(startOfDay, endOfDay).stream()
+                .findFirst()
+                .flatMap(range -> priceHeadTailRegistry.findOldestPrice(range.symbol()))
                 .orElseThrow(() -> new NoContentException("No data available for the given day"));
     }
 
+    private boolean isInMemoryPriceStoreLoaded() {
+        return inMemoryPriceStore != null && inMemoryPriceStore.isLoaded();
+    }
+
     private LocalDateTime calculateStartDate(int months) {
         return LocalDateTime.now().minusMonths(months);
     }
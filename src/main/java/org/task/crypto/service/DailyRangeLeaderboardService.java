@@ -0,0 +1,104 @@
+package org.task.crypto.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.DailyPriceRange;
+import org.task.crypto.model.ScaledPriceConverter;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.DailyPriceRangeRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps the per-day, per-currency price ranges behind the highest normalized range query, enabled with
+ * {@code crypto.leaderboard.enabled=true}.
+ * <p>
+ * Every persisted batch is folded into one range per day and currency and merged into the stored ranges, so the
+ * current day is always up to date and finished days are never recomputed. Days are taken in the server time zone,
+ * like the query that reads them. Days before a month dropped by partition retention are deleted with
+ * {@link #evictBefore}.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "crypto.leaderboard.enabled", havingValue = "true")
+public class DailyRangeLeaderboardService {
+    private static final ScaledPriceConverter PRICE_CONVERTER = new ScaledPriceConverter();
+
+    private final DailyPriceRangeRepository dailyPriceRangeRepository;
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    /**
+     * Adds a persisted batch; ticks of unknown symbols are ignored, as they are not stored.
+     *
+     * @param prices The persisted prices; not retained after the call
+     */
+    public void addAll(PriceTickBatch prices) {
+        ZoneId zone = ZoneId.systemDefault();
+        Map<String, Optional<Long>> idsBySymbol = new HashMap<>();
+        Map<RangeKey, DailyPriceRange> ranges = new HashMap<>();
+        LocalDate day = null;
+        long dayStart = Long.MAX_VALUE;
+        long dayEnd = Long.MIN_VALUE;
+        for (int i = 0; i < prices.size(); i++) {
+            Optional<Long> cryptoCurrencyId = idsBySymbol.computeIfAbsent(prices.symbol(i), cryptoCurrencyDictionary::findId);
+            if (cryptoCurrencyId.isEmpty()) {
+                continue;
+            }
+            long timestamp = prices.timestamp(i);
+            if (timestamp < dayStart || timestamp >= dayEnd) {
+                day = LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), zone);
+                dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+                dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            }
+            long scaledPrice = prices.scaledPrice(i);
+            RangeKey key = new RangeKey(day, cryptoCurrencyId.get());
+            DailyPriceRange range = ranges.get(key);
+            if (range == null) {
+                ranges.put(key, DailyPriceRange.of(day, key.cryptoCurrencyId(), scaledPrice));
+            } else {
+                range.add(scaledPrice);
+            }
+        }
+        dailyPriceRangeRepository.addRanges(ranges.values());
+    }
+
+    /**
+     * Ranks the stored ranges of the day with the same decimal arithmetic as the other normalized range queries, so
+     * all sources agree on the leader; ties go to the lowest currency id.
+     *
+     * @return The symbol of the currency with the highest normalized range on {@code day}, or empty without prices
+     */
+    public Optional<String> findHighestNormalizedRange(LocalDate day) {
+        return dailyPriceRangeRepository.findRanges(day).stream()
+                .max(Comparator.comparing(DailyRangeLeaderboardService::normalizedRange)
+                        .thenComparing(Comparator.comparingLong(DailyPriceRange::getCryptoCurrencyId).reversed()))
+                .flatMap(range -> cryptoCurrencyDictionary.findSymbol(range.getCryptoCurrencyId()));
+    }
+
+    /**
+     * Deletes the ranges of the days before {@code month}, after partition retention dropped their prices.
+     */
+    public void evictBefore(YearMonth month) {
+        dailyPriceRangeRepository.deleteBefore(month.atDay(1));
+    }
+
+    private static BigDecimal normalizedRange(DailyPriceRange range) {
+        return CryptoService.normalizedRange(new PriceBounds(
+                PRICE_CONVERTER.convertToEntityAttribute(range.getLowPrice()),
+                PRICE_CONVERTER.convertToEntityAttribute(range.getHighPrice())));
+    }
+
+    private record RangeKey(LocalDate day, long cryptoCurrencyId) {
+    }
+}
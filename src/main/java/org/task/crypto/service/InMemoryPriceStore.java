@@ -0,0 +1,296 @@
+package org.task.crypto.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.CryptoCurrency;
+import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.model.ScaledPriceConverter;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the full price history of every registered cryptocurrency in memory as {@link PriceSeries} columns, enabled
+ * with {@code crypto.memory-store.enabled=true}.
+ * <p>
+ * The history is read from the database once the application is ready; until then {@link #isLoaded()} is
+ * {@code false} and queries go to the database. Every batch persisted afterwards is added as well, including while
+ * the load runs, since a timestamp already held is skipped. Ticks of symbols without a row in
+ * {@code crypto_currencies} are ignored, as the database rejects them too.
+ * <p>
+ * With {@code crypto.memory-store.segments-directory} set, every finished UTC month is sealed into a memory-mapped
+ * {@link PriceSegment} file per symbol ({@code <directory>/<symbol>/<yyyy-MM>.seg}) after the load, on
+ * {@code crypto.memory-store.flush-cron} and at shutdown, so that history lives in the page cache instead of the heap.
+ * After a clean shutdown a restart maps these files and only reads the ticks of the unsealed months from the database.
+ * After a crash the segments are discarded and rebuilt from the database, since ticks persisted for sealed months
+ * after the last flush would otherwise be missing.
+ * <p>
+ * Months dropped by partition retention are evicted with {@link #evictBefore}, together with their segment files.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "crypto.memory-store.enabled", havingValue = "true")
+public class InMemoryPriceStore {
+    private static final int LOAD_BATCH_SIZE = 10_000;
+    private static final ScaledPriceConverter PRICE_CONVERTER = new ScaledPriceConverter();
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CLEAN_SHUTDOWN_MARKER = "clean-shutdown";
+    private static final DateTimeFormatter SEGMENT_MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final CryptoPriceBulkRepository cryptoPriceBulkRepository;
+    private final CryptoCurrencyRepository cryptoCurrencyRepository;
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    private final Map<String, PriceSeries> seriesBySymbol = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Value("${crypto.memory-store.segments-directory:}")
+    private String segmentsDirectory;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        for (CryptoCurrency cryptoCurrency : cryptoCurrencyRepository.findAll()) {
+            seriesBySymbol.computeIfAbsent(cryptoCurrency.getSymbol(), symbol -> new PriceSeries());
+        }
+        long loadFrom = hasSegments() ? openSegments() : Long.MIN_VALUE;
+        cryptoPriceBulkRepository.forEachBatch(loadFrom, LOAD_BATCH_SIZE, this::addAll);
+        loaded = true;
+        log.info("Loaded {} prices of {} symbols into memory in {} ms",
+                seriesBySymbol.values().stream().mapToLong(PriceSeries::size).sum(), seriesBySymbol.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        flushSegments();
+    }
+
+    /**
+     * Seals the ticks of finished months held on the heap into segment files.
+     */
+    @Scheduled(cron = "${crypto.memory-store.flush-cron:0 30 0 * * *}", zone = "UTC")
+    public void flushSegments() {
+        if (!hasSegments() || !loaded) {
+            return;
+        }
+        long currentMonthStart = monthStart(YearMonth.now(ZoneOffset.UTC));
+        for (Map.Entry<String, PriceSeries> entry : seriesBySymbol.entrySet()) {
+            PriceSeries series = entry.getValue();
+            Long first = series.firstUnsealedTimestamp();
+            while (first != null && first < currentMonthStart) {
+                YearMonth month = YearMonth.from(Instant.ofEpochMilli(first).atOffset(ZoneOffset.UTC));
+                try {
+                    series.seal(monthStart(month), monthStart(month.plusMonths(1)), segmentFile(entry.getKey(), month));
+                } catch (IOException e) {
+                    log.error("Error sealing {} prices of {}: {}", entry.getKey(), month, e.getMessage(), e);
+                    break;
+                }
+                first = series.firstUnsealedTimestamp();
+            }
+        }
+    }
+
+    /**
+     * Seals the finished months once more and marks the segments as complete for the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!hasSegments() || !loaded) {
+            return;
+        }
+        flushSegments();
+        try {
+            Files.createDirectories(Paths.get(segmentsDirectory));
+            Files.writeString(Paths.get(segmentsDirectory, CLEAN_SHUTDOWN_MARKER), Instant.now().toString());
+        } catch (IOException e) {
+            log.warn("Cannot mark the price segments in {} as complete: {}", segmentsDirectory, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the ticks before {@code month} from every series and deletes their segment files, after the database
+     * dropped that history.
+     */
+    public void evictBefore(YearMonth month) {
+        long cutoff = monthStart(month);
+        for (Map.Entry<String, PriceSeries> entry : seriesBySymbol.entrySet()) {
+            for (PriceSegment segment : entry.getValue().removeBefore(cutoff)) {
+                try {
+                    Files.deleteIfExists(segment.file());
+                } catch (IOException e) {
+                    log.warn("Cannot delete the price segment {}: {}", segment.file(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Adds the ticks of a batch; ticks whose timestamp is already stored for their symbol are skipped.
+     */
+    public void addAll(PriceTickBatch prices) {
+        Map<String, PriceSeries> batchSeries = new HashMap<>();
+        for (int i = 0; i < prices.size(); i++) {
+            String symbol = prices.symbol(i);
+            PriceSeries series = batchSeries.get(symbol);
+            if (series == null && !batchSeries.containsKey(symbol)) {
+                series = seriesFor(symbol);
+                batchSeries.put(symbol, series);
+            }
+            if (series != null) {
+                series.add(prices.timestamp(i), prices.scaledPrice(i));
+            }
+        }
+    }
+
+    public Set<String> getSymbols() {
+        return seriesBySymbol.keySet();
+    }
+
+    public Optional<CryptoPrice> getOldestPrice(String symbol) {
+        return Optional.ofNullable(seriesBySymbol.get(symbol))
+                .map(PriceSeries::first)
+                .map(tick -> toCryptoPrice(symbol, tick));
+    }
+
+    public Optional<CryptoPrice> getNewestPrice(String symbol) {
+        return Optional.ofNullable(seriesBySymbol.get(symbol))
+                .map(PriceSeries::last)
+                .map(tick -> toCryptoPrice(symbol, tick));
+    }
+
+    /**
+     * @return Lowest and highest price of {@code symbol} between {@code start} and {@code end}, both inclusive
+     */
+    public PriceBounds getPriceBounds(String symbol, LocalDateTime start, LocalDateTime end) {
+        PriceSeries series = seriesBySymbol.get(symbol);
+        if (series == null) {
+            return PriceBounds.EMPTY;
+        }
+        long[] bounds = series.bounds(toEpochMilli(start), toEpochMilli(end) + 1);
+        return bounds == null ? PriceBounds.EMPTY : new PriceBounds(
+                PRICE_CONVERTER.convertToEntityAttribute(bounds[0]),
+                PRICE_CONVERTER.convertToEntityAttribute(bounds[1]));
+    }
+
+    /**
+     * Maps the segment files of the registered symbols, or deletes them all when the last shutdown did not complete.
+     *
+     * @return The timestamp from which ticks still have to be read from the database
+     */
+    private long openSegments() {
+        Path directory = Paths.get(segmentsDirectory);
+        try {
+            if (!Files.deleteIfExists(directory.resolve(CLEAN_SHUTDOWN_MARKER))) {
+                deleteSegments(directory);
+                return Long.MIN_VALUE;
+            }
+            long loadFrom = Long.MAX_VALUE;
+            for (Map.Entry<String, PriceSeries> entry : seriesBySymbol.entrySet()) {
+                long sealedUntil = Long.MIN_VALUE;
+                Path symbolDirectory = directory.resolve(entry.getKey());
+                if (Files.isDirectory(symbolDirectory)) {
+                    try (Stream<Path> files = Files.list(symbolDirectory)) {
+                        for (Path file : (Iterable<Path>) files::iterator) {
+                            String name = file.getFileName().toString();
+                            if (name.endsWith(SEGMENT_SUFFIX)) {
+                                entry.getValue().addSegment(PriceSegment.open(file));
+                                YearMonth month = YearMonth.parse(
+                                        name.substring(0, name.length() - SEGMENT_SUFFIX.length()), SEGMENT_MONTH);
+                                sealedUntil = Math.max(sealedUntil, monthStart(month.plusMonths(1)));
+                            }
+                        }
+                    }
+                }
+                loadFrom = Math.min(loadFrom, sealedUntil);
+            }
+            return loadFrom == Long.MAX_VALUE ? Long.MIN_VALUE : loadFrom;
+        } catch (IOException | DateTimeParseException e) {
+            log.warn("Cannot read the price segments in {}, rebuilding them: {}", directory, e.getMessage());
+            seriesBySymbol.replaceAll((symbol, series) -> new PriceSeries());
+            deleteSegments(directory);
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private void deleteSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                if (!file.equals(directory)) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete the price segments in " + directory, e);
+        }
+    }
+
+    private boolean hasSegments() {
+        return StringUtils.hasText(segmentsDirectory);
+    }
+
+    private Path segmentFile(String symbol, YearMonth month) {
+        return Paths.get(segmentsDirectory, symbol, month.format(SEGMENT_MONTH) + SEGMENT_SUFFIX);
+    }
+
+    private static long monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    /**
+     * @return The series of a registered symbol, or {@code null} for an unknown one
+     */
+    private PriceSeries seriesFor(String symbol) {
+        PriceSeries series = seriesBySymbol.get(symbol);
+        if (series == null && cryptoCurrencyDictionary.findId(symbol).isPresent()) {
+            series = seriesBySymbol.computeIfAbsent(symbol, key -> new PriceSeries());
+        }
+        return series;
+    }
+
+    private static CryptoPrice toCryptoPrice(String symbol, PriceSeries.Tick tick) {
+        CryptoPrice cryptoPrice = new CryptoPrice();
+        cryptoPrice.setSymbol(symbol);
+        cryptoPrice.setPrice(PRICE_CONVERTER.convertToEntityAttribute(tick.scaledPrice()));
+        cryptoPrice.setTimestampFromEpochMilli(tick.timestamp());
+        return cryptoPrice;
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,75 @@
+package org.task.crypto.service;
+
+import lombok.Getter;
+import org.task.crypto.dto.FileIngestionResult;
+import org.task.crypto.dto.IngestionJobStatus;
+import org.task.crypto.enums.IngestionJobState;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An import running in the background. State changes are made by the job's worker thread, while status snapshots
+ * may be taken from any thread.
+ */
+@Getter
+public class IngestionJob {
+    private final UUID id = UUID.randomUUID();
+    private final String source;
+    private final IngestionProgress progress = new IngestionProgress();
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private volatile IngestionJobState state = IngestionJobState.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile List<FileIngestionResult> files = List.of();
+
+    public IngestionJob(String source) {
+        this.source = source;
+    }
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        state = IngestionJobState.RUNNING;
+    }
+
+    void complete(List<FileIngestionResult> fileResults) {
+        files = List.copyOf(fileResults);
+        error = fileResults.stream()
+                .map(FileIngestionResult::error)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        finish(error == null ? IngestionJobState.COMPLETED : IngestionJobState.FAILED);
+    }
+
+    void fail(String message) {
+        error = message;
+        finish(IngestionJobState.FAILED);
+    }
+
+    public boolean isFinished() {
+        return state == IngestionJobState.COMPLETED || state == IngestionJobState.FAILED;
+    }
+
+    public IngestionJobStatus toStatus() {
+        LocalDateTime started = startedAt;
+        LocalDateTime finished = finishedAt;
+        long persisted = progress.getPersisted();
+        double rowsPerSecond = 0;
+        if (started != null) {
+            long elapsedMillis = Duration.between(started, finished != null ? finished : LocalDateTime.now()).toMillis();
+            rowsPerSecond = elapsedMillis > 0 ? persisted * 1000.0 / elapsedMillis : 0;
+        }
+        return new IngestionJobStatus(id, source, state, progress.getParsed(), progress.getRejected(), persisted,
+                rowsPerSecond, submittedAt, started, finished, error, files);
+    }
+
+    private void finish(IngestionJobState finalState) {
+        finishedAt = LocalDateTime.now();
+        state = finalState;
+    }
+}
@@ -0,0 +1,175 @@
+package org.task.crypto.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.task.crypto.dto.IngestionJobStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Runs price imports in the background so HTTP requests return as soon as the job is queued.
+ * <p>
+ * Jobs run on the bounded {@code ingestionJobExecutor}; when its queue is full new jobs are refused with
+ * 503 Service Unavailable rather than piling up. Job status is kept in memory for the last
+ * {@code crypto.ingestion.jobs.retained} jobs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestionJobService {
+    private static final int DEFAULT_RETAINED_JOBS = 100;
+    private static final String PRICES_DIRECTORY_SOURCE = "prices-directory";
+    private static final List<String> UPLOAD_CONTENT_TYPES =
+            List.of("text/csv", "application/gzip", "application/x-gzip", "application/zstd");
+
+    private final CryptoPriceService cryptoPriceService;
+    private final ThreadPoolTaskExecutor ingestionJobExecutor;
+    private final Map<UUID, IngestionJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${crypto.ingestion.jobs.retained:" + DEFAULT_RETAINED_JOBS + "}")
+    private int retainedJobs = DEFAULT_RETAINED_JOBS;
+
+    /**
+     * Queues the import of an uploaded price file. The upload is copied to a temporary file first, since the
+     * multipart content is discarded once the request completes.
+     *
+     * @param file The uploaded CSV file
+     * @return The status of the queued job
+     */
+    public IngestionJobStatus submitUpload(MultipartFile file) {
+        String fileName = file.getOriginalFilename();
+        Path spooledFile = null;
+        try {
+            spooledFile = Files.createTempFile("price-upload-", ".csv");
+            file.transferTo(spooledFile);
+        } catch (IOException e) {
+            deleteSpooledFile(spooledFile);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not store the uploaded file", e);
+        }
+
+        Path upload = spooledFile;
+        return submit(fileName, job -> job.complete(List.of(
+                        cryptoPriceService.importCsvFile(upload, fileName, job.getProgress()))),
+                () -> deleteSpooledFile(upload));
+    }
+
+    /**
+     * Imports several uploaded price files while the request is open, parsing them in parallel. The parts are read
+     * directly, so unlike {@link #submitUpload(MultipartFile)} nothing is copied; the job is listed with the others
+     * while it runs. Every part must have one of the content types accepted by the single upload, otherwise none is
+     * imported and the request fails with 400 Bad Request.
+     *
+     * @param files The uploaded CSV files
+     * @return The status of the finished job, with one result per file
+     */
+    public IngestionJobStatus importUploads(List<MultipartFile> files) {
+        for (MultipartFile file : files) {
+            if (!UPLOAD_CONTENT_TYPES.contains(file.getContentType())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Invalid file type " + file.getContentType() + " of " + file.getOriginalFilename());
+            }
+        }
+        evictFinishedJobs();
+        IngestionJob job = new IngestionJob(files.size() + " uploaded files");
+        jobs.put(job.getId(), job);
+        run(job, running -> running.complete(cryptoPriceService.importCsvFiles(files, running.getProgress())), () -> {
+        });
+        return job.toStatus();
+    }
+
+    /**
+     * Queues the import of all price files in {@code crypto.prices-directory}.
+     *
+     * @return The status of the queued job
+     */
+    public IngestionJobStatus submitLoadAll() {
+        return submit(PRICES_DIRECTORY_SOURCE,
+                job -> job.complete(cryptoPriceService.loadAllCsvFiles(job.getProgress())), () -> {
+                });
+    }
+
+    public IngestionJobStatus getStatus(UUID id) {
+        IngestionJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown ingestion job: " + id);
+        }
+        return job.toStatus();
+    }
+
+    /**
+     * @return The status of all retained jobs, most recently submitted first
+     */
+    public List<IngestionJobStatus> getStatuses() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(IngestionJob::getSubmittedAt).reversed())
+                .map(IngestionJob::toStatus)
+                .toList();
+    }
+
+    private IngestionJobStatus submit(String source, Consumer<IngestionJob> work, Runnable cleanup) {
+        evictFinishedJobs();
+        IngestionJob job = new IngestionJob(source);
+        jobs.put(job.getId(), job);
+        try {
+            ingestionJobExecutor.execute(() -> run(job, work, cleanup));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            cleanup.run();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Ingestion queue is full, retry later", e);
+        }
+        log.info("Queued ingestion job {} for {}", job.getId(), source);
+        return job.toStatus();
+    }
+
+    private void run(IngestionJob job, Consumer<IngestionJob> work, Runnable cleanup) {
+        job.start();
+        try {
+            work.accept(job);
+        } catch (RuntimeException e) {
+            log.error("Ingestion job {} failed: {}", job.getId(), e.getMessage(), e);
+            job.fail(e.getMessage());
+        } finally {
+            cleanup.run();
+        }
+        IngestionProgress progress = job.getProgress();
+        log.info("Ingestion job {} {}: {} of {} prices persisted, {} rejected", job.getId(), job.getState(),
+                progress.getPersisted(), progress.getParsed(), progress.getRejected());
+    }
+
+    private void evictFinishedJobs() {
+        int excess = jobs.size() - retainedJobs + 1;
+        if (excess > 0) {
+            jobs.values().stream()
+                    .filter(IngestionJob::isFinished)
+                    .sorted(Comparator.comparing(IngestionJob::getFinishedAt))
+                    .limit(excess)
+                    .forEach(job -> jobs.remove(job.getId()));
+        }
+    }
+
+    private static void deleteSpooledFile(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary upload {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.task.crypto.service;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Row counters of an import, safe to update from the threads that process its files concurrently.
+ * Counters created with {@link #newFileProgress()} also add to the counters of their parent, so a job sees the
+ * totals of all its files while each file keeps its own numbers.
+ */
+public class IngestionProgress {
+    private final IngestionProgress parent;
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAccumulator latestTimestamp = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    public IngestionProgress() {
+        this(null);
+    }
+
+    private IngestionProgress(IngestionProgress parent) {
+        this.parent = parent;
+    }
+
+    public IngestionProgress newFileProgress() {
+        return new IngestionProgress(this);
+    }
+
+    void addParsed(long count) {
+        parsed.add(count);
+        if (parent != null) {
+            parent.addParsed(count);
+        }
+    }
+
+    void addPersisted(long count) {
+        persisted.add(count);
+        if (parent != null) {
+            parent.addPersisted(count);
+        }
+    }
+
+    void addRejected(long count) {
+        rejected.add(count);
+        if (parent != null) {
+            parent.addRejected(count);
+        }
+    }
+
+    void recordTimestamp(long epochMilli) {
+        latestTimestamp.accumulate(epochMilli);
+        if (parent != null) {
+            parent.recordTimestamp(epochMilli);
+        }
+    }
+
+    public long getParsed() {
+        return parsed.sum();
+    }
+
+    public long getPersisted() {
+        return persisted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The latest price timestamp seen, in epoch millis, or {@code null} if no price was parsed yet
+     */
+    public Long getLatestTimestamp() {
+        long latest = latestTimestamp.get();
+        return latest == Long.MIN_VALUE ? null : latest;
+    }
+}
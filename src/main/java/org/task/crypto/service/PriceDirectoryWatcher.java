@@ -0,0 +1,231 @@
+package org.task.crypto.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.task.crypto.dto.FileIngestionResult;
+import org.task.crypto.utils.CompressedInput;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Imports price files as soon as they are created or appended to, enabled with
+ * {@code crypto.ingestion.watch.enabled=true}.
+ * <p>
+ * {@code crypto.prices-directory} and its subdirectories are watched for plain and compressed CSV files. A file is
+ * imported once no event arrived for it during {@code crypto.ingestion.watch.debounce-ms}, so a writer appending in
+ * several steps triggers a single import. Imports go through the per-file checkpoints, so only the appended bytes are read,
+ * and stop at the last line break, so a line caught half-written is imported by the event that completes it. A file
+ * is checked once more when it has not been modified for {@code crypto.ingestion.watch.settle-ms}, which imports a last
+ * line that was never terminated. Files changed while the service was down are picked up when the watcher starts.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "crypto.ingestion.watch.enabled", havingValue = "true")
+public class PriceDirectoryWatcher implements SmartLifecycle {
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 1_000;
+    private static final long DEFAULT_SETTLE_MILLIS = 10_000;
+
+    private final CryptoPriceService cryptoPriceService;
+    private final AsyncTaskExecutor ingestionExecutor;
+    private final Path directory;
+    private final long debounceNanos;
+    private final long settleMillis;
+
+    /**
+     * Files with unimported changes and the time of their latest event; only touched by the watcher thread.
+     */
+    private final Map<Path, Long> pendingFiles = new HashMap<>();
+    private final Set<Path> importingFiles = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Imported files that may end in an unterminated line, and the time at which they have settled.
+     */
+    private final Map<Path, Long> settlingFiles = new ConcurrentHashMap<>();
+    private volatile WatchService watchService;
+    private volatile Thread watcherThread;
+
+    public PriceDirectoryWatcher(CryptoPriceService cryptoPriceService,
+                                 AsyncTaskExecutor ingestionExecutor,
+                                 @Value("${crypto.prices-directory}") String pricesDirectory,
+                                 @Value("${crypto.ingestion.watch.debounce-ms:" + DEFAULT_DEBOUNCE_MILLIS + "}")
+                                 long debounceMillis,
+                                 @Value("${crypto.ingestion.watch.settle-ms:" + DEFAULT_SETTLE_MILLIS + "}")
+                                 long settleMillis) {
+        this.cryptoPriceService = cryptoPriceService;
+        this.ingestionExecutor = ingestionExecutor;
+        this.directory = Paths.get(pricesDirectory);
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.settleMillis = settleMillis;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot watch directory " + directory, e);
+        }
+        registerAll(directory);
+        watcherThread = Thread.ofPlatform().name("price-directory-watcher").daemon().start(this::watch);
+        log.info("Watching {} for price files", directory);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (watcherThread == null) {
+            return;
+        }
+        watcherThread.interrupt();
+        try {
+            watchService.close();
+            watcherThread.join(TimeUnit.NANOSECONDS.toMillis(debounceNanos) + 1_000);
+        } catch (IOException e) {
+            log.warn("Error closing the watch service of {}: {}", directory, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watcherThread = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        Thread thread = watcherThread;
+        return thread != null && thread.isAlive();
+    }
+
+    private void watch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = watchService.poll(nextPollMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            if (key != null) {
+                handleEvents(key);
+            }
+            importSettledFiles();
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path watchedDirectory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                log.warn("Missed file events in {}, rescanning it", directory);
+                registerAll(directory);
+                continue;
+            }
+            Path path = watchedDirectory.resolve((Path) event.context());
+            if (Files.isDirectory(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    registerAll(path);
+                }
+            } else if (CompressedInput.isPriceFile(path)) {
+                pendingFiles.put(path, System.nanoTime());
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Watches {@code start} and all directories below it, and marks the price files found there as changed.
+     */
+    private void registerAll(Path start) {
+        try (Stream<Path> paths = Files.walk(start)) {
+            long now = System.nanoTime();
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.isDirectory(path)) {
+                    path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                } else if (CompressedInput.isPriceFile(path)) {
+                    pendingFiles.put(path, now);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error watching directory {}: {}", start, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Hands files without events for the debounce interval to the ingestion executor. A file that is still being
+     * imported stays pending for another interval, so its new bytes are read once the running import finished.
+     */
+    private void importSettledFiles() {
+        long now = System.nanoTime();
+        settlingFiles.forEach((file, settledAt) -> {
+            if (now - settledAt >= 0 && settlingFiles.remove(file, settledAt)) {
+                pendingFiles.putIfAbsent(file, now - debounceNanos);
+            }
+        });
+        Iterator<Map.Entry<Path, Long>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> pendingFile = iterator.next();
+            if (now - pendingFile.getValue() < debounceNanos) {
+                continue;
+            }
+            Path file = pendingFile.getKey();
+            if (!Files.isRegularFile(file)) {
+                iterator.remove();
+            } else if (importingFiles.add(file)) {
+                iterator.remove();
+                ingestionExecutor.execute(() -> importFile(file));
+            } else {
+                pendingFile.setValue(now);
+            }
+        }
+    }
+
+    private void importFile(Path file) {
+        try {
+            FileIngestionResult result = cryptoPriceService.loadCsvFile(file, settleMillis);
+            if (result.error() != null) {
+                log.warn("Import of changed file {} failed: {}", file, result.error());
+            }
+            long unsettledMillis = settleMillis - (System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis());
+            if (unsettledMillis > 0) {
+                settlingFiles.put(file, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(unsettledMillis));
+            }
+        } catch (IOException e) {
+            log.warn("Cannot read the modification time of {}: {}", file, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Import of changed file {} failed: {}", file, e.getMessage(), e);
+        } finally {
+            importingFiles.remove(file);
+        }
+    }
+
+    private long nextPollMillis() {
+        long now = System.nanoTime();
+        long waitNanos = debounceNanos;
+        for (long lastEvent : pendingFiles.values()) {
+            waitNanos = Math.min(waitNanos, lastEvent + debounceNanos - now);
+        }
+        for (long settledAt : settlingFiles.values()) {
+            waitNanos = Math.min(waitNanos, settledAt - now);
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+}
@@ -0,0 +1,83 @@
+package org.task.crypto.service;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Range minimum and maximum over an immutable price column.
+ * <p>
+ * A sparse table over the extremes of blocks of {@link #BLOCK_SIZE} prices answers the whole blocks of a range with
+ * two lookups per bound, so only the partial blocks at both ends are scanned. Indexing blocks instead of single
+ * prices keeps the table at about {@code 2 * log2(n / BLOCK_SIZE)} longs per block.
+ */
+final class PriceRangeIndex {
+    static final int BLOCK_SIZE = 64;
+
+    private final IntToLongFunction prices;
+
+    /**
+     * {@code minimums[k][b]} and {@code maximums[k][b]} cover the blocks {@code b} to {@code b + 2^k - 1}.
+     */
+    private final long[][] minimums;
+    private final long[][] maximums;
+
+    PriceRangeIndex(IntToLongFunction prices, int count) {
+        this.prices = prices;
+        int blocks = count / BLOCK_SIZE;
+        int levels = blocks == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(blocks);
+        minimums = new long[levels][];
+        maximums = new long[levels][];
+        if (levels == 0) {
+            return;
+        }
+        minimums[0] = new long[blocks];
+        maximums[0] = new long[blocks];
+        for (int block = 0; block < blocks; block++) {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = block * BLOCK_SIZE, end = i + BLOCK_SIZE; i < end; i++) {
+                long price = prices.applyAsLong(i);
+                min = Math.min(min, price);
+                max = Math.max(max, price);
+            }
+            minimums[0][block] = min;
+            maximums[0][block] = max;
+        }
+        for (int level = 1; level < levels; level++) {
+            int half = 1 << (level - 1);
+            int length = blocks - (1 << level) + 1;
+            minimums[level] = new long[length];
+            maximums[level] = new long[length];
+            for (int block = 0; block < length; block++) {
+                minimums[level][block] = Math.min(minimums[level - 1][block], minimums[level - 1][block + half]);
+                maximums[level][block] = Math.max(maximums[level - 1][block], maximums[level - 1][block + half]);
+            }
+        }
+    }
+
+    /**
+     * Lowers {@code bounds[0]} to the lowest and raises {@code bounds[1]} to the highest price at the positions
+     * {@code [start, end)}.
+     */
+    void accumulate(int start, int end, long[] bounds) {
+        int firstBlock = (start + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int endBlock = end / BLOCK_SIZE;
+        if (firstBlock >= endBlock) {
+            scan(start, end, bounds);
+            return;
+        }
+        scan(start, firstBlock * BLOCK_SIZE, bounds);
+        scan(endBlock * BLOCK_SIZE, end, bounds);
+        int level = 31 - Integer.numberOfLeadingZeros(endBlock - firstBlock);
+        int lastStart = endBlock - (1 << level);
+        bounds[0] = Math.min(bounds[0], Math.min(minimums[level][firstBlock], minimums[level][lastStart]));
+        bounds[1] = Math.max(bounds[1], Math.max(maximums[level][firstBlock], maximums[level][lastStart]));
+    }
+
+    private void scan(int start, int end, long[] bounds) {
+        for (int i = start; i < end; i++) {
+            long price = prices.applyAsLong(i);
+            bounds[0] = Math.min(bounds[0], price);
+            bounds[1] = Math.max(bounds[1], price);
+        }
+    }
+}
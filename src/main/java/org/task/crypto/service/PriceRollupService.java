@@ -0,0 +1,84 @@
+package org.task.crypto.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.enums.RollupResolution;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.PriceRollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Answers price range queries from the rollups, enabled with {@code crypto.rollups.enabled=true}.
+ * <p>
+ * A period is covered by the whole days inside it, the whole hours and minutes left at both ends, and the raw ticks
+ * of the partial minutes at its edges. A year therefore reads about 365 day rows, fewer than 50 hour rows, fewer
+ * than 120 minute rows and two minutes of ticks, however many ticks it holds.
+ * <p>
+ * Rollups are only maintained by the bulk write path, so startup fails when {@code crypto.ingestion.bulk-insert} is
+ * off rather than answering from rollups that miss every new tick.
+ */
+@Service
+@ConditionalOnProperty(name = "crypto.rollups.enabled", havingValue = "true")
+public class PriceRollupService {
+    private static final RollupResolution[] RESOLUTIONS = RollupResolution.values();
+
+    private final PriceRollupRepository priceRollupRepository;
+    private final CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    public PriceRollupService(PriceRollupRepository priceRollupRepository,
+                              CryptoCurrencyDictionary cryptoCurrencyDictionary,
+                              @Value("${crypto.ingestion.bulk-insert:true}") boolean bulkInsert) {
+        if (!bulkInsert) {
+            throw new IllegalStateException(
+                    "crypto.rollups.enabled requires crypto.ingestion.bulk-insert, which maintains the rollups");
+        }
+        this.priceRollupRepository = priceRollupRepository;
+        this.cryptoCurrencyDictionary = cryptoCurrencyDictionary;
+    }
+
+    /**
+     * @return Lowest and highest price of {@code symbol} between {@code start} and {@code end}, both inclusive
+     */
+    public PriceBounds getPriceBounds(String symbol, LocalDateTime start, LocalDateTime end) {
+        long from = start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long to = end.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1;
+        return cryptoCurrencyDictionary.findId(symbol)
+                .map(cryptoCurrencyId -> getPriceBounds(cryptoCurrencyId, from, to, RESOLUTIONS.length - 1))
+                .orElse(PriceBounds.EMPTY);
+    }
+
+    /**
+     * Deletes the rollups of the UTC months before {@code month}, after partition retention dropped their prices.
+     */
+    public void evictBefore(YearMonth month) {
+        priceRollupRepository.evictBefore(month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Reads the whole buckets of {@code RESOLUTIONS[level]} in {@code [from, to)} and hands the remainders at both
+     * ends to the next finer resolution, down to the raw ticks.
+     */
+    private PriceBounds getPriceBounds(long cryptoCurrencyId, long from, long to, int level) {
+        if (from >= to) {
+            return PriceBounds.EMPTY;
+        }
+        if (level < 0) {
+            return priceRollupRepository.findTickBounds(cryptoCurrencyId, from, to);
+        }
+        RollupResolution resolution = RESOLUTIONS[level];
+        long firstBucket = resolution.bucketStart(from + resolution.millis() - 1);
+        long endOfBuckets = resolution.bucketStart(to);
+        if (firstBucket >= endOfBuckets) {
+            return getPriceBounds(cryptoCurrencyId, from, to, level - 1);
+        }
+        return getPriceBounds(cryptoCurrencyId, from, firstBucket, level - 1)
+                .merge(priceRollupRepository.findBounds(cryptoCurrencyId, resolution, firstBucket, endOfBuckets))
+                .merge(getPriceBounds(cryptoCurrencyId, endOfBuckets, to, level - 1));
+    }
+}
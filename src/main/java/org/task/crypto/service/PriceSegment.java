@@ -0,0 +1,159 @@
+package org.task.crypto.service;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An immutable file of ticks sorted by timestamp, read through a read-only {@link MappedByteBuffer}, so the ticks
+ * stay in the page cache instead of the heap and are available as soon as the file is mapped.
+ * <p>
+ * The little-endian layout is a 32 byte header (magic, version, tick count, lowest and highest price) followed by
+ * the timestamp column and then the price column, both as 8 byte longs. Files are written to a temporary name and
+ * moved into place, so a reader never sees a partial segment. The {@link PriceRangeIndex} over the prices is built on
+ * the first range query rather than when the file is mapped, so opening a segment stays cheap.
+ */
+public final class PriceSegment {
+    private static final int MAGIC = 0x31535043; // "CPS1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final Path file;
+    private final int count;
+    private final long minPrice;
+    private final long maxPrice;
+    private final LongBuffer timestamps;
+    private final LongBuffer prices;
+    private volatile PriceRangeIndex rangeIndex;
+
+    private PriceSegment(Path file, MappedByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a price segment: " + file);
+        }
+        long tickCount = buffer.getLong(8);
+        if (tickCount <= 0 || HEADER_BYTES + 16 * tickCount != buffer.capacity()) {
+            throw new IOException("Truncated price segment: " + file);
+        }
+        this.file = file;
+        this.count = (int) tickCount;
+        this.minPrice = buffer.getLong(16);
+        this.maxPrice = buffer.getLong(24);
+        this.timestamps = buffer.slice(HEADER_BYTES, 8 * count).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        this.prices = buffer.slice(HEADER_BYTES + 8 * count, 8 * count).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    public static PriceSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new PriceSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the first {@code count} ticks of the given columns, which must be sorted by timestamp, and maps the
+     * new file.
+     */
+    public static PriceSegment write(Path file, long[] timestamps, long[] prices, int count) throws IOException {
+        if (count <= 0) {
+            throw new IllegalArgumentException("A price segment needs at least one tick");
+        }
+        long minPrice = Long.MAX_VALUE;
+        long maxPrice = Long.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            minPrice = Math.min(minPrice, prices[i]);
+            maxPrice = Math.max(maxPrice, prices[i]);
+        }
+
+        Files.createDirectories(file.getParent());
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + 16L * count);
+            buffer.order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC).putInt(VERSION).putLong(count).putLong(minPrice).putLong(maxPrice);
+            LongBuffer columns = buffer.slice(HEADER_BYTES, 16 * count).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            columns.put(timestamps, 0, count).put(prices, 0, count);
+            buffer.force();
+        }
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(file);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public long minPrice() {
+        return minPrice;
+    }
+
+    public long maxPrice() {
+        return maxPrice;
+    }
+
+    public long timestamp(int index) {
+        return timestamps.get(index);
+    }
+
+    public long price(int index) {
+        return prices.get(index);
+    }
+
+    public long firstTimestamp() {
+        return timestamps.get(0);
+    }
+
+    public long lastTimestamp() {
+        return timestamps.get(count - 1);
+    }
+
+    /**
+     * @return Position of the first tick at or after {@code timestamp}
+     */
+    public int lowerBound(long timestamp) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps.get(middle) < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Lowers {@code bounds[0]} to the lowest and raises {@code bounds[1]} to the highest price at the positions
+     * {@code [start, end)}.
+     */
+    public void accumulateBounds(int start, int end, long[] bounds) {
+        PriceRangeIndex index = rangeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = rangeIndex;
+                if (index == null) {
+                    index = new PriceRangeIndex(prices::get, count);
+                    rangeIndex = index;
+                }
+            }
+        }
+        index.accumulate(start, end, bounds);
+    }
+
+    public boolean contains(long timestamp) {
+        int position = lowerBound(timestamp);
+        return position < count && timestamps.get(position) == timestamp;
+    }
+}
@@ -0,0 +1,544 @@
+package org.task.crypto.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Price history of one symbol as sorted columns of epoch millis and scaled prices, split into chunks of
+ * {@link #CHUNK_CAPACITY} ticks.
+ * <p>
+ * A tick newer than all others is appended to the last chunk; an older one is inserted into the chunk covering its
+ * timestamp, which is split in half when full. Range bounds come from two incrementally maintained levels: each chunk
+ * keeps the lowest and highest price of every block of {@link PriceRangeIndex#BLOCK_SIZE} ticks, and a segment tree
+ * over the chunks holds their bounds. A range query therefore scans at most two partial blocks per end chunk and
+ * combines whole blocks and whole chunks in logarithmic time. Queries share a read lock and run concurrently; writers
+ * take the write lock.
+ * <p>
+ * Finished periods can be {@link #seal sealed} into memory-mapped {@link PriceSegment}s, which moves their ticks off
+ * the heap. A tick that arrives later for a sealed period is kept in the chunks until the period is sealed again;
+ * bounds do not depend on order, so queries simply combine both.
+ */
+public class PriceSeries {
+    static final int CHUNK_CAPACITY = 4096;
+
+    /**
+     * Chunks in timestamp order; the timestamps of consecutive chunks do not overlap.
+     */
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    /**
+     * Sealed segments in timestamp order; they do not overlap each other but may overlap the chunks.
+     */
+    private final List<PriceSegment> segments = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    /**
+     * Segment tree over the price bounds of the chunks: leaf {@code treeLeaves + i} holds chunk {@code i} and every
+     * inner node the bounds of its two children.
+     */
+    private int treeLeaves;
+    private long[] treeMinimums = new long[0];
+    private long[] treeMaximums = new long[0];
+
+    /**
+     * @return {@code false} when a tick with this timestamp is already stored
+     */
+    public boolean add(long timestamp, long scaledPrice) {
+        lock.writeLock().lock();
+        try {
+            if (segmentContains(timestamp)) {
+                return false;
+            }
+            if (chunks.isEmpty() || timestamp > chunks.getLast().lastTimestamp()) {
+                if (chunks.isEmpty() || chunks.getLast().isFull()) {
+                    chunks.add(new Chunk());
+                }
+                chunks.getLast().insert(chunks.getLast().size, timestamp, scaledPrice);
+                updateChunkTree(chunks.size() - 1);
+            } else {
+                int chunkIndex = chunkIndexFor(timestamp);
+                Chunk chunk = chunks.get(chunkIndex);
+                int position = Arrays.binarySearch(chunk.timestamps, 0, chunk.size, timestamp);
+                if (position >= 0) {
+                    return false;
+                }
+                position = -position - 1;
+                boolean split = chunk.isFull();
+                if (split) {
+                    Chunk upper = chunk.splitUpperHalf();
+                    chunks.add(chunkIndex + 1, upper);
+                    if (position > chunk.size) {
+                        chunk = upper;
+                        chunkIndex++;
+                        position -= CHUNK_CAPACITY - upper.size;
+                    }
+                }
+                chunk.insert(position, timestamp, scaledPrice);
+                if (split) {
+                    rebuildChunkTree();
+                } else {
+                    updateChunkTree(chunkIndex);
+                }
+            }
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a segment read at startup; its timestamps must not overlap those of the segments already added.
+     */
+    public void addSegment(PriceSegment segment) {
+        lock.writeLock().lock();
+        try {
+            addSegmentInOrder(segment);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            int total = size;
+            for (PriceSegment segment : segments) {
+                total += segment.count();
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The timestamp of the oldest tick held on the heap, or {@code null} when all ticks are sealed
+     */
+    public Long firstUnsealedTimestamp() {
+        lock.readLock().lock();
+        try {
+            return chunks.isEmpty() ? null : chunks.getFirst().timestamps[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes all ticks in {@code [from, to)} into one segment file, merging the segment already covering that
+     * period, and drops them from the heap.
+     *
+     * @return The new segment, or {@code null} when the heap holds no ticks of that period
+     */
+    public PriceSegment seal(long from, long to, Path file) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int heapCount = 0;
+            for (Chunk chunk : chunks) {
+                heapCount += chunk.lowerBound(to) - chunk.lowerBound(from);
+            }
+            if (heapCount == 0) {
+                return null;
+            }
+            List<PriceSegment> replaced = new ArrayList<>();
+            int count = heapCount;
+            for (PriceSegment segment : segments) {
+                if (segment.firstTimestamp() < to && segment.lastTimestamp() >= from) {
+                    replaced.add(segment);
+                    count += segment.count();
+                }
+            }
+
+            long[] timestamps = new long[count];
+            long[] prices = new long[count];
+            int heapEnd = copyHeapTicks(from, to, timestamps, prices);
+            int end = heapEnd;
+            for (PriceSegment segment : replaced) {
+                for (int i = 0; i < segment.count(); i++) {
+                    timestamps[end] = segment.timestamp(i);
+                    prices[end] = segment.price(i);
+                    end++;
+                }
+                mergeSorted(timestamps, prices, end - segment.count(), end);
+            }
+
+            PriceSegment sealed = PriceSegment.write(file, timestamps, prices, count);
+            segments.removeAll(replaced);
+            addSegmentInOrder(sealed);
+            removeHeapTicks(from, to);
+            size -= heapCount;
+            return sealed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops every tick before {@code timestamp}, for history that was deleted from the database. Segments are
+     * dropped as a whole once all their ticks are older; one that straddles {@code timestamp} is kept.
+     *
+     * @return The dropped segments, whose files the caller may delete
+     */
+    public List<PriceSegment> removeBefore(long timestamp) {
+        lock.writeLock().lock();
+        try {
+            int heapCount = 0;
+            for (Chunk chunk : chunks) {
+                heapCount += chunk.lowerBound(timestamp);
+            }
+            if (heapCount > 0) {
+                removeHeapTicks(Long.MIN_VALUE, timestamp);
+                size -= heapCount;
+            }
+            List<PriceSegment> removed = new ArrayList<>();
+            for (PriceSegment segment : segments) {
+                if (segment.lastTimestamp() < timestamp) {
+                    removed.add(segment);
+                }
+            }
+            segments.removeAll(removed);
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The oldest tick, or {@code null} when the series is empty
+     */
+    public Tick first() {
+        lock.readLock().lock();
+        try {
+            Tick first = chunks.isEmpty() ? null : chunks.getFirst().tick(0);
+            if (!segments.isEmpty() && (first == null || segments.getFirst().firstTimestamp() < first.timestamp())) {
+                first = new Tick(segments.getFirst().firstTimestamp(), segments.getFirst().price(0));
+            }
+            return first;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The newest tick, or {@code null} when the series is empty
+     */
+    public Tick last() {
+        lock.readLock().lock();
+        try {
+            Tick last = chunks.isEmpty() ? null : chunks.getLast().tick(chunks.getLast().size - 1);
+            if (!segments.isEmpty() && (last == null || segments.getLast().lastTimestamp() > last.timestamp())) {
+                PriceSegment segment = segments.getLast();
+                last = new Tick(segment.lastTimestamp(), segment.price(segment.count() - 1));
+            }
+            return last;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Lowest and highest scaled price of the ticks in {@code [from, to)}, or {@code null} when there are none
+     */
+    public long[] bounds(long from, long to) {
+        if (from >= to) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            long[] bounds = {Long.MAX_VALUE, Long.MIN_VALUE};
+            for (PriceSegment segment : segments) {
+                if (segment.lastTimestamp() < from || segment.firstTimestamp() >= to) {
+                    continue;
+                }
+                if (segment.firstTimestamp() >= from && segment.lastTimestamp() < to) {
+                    bounds[0] = Math.min(bounds[0], segment.minPrice());
+                    bounds[1] = Math.max(bounds[1], segment.maxPrice());
+                } else {
+                    segment.accumulateBounds(segment.lowerBound(from), segment.lowerBound(to), bounds);
+                }
+            }
+            if (!chunks.isEmpty()) {
+                int first = chunkIndexFor(from);
+                int last = chunkIndexFor(to - 1);
+                Chunk firstChunk = chunks.get(first);
+                firstChunk.accumulate(firstChunk.lowerBound(from), firstChunk.lowerBound(to), bounds);
+                if (last > first) {
+                    Chunk lastChunk = chunks.get(last);
+                    lastChunk.accumulate(0, lastChunk.lowerBound(to), bounds);
+                    accumulateChunks(first + 1, last, bounds);
+                }
+            }
+            return bounds[0] <= bounds[1] ? bounds : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean segmentContains(long timestamp) {
+        for (PriceSegment segment : segments) {
+            if (timestamp >= segment.firstTimestamp() && timestamp <= segment.lastTimestamp()) {
+                return segment.contains(timestamp);
+            }
+        }
+        return false;
+    }
+
+    private void addSegmentInOrder(PriceSegment segment) {
+        int position = 0;
+        while (position < segments.size() && segments.get(position).firstTimestamp() < segment.firstTimestamp()) {
+            position++;
+        }
+        segments.add(position, segment);
+    }
+
+    /**
+     * Copies the heap ticks in {@code [from, to)}, which are already in order, to the start of the given columns.
+     *
+     * @return The number of ticks copied
+     */
+    private int copyHeapTicks(long from, long to, long[] timestamps, long[] prices) {
+        int copied = 0;
+        for (Chunk chunk : chunks) {
+            int start = chunk.lowerBound(from);
+            int length = chunk.lowerBound(to) - start;
+            System.arraycopy(chunk.timestamps, start, timestamps, copied, length);
+            System.arraycopy(chunk.prices, start, prices, copied, length);
+            copied += length;
+        }
+        return copied;
+    }
+
+    /**
+     * Merges the sorted runs {@code [0, middle)} and {@code [middle, end)} of the given columns in place.
+     */
+    private static void mergeSorted(long[] timestamps, long[] prices, int middle, int end) {
+        if (middle == 0 || timestamps[middle - 1] < timestamps[middle]) {
+            return;
+        }
+        long[] leftTimestamps = Arrays.copyOf(timestamps, middle);
+        long[] leftPrices = Arrays.copyOf(prices, middle);
+        int left = 0;
+        int right = middle;
+        for (int out = 0; out < end; out++) {
+            if (right == end || (left < middle && leftTimestamps[left] <= timestamps[right])) {
+                timestamps[out] = leftTimestamps[left];
+                prices[out] = leftPrices[left++];
+            } else {
+                timestamps[out] = timestamps[right];
+                prices[out] = prices[right++];
+            }
+        }
+    }
+
+    private void removeHeapTicks(long from, long to) {
+        chunks.removeIf(chunk -> {
+            chunk.remove(chunk.lowerBound(from), chunk.lowerBound(to));
+            return chunk.size == 0;
+        });
+        rebuildChunkTree();
+    }
+
+    private void rebuildChunkTree() {
+        treeLeaves = Integer.highestOneBit(Math.max(1, chunks.size() * 2 - 1));
+        treeMinimums = new long[2 * treeLeaves];
+        treeMaximums = new long[2 * treeLeaves];
+        Arrays.fill(treeMinimums, Long.MAX_VALUE);
+        Arrays.fill(treeMaximums, Long.MIN_VALUE);
+        for (int i = 0; i < chunks.size(); i++) {
+            treeMinimums[treeLeaves + i] = chunks.get(i).minPrice;
+            treeMaximums[treeLeaves + i] = chunks.get(i).maxPrice;
+        }
+        for (int node = treeLeaves - 1; node > 0; node--) {
+            treeMinimums[node] = Math.min(treeMinimums[2 * node], treeMinimums[2 * node + 1]);
+            treeMaximums[node] = Math.max(treeMaximums[2 * node], treeMaximums[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Refreshes the bounds of chunk {@code index} and its ancestors, growing the tree when the chunk is new.
+     */
+    private void updateChunkTree(int index) {
+        if (index >= treeLeaves) {
+            rebuildChunkTree();
+            return;
+        }
+        int node = treeLeaves + index;
+        treeMinimums[node] = chunks.get(index).minPrice;
+        treeMaximums[node] = chunks.get(index).maxPrice;
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            treeMinimums[node] = Math.min(treeMinimums[2 * node], treeMinimums[2 * node + 1]);
+            treeMaximums[node] = Math.max(treeMaximums[2 * node], treeMaximums[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Widens {@code bounds} by the bounds of the chunks {@code [start, end)}.
+     */
+    private void accumulateChunks(int start, int end, long[] bounds) {
+        for (int left = treeLeaves + start, right = treeLeaves + end; left < right; left >>>= 1, right >>>= 1) {
+            if ((left & 1) == 1) {
+                bounds[0] = Math.min(bounds[0], treeMinimums[left]);
+                bounds[1] = Math.max(bounds[1], treeMaximums[left++]);
+            }
+            if ((right & 1) == 1) {
+                bounds[0] = Math.min(bounds[0], treeMinimums[--right]);
+                bounds[1] = Math.max(bounds[1], treeMaximums[right]);
+            }
+        }
+    }
+
+    /**
+     * @return Index of the last chunk starting at or before {@code timestamp}, or 0 when all start after it
+     */
+    private int chunkIndexFor(long timestamp) {
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunks.get(middle).timestamps[0] <= timestamp) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    public record Tick(long timestamp, long scaledPrice) {
+    }
+
+    private static final class Chunk {
+        private static final int BLOCK_SIZE = PriceRangeIndex.BLOCK_SIZE;
+
+        private final long[] timestamps = new long[CHUNK_CAPACITY];
+        private final long[] prices = new long[CHUNK_CAPACITY];
+        private final long[] blockMinimums = new long[CHUNK_CAPACITY / BLOCK_SIZE];
+        private final long[] blockMaximums = new long[CHUNK_CAPACITY / BLOCK_SIZE];
+        private int size;
+        private long minPrice = Long.MAX_VALUE;
+        private long maxPrice = Long.MIN_VALUE;
+
+        boolean isFull() {
+            return size == CHUNK_CAPACITY;
+        }
+
+        long lastTimestamp() {
+            return timestamps[size - 1];
+        }
+
+        Tick tick(int index) {
+            return new Tick(timestamps[index], prices[index]);
+        }
+
+        void insert(int position, long timestamp, long price) {
+            System.arraycopy(timestamps, position, timestamps, position + 1, size - position);
+            System.arraycopy(prices, position, prices, position + 1, size - position);
+            timestamps[position] = timestamp;
+            prices[position] = price;
+            size++;
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+            int block = position / BLOCK_SIZE;
+            if (position < size - 1) {
+                recomputeBlocks(block);
+            } else if (position % BLOCK_SIZE == 0) {
+                blockMinimums[block] = price;
+                blockMaximums[block] = price;
+            } else {
+                blockMinimums[block] = Math.min(blockMinimums[block], price);
+                blockMaximums[block] = Math.max(blockMaximums[block], price);
+            }
+        }
+
+        /**
+         * Widens {@code bounds} by the prices at the positions {@code [start, end)}, reading whole blocks from their
+         * bounds.
+         */
+        void accumulate(int start, int end, long[] bounds) {
+            int firstBlock = (start + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int endBlock = end / BLOCK_SIZE;
+            if (firstBlock >= endBlock) {
+                scan(start, end, bounds);
+                return;
+            }
+            scan(start, firstBlock * BLOCK_SIZE, bounds);
+            scan(endBlock * BLOCK_SIZE, end, bounds);
+            for (int block = firstBlock; block < endBlock; block++) {
+                bounds[0] = Math.min(bounds[0], blockMinimums[block]);
+                bounds[1] = Math.max(bounds[1], blockMaximums[block]);
+            }
+        }
+
+        /**
+         * Moves the upper half of this full chunk into a new chunk and recomputes the price bounds of both.
+         */
+        Chunk splitUpperHalf() {
+            Chunk upper = new Chunk();
+            int keep = CHUNK_CAPACITY / 2;
+            upper.size = CHUNK_CAPACITY - keep;
+            System.arraycopy(timestamps, keep, upper.timestamps, 0, upper.size);
+            System.arraycopy(prices, keep, upper.prices, 0, upper.size);
+            size = keep;
+            recomputeBounds();
+            upper.recomputeBounds();
+            return upper;
+        }
+
+        void remove(int start, int end) {
+            if (start == end) {
+                return;
+            }
+            System.arraycopy(timestamps, end, timestamps, start, size - end);
+            System.arraycopy(prices, end, prices, start, size - end);
+            size -= end - start;
+            recomputeBounds();
+        }
+
+        /**
+         * @return Position of the first tick at or after {@code timestamp}
+         */
+        int lowerBound(long timestamp) {
+            int position = Arrays.binarySearch(timestamps, 0, size, timestamp);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        private void scan(int start, int end, long[] bounds) {
+            for (int i = start; i < end; i++) {
+                bounds[0] = Math.min(bounds[0], prices[i]);
+                bounds[1] = Math.max(bounds[1], prices[i]);
+            }
+        }
+
+        private void recomputeBounds() {
+            recomputeBlocks(0);
+            minPrice = Long.MAX_VALUE;
+            maxPrice = Long.MIN_VALUE;
+            for (int block = 0; block * BLOCK_SIZE < size; block++) {
+                minPrice = Math.min(minPrice, blockMinimums[block]);
+                maxPrice = Math.max(maxPrice, blockMaximums[block]);
+            }
+        }
+
+        /**
+         * Recomputes the bounds of the blocks from {@code firstBlock} on, after their prices moved.
+         */
+        private void recomputeBlocks(int firstBlock) {
+            for (int block = firstBlock; block * BLOCK_SIZE < size; block++) {
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int i = block * BLOCK_SIZE, end = Math.min(size, i + BLOCK_SIZE); i < end; i++) {
+                    min = Math.min(min, prices[i]);
+                    max = Math.max(max, prices[i]);
+                }
+                blockMinimums[block] = min;
+                blockMaximums[block] = max;
+            }
+        }
+    }
+}
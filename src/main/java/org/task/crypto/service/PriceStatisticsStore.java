@@ -0,0 +1,32 @@
+package org.task.crypto.service;
+
+import org.task.crypto.dto.PriceStatistics;
+import org.task.crypto.dto.PriceTickBatch;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Precomputed per-symbol price statistics, fed with every batch written to the database. An empty result means the
+ * store cannot answer, for example because it is still restoring or holds no ticks for the symbol; callers then fall
+ * back to the database.
+ */
+public interface PriceStatisticsStore {
+
+    /**
+     * Folds prices just written to the database into the statistics; may complete asynchronously.
+     *
+     * @param prices The stored prices; not retained after the call
+     */
+    void addAll(PriceTickBatch prices);
+
+    /**
+     * @return The statistics over all ticks of the symbol
+     */
+    Optional<PriceStatistics> getStatistics(String symbol);
+
+    /**
+     * @return The statistics over the ticks of the symbol between two days, both inclusive
+     */
+    Optional<PriceStatistics> getStatistics(String symbol, LocalDate from, LocalDate to);
+}
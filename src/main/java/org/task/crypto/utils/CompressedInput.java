@@ -0,0 +1,63 @@
+package org.task.crypto.utils;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.task.crypto.enums.Compression;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Transparent decompression of gzip and zstd price files. The format is taken from the magic bytes rather than the
+ * file name, so uploads are handled whatever they are called. Concatenated gzip members and zstd frames are read as
+ * one stream, which lets an archive grow by appending compressed chunks.
+ */
+public final class CompressedInput {
+    public static final int MAGIC_LENGTH = 4;
+    private static final List<String> PRICE_FILE_EXTENSIONS = List.of(".csv", ".csv.gz", ".csv.zst");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CompressedInput() {
+    }
+
+    /**
+     * Checks whether a file name has one of the extensions of plain or compressed price files.
+     */
+    public static boolean isPriceFile(Path path) {
+        String fileName = path.getFileName().toString();
+        return PRICE_FILE_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+    }
+
+    /**
+     * @param magic  The leading bytes of the content
+     * @param length The number of valid bytes in {@code magic}
+     */
+    public static Compression detect(byte[] magic, int length) {
+        if (length >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+            return Compression.GZIP;
+        }
+        if (length >= 4 && (magic[0] & 0xFF) == 0x28 && (magic[1] & 0xFF) == 0xB5
+                && (magic[2] & 0xFF) == 0x2F && (magic[3] & 0xFF) == 0xFD) {
+            return Compression.ZSTD;
+        }
+        return Compression.NONE;
+    }
+
+    /**
+     * Wraps a stream so that compressed content is decompressed while it is read; plain content is passed through.
+     */
+    public static InputStream open(InputStream inputStream) throws IOException {
+        BufferedInputStream bufferedStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        bufferedStream.mark(MAGIC_LENGTH);
+        byte[] magic = bufferedStream.readNBytes(MAGIC_LENGTH);
+        bufferedStream.reset();
+        return switch (detect(magic, magic.length)) {
+            case GZIP -> new GZIPInputStream(bufferedStream, BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStream(bufferedStream);
+            case NONE -> bufferedStream;
+        };
+    }
+}
@@ -0,0 +1,325 @@
+package org.task.crypto.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.task.crypto.dto.PriceTickBatch;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Byte-level parser for price files in the fixed {@code timestamp,symbol,price} layout.
+ * <p>
+ * Rows are decoded straight from a {@link ByteBuffer} into the primitive columns of a {@link PriceTickBatch}:
+ * epoch millis as a {@code long}, the price as a long scaled by {@link PriceTickBatch#PRICE_SCALE} and the symbol as
+ * a shared String instance, so the common path allocates nothing per row. Rows that do not fit the plain layout
+ * (quoted fields, exponents, more than {@code PRICE_SCALE} decimals) are decoded through a slower generic path.
+ * Instances keep per-file state and are not thread-safe.
+ */
+@Slf4j
+public class PriceTickParser {
+    public static final String HEADER = "timestamp,symbol,price";
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TIMESTAMP_DIGITS = 18;
+    private static final int MAX_INTEGER_DIGITS = 10;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+    };
+    private static final CSVFormat ROW_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT).setTrim(true).build();
+
+    private final ByteBuffer buffer;
+    private final SymbolTable symbols = new SymbolTable();
+    private long rejectedCount;
+
+    public PriceTickParser() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public PriceTickParser(int bufferSize) {
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Checks whether a header line describes the layout this parser understands.
+     * Case, surrounding whitespace and a UTF-8 byte order mark are ignored.
+     */
+    public static boolean isTickHeader(String headerLine) {
+        if (headerLine == null) {
+            return false;
+        }
+        String normalized = headerLine.startsWith("\uFEFF") ? headerLine.substring(1) : headerLine;
+        return HEADER.equalsIgnoreCase(normalized.replace(" ", "").replace("\t", "").strip());
+    }
+
+    /**
+     * Reads the first line of a stream, without its line terminator.
+     *
+     * @param maxLength Upper bound on the bytes read, so binary input cannot exhaust memory
+     */
+    public static String readLine(InputStream inputStream, int maxLength) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int next;
+        while (line.size() < maxLength && (next = inputStream.read()) >= 0 && next != '\n') {
+            line.write(next);
+        }
+        return line.toString(StandardCharsets.UTF_8).stripTrailing();
+    }
+
+    /**
+     * Parses all data rows of a stream whose header line has already been consumed.
+     *
+     * @param batch Receives the parsed ticks; handed to {@code sink} and cleared whenever it is full
+     * @return The number of rows parsed
+     */
+    public long parse(InputStream inputStream, PriceTickBatch batch, Consumer<PriceTickBatch> sink) throws IOException {
+        buffer.clear();
+        long parsed = 0;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            int read = inputStream.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                buffer.position(buffer.position() + read);
+            }
+            buffer.flip();
+            parsed += parseLines(buffer, endOfInput, batch, sink);
+            buffer.compact();
+            if (!endOfInput && !buffer.hasRemaining()) {
+                throw new IOException("Line exceeds " + buffer.capacity() + " bytes");
+            }
+        }
+        if (!batch.isEmpty()) {
+            sink.accept(batch);
+            batch.clear();
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses the complete lines between the buffer's position and limit and advances the position past them.
+     * A trailing line without terminator is left in the buffer unless {@code endOfInput} is set.
+     *
+     * @param input A heap buffer positioned at the start of a line
+     * @return The number of rows parsed
+     */
+    public long parseLines(ByteBuffer input, boolean endOfInput, PriceTickBatch batch, Consumer<PriceTickBatch> sink) {
+        if (!input.hasArray()) {
+            throw new IllegalArgumentException("Only heap buffers are supported");
+        }
+        byte[] bytes = input.array();
+        int offset = input.arrayOffset();
+        int position = input.position();
+        int limit = input.limit();
+        long parsed = 0;
+
+        while (position < limit) {
+            int lineEnd = indexOf(bytes, (byte) '\n', offset + position, offset + limit) - offset;
+            if (lineEnd < 0) {
+                if (!endOfInput) {
+                    break;
+                }
+                lineEnd = limit;
+            }
+            if (parseLine(bytes, offset + position, offset + lineEnd, batch)) {
+                parsed++;
+                if (batch.isFull()) {
+                    sink.accept(batch);
+                    batch.clear();
+                }
+            }
+            position = Math.min(lineEnd + 1, limit);
+        }
+        input.position(position);
+        return parsed;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    private boolean parseLine(byte[] bytes, int start, int end, PriceTickBatch batch) {
+        end = trimEnd(bytes, start, end);
+        int index = skipWhitespace(bytes, start, end);
+        if (index == end) {
+            return false;
+        }
+        if (indexOf(bytes, (byte) '"', index, end) >= 0) {
+            return parseGeneric(bytes, start, end, batch);
+        }
+
+        long timestamp = 0;
+        int timestampDigits = 0;
+        while (index < end && isDigit(bytes[index])) {
+            timestamp = timestamp * 10 + (bytes[index++] - '0');
+            timestampDigits++;
+        }
+        index = skipWhitespace(bytes, index, end);
+        if (timestampDigits == 0 || timestampDigits > MAX_TIMESTAMP_DIGITS || index == end || bytes[index] != ',') {
+            return reject(bytes, start, end);
+        }
+
+        int symbolStart = skipWhitespace(bytes, index + 1, end);
+        int symbolComma = indexOf(bytes, (byte) ',', symbolStart, end);
+        if (symbolComma < 0) {
+            return reject(bytes, start, end);
+        }
+        int symbolEnd = trimEnd(bytes, symbolStart, symbolComma);
+        if (symbolEnd == symbolStart) {
+            return reject(bytes, start, end);
+        }
+
+        index = skipWhitespace(bytes, symbolComma + 1, end);
+        boolean negative = index < end && bytes[index] == '-';
+        if (index < end && (bytes[index] == '-' || bytes[index] == '+')) {
+            index++;
+        }
+        long unscaled = 0;
+        int integerDigits = 0;
+        while (index < end && isDigit(bytes[index])) {
+            unscaled = unscaled * 10 + (bytes[index++] - '0');
+            integerDigits++;
+        }
+        int scale = 0;
+        if (index < end && bytes[index] == '.') {
+            index++;
+            while (index < end && isDigit(bytes[index])) {
+                if (scale == PriceTickBatch.PRICE_SCALE) {
+                    return parseGeneric(bytes, start, end, batch);
+                }
+                unscaled = unscaled * 10 + (bytes[index++] - '0');
+                scale++;
+            }
+        }
+        index = skipWhitespace(bytes, index, end);
+        if (index < end && (bytes[index] == 'e' || bytes[index] == 'E') || integerDigits > MAX_INTEGER_DIGITS) {
+            return parseGeneric(bytes, start, end, batch);
+        }
+        if (integerDigits + scale == 0 || index < end && bytes[index] != ',') {
+            return reject(bytes, start, end);
+        }
+
+        long scaledPrice = unscaled * POWERS_OF_TEN[PriceTickBatch.PRICE_SCALE - scale];
+        batch.add(timestamp, symbols.intern(bytes, symbolStart, symbolEnd), negative ? -scaledPrice : scaledPrice, scale);
+        return true;
+    }
+
+    private boolean parseGeneric(byte[] bytes, int start, int end, PriceTickBatch batch) {
+        String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        try (CSVParser rowParser = CSVParser.parse(line, ROW_FORMAT)) {
+            List<CSVRecord> records = rowParser.getRecords();
+            if (records.size() != 1 || records.getFirst().size() < 3) {
+                return reject(line);
+            }
+            CSVRecord csvRecord = records.getFirst();
+            batch.add(Long.parseLong(csvRecord.get(0)), csvRecord.get(1), new BigDecimal(csvRecord.get(2)));
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return reject(line);
+        }
+    }
+
+    private boolean reject(byte[] bytes, int start, int end) {
+        return reject(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    private boolean reject(String line) {
+        rejectedCount++;
+        log.warn("Invalid data format in record: {}", line);
+        return false;
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] bytes, int from, int to) {
+        while (from < to && bytes[from] <= ' ' && bytes[from] >= 0) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(byte[] bytes, int from, int to) {
+        while (to > from && bytes[to - 1] <= ' ' && bytes[to - 1] >= 0) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+
+    /**
+     * Maps symbol bytes to a single shared String per distinct symbol, without decoding known symbols again.
+     */
+    private static final class SymbolTable {
+        private static final int MAX_ENTRIES = 4096;
+
+        private byte[][] keys = new byte[16][];
+        private String[] values = new String[16];
+        private int size;
+
+        String intern(byte[] bytes, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            int mask = keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (keys[slot] != null) {
+                if (Arrays.equals(keys[slot], 0, keys[slot].length, bytes, from, to)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            String symbol = new String(bytes, from, to - from, StandardCharsets.UTF_8);
+            if (size < MAX_ENTRIES) {
+                keys[slot] = Arrays.copyOfRange(bytes, from, to);
+                values[slot] = symbol;
+                if (++size * 2 > keys.length) {
+                    resize();
+                }
+            }
+            return symbol;
+        }
+
+        private void resize() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int hash = 1;
+                    for (byte value : oldKeys[i]) {
+                        hash = 31 * hash + value;
+                    }
+                    int slot = (hash ^ (hash >>> 16)) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
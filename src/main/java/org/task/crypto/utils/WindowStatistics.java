@@ -0,0 +1,104 @@
+package org.task.crypto.utils;
+
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.ScaledPriceConverter;
+
+/**
+ * Single-pass statistics of the ticks in a window: count, lowest and highest price, first and last tick by timestamp.
+ * <p>
+ * Prices are the scaled longs of {@link PriceTickBatch}, so accumulating only compares primitives; decimal values are
+ * only created for the results. Instances are not thread-safe; accumulate per thread and {@link #merge}.
+ * <p>
+ * Only the rankings that stream every tick of a window use it. Single-symbol queries read precomputed bounds instead:
+ * the block and chunk bounds of {@code PriceSeries}, the rollups, or a {@code MIN}/{@code MAX} over the unique key.
+ */
+public final class WindowStatistics {
+    private static final ScaledPriceConverter PRICE_CONVERTER = new ScaledPriceConverter();
+
+    private long count;
+    private long minPrice = Long.MAX_VALUE;
+    private long maxPrice = Long.MIN_VALUE;
+    private long firstTimestamp = Long.MAX_VALUE;
+    private long firstPrice;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private long lastPrice;
+
+    public void add(long timestamp, long scaledPrice) {
+        count++;
+        minPrice = Math.min(minPrice, scaledPrice);
+        maxPrice = Math.max(maxPrice, scaledPrice);
+        if (timestamp < firstTimestamp) {
+            firstTimestamp = timestamp;
+            firstPrice = scaledPrice;
+        }
+        if (timestamp >= lastTimestamp) {
+            lastTimestamp = timestamp;
+            lastPrice = scaledPrice;
+        }
+    }
+
+    /**
+     * Adds the ticks accumulated by {@code other}.
+     *
+     * @return This instance
+     */
+    public WindowStatistics merge(WindowStatistics other) {
+        if (other.count == 0) {
+            return this;
+        }
+        count += other.count;
+        minPrice = Math.min(minPrice, other.minPrice);
+        maxPrice = Math.max(maxPrice, other.maxPrice);
+        if (other.firstTimestamp < firstTimestamp) {
+            firstTimestamp = other.firstTimestamp;
+            firstPrice = other.firstPrice;
+        }
+        if (other.lastTimestamp >= lastTimestamp) {
+            lastTimestamp = other.lastTimestamp;
+            lastPrice = other.lastPrice;
+        }
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long minPrice() {
+        return minPrice;
+    }
+
+    public long maxPrice() {
+        return maxPrice;
+    }
+
+    public long firstTimestamp() {
+        return firstTimestamp;
+    }
+
+    public long firstPrice() {
+        return firstPrice;
+    }
+
+    public long lastTimestamp() {
+        return lastTimestamp;
+    }
+
+    public long lastPrice() {
+        return lastPrice;
+    }
+
+    /**
+     * @return Lowest and highest price as decimals, or {@link PriceBounds#EMPTY} for an empty window
+     */
+    public PriceBounds toPriceBounds() {
+        return count == 0 ? PriceBounds.EMPTY : new PriceBounds(
+                PRICE_CONVERTER.convertToEntityAttribute(minPrice),
+                PRICE_CONVERTER.convertToEntityAttribute(maxPrice));
+    }
+}
@@ -0,0 +1,112 @@
+package org.task.crypto.benchmark;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.utils.PriceTickParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Single-threaded throughput comparison of {@link PriceTickParser} against the commons-csv based parsing it replaces;
+ * fails unless the tick parser is at least {@value #MIN_SPEEDUP} times as fast. Run with {@code ./gradlew benchmark};
+ * it is excluded from the regular test task.
+ */
+@Tag("benchmark")
+class PriceTickParserBenchmark {
+    private static final int ROWS = 1_000_000;
+    private static final int BATCH_SIZE = 5_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final double MIN_SPEEDUP = 2.0;
+    private static final String[] SYMBOLS = {"BTC", "ETH", "DOGE", "LTC", "XRP"};
+    private static final CSVFormat CSV_FORMAT = CSVFormat.Builder.create(CSVFormat.DEFAULT)
+            .setHeader()
+            .setIgnoreHeaderCase(true)
+            .setTrim(true)
+            .build();
+
+    private static byte[] content;
+
+    @BeforeAll
+    static void generateContent() {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder(ROWS * 32).append(PriceTickParser.HEADER).append('\n');
+        long timestamp = 1641009600000L;
+        for (int i = 0; i < ROWS; i++) {
+            timestamp += random.nextInt(60_000);
+            csv.append(timestamp).append(',')
+                    .append(SYMBOLS[random.nextInt(SYMBOLS.length)]).append(',')
+                    .append(random.nextInt(50_000)).append('.').append(random.nextInt(100)).append('\n');
+        }
+        content = csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void compareRowsPerSecond() throws IOException {
+        double commonsCsvRate = measure("commons-csv", PriceTickParserBenchmark::parseWithCommonsCsv);
+        double tickParserRate = measure("tick parser", PriceTickParserBenchmark::parseWithTickParser);
+
+        double speedup = tickParserRate / commonsCsvRate;
+        System.out.printf("Speedup: %.1fx%n", speedup);
+        assertTrue(speedup >= MIN_SPEEDUP,
+                () -> String.format("Expected at least %.1fx over commons-csv, got %.1fx", MIN_SPEEDUP, speedup));
+    }
+
+    private static double measure(String name, RowParser parser) throws IOException {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            assertEquals(ROWS, parser.parse(new ByteArrayInputStream(content)));
+        }
+        long startNanos = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            parser.parse(new ByteArrayInputStream(content));
+        }
+        double rowsPerSecond = (double) ROWS * MEASURED_ROUNDS * 1e9 / (System.nanoTime() - startNanos);
+        System.out.printf("%-12s %,14.0f rows/sec%n", name, rowsPerSecond);
+        return rowsPerSecond;
+    }
+
+    private static long parseWithTickParser(InputStream inputStream) throws IOException {
+        PriceTickParser.readLine(inputStream, 1024);
+        return new PriceTickParser().parse(inputStream, new PriceTickBatch(BATCH_SIZE), batch -> {
+        });
+    }
+
+    private static long parseWithCommonsCsv(InputStream inputStream) throws IOException {
+        long parsed = 0;
+        List<CryptoPriceDto> chunk = new ArrayList<>(BATCH_SIZE);
+        try (CSVParser csvParser = CSVParser.parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8),
+                CSV_FORMAT)) {
+            for (CSVRecord csvRecord : csvParser) {
+                chunk.add(new CryptoPriceDto(Long.parseLong(csvRecord.get("timestamp")), csvRecord.get("symbol"),
+                        new BigDecimal(csvRecord.get("price"))));
+                parsed++;
+                if (chunk.size() >= BATCH_SIZE) {
+                    chunk = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+        return parsed;
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        long parse(InputStream inputStream) throws IOException;
+    }
+}
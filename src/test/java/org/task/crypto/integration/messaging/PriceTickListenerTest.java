@@ -0,0 +1,109 @@
+package org.task.crypto.integration.messaging;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.task.crypto.config.KafkaIngestionConfig;
+import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.messaging.PriceTickListener;
+import org.task.crypto.service.CryptoPriceService;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@Tag("integration")
+@SpringBootTest(
+        classes = {KafkaAutoConfiguration.class, KafkaIngestionConfig.class, PriceTickListener.class},
+        properties = {
+                "crypto.kafka.enabled=true",
+                "crypto.kafka.ticks-topic=" + PriceTickListenerTest.TOPIC,
+                "crypto.kafka.group-id=" + PriceTickListenerTest.GROUP_ID,
+                "crypto.kafka.max-batch-wait-ms=50",
+                "crypto.kafka.retry-interval-ms=100",
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.auto-offset-reset=earliest",
+                "spring.kafka.producer.value-serializer=org.apache.kafka.common.serialization.ByteArraySerializer"
+        })
+@EmbeddedKafka(partitions = 1, topics = PriceTickListenerTest.TOPIC)
+@DirtiesContext
+class PriceTickListenerTest {
+    static final String TOPIC = "crypto-price-ticks-test";
+    static final String GROUP_ID = "crypto-price-ingestion-test";
+
+    @Autowired
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @MockitoBean
+    private CryptoPriceService cryptoPriceService;
+
+    @Test
+    void testOnTicks_shouldPersistTicksAndCommitAfterRetriedWrite() throws Exception {
+        List<CryptoPriceDto> persisted = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+        when(cryptoPriceService.saveCryptoPricesToDatabase(any(PriceTickBatch.class))).thenAnswer(invocation -> {
+            if (attempts.getAndIncrement() == 0) {
+                throw new IllegalStateException("database unavailable");
+            }
+            PriceTickBatch batch = invocation.getArgument(0);
+            persisted.addAll(batch.toDtos());
+            return batch.size();
+        });
+
+        send("1641009600000,BTC,46813.21");
+        send("1641009600001,ETH,3715.32\n1641009600002,BTC,46820.00\n");
+        send("not-a-tick");
+        kafkaTemplate.flush();
+
+        awaitCommittedOffset(3);
+        assertThat(attempts.get()).isGreaterThan(1);
+        assertThat(persisted).contains(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641009600001L, "ETH", new BigDecimal("3715.32")),
+                new CryptoPriceDto(1641009600002L, "BTC", new BigDecimal("46820.00")));
+    }
+
+    private void send(String value) throws Exception {
+        kafkaTemplate.send(new ProducerRecord<>(TOPIC, value.getBytes(StandardCharsets.UTF_8))).get(10, TimeUnit.SECONDS);
+    }
+
+    private void awaitCommittedOffset(long expectedOffset) throws Exception {
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        try (AdminClient adminClient = AdminClient.create(Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString()))) {
+            long committed = -1;
+            while (committed < expectedOffset && System.nanoTime() < deadline) {
+                OffsetAndMetadata offset = adminClient.listConsumerGroupOffsets(GROUP_ID)
+                        .partitionsToOffsetAndMetadata().get(10, TimeUnit.SECONDS).get(partition);
+                committed = offset == null ? -1 : offset.offset();
+                Thread.sleep(100);
+            }
+            assertThat(committed).isEqualTo(expectedOffset);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.task.crypto.integration.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.CryptoCurrency;
+import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
+import org.task.crypto.repository.CryptoPriceRepository;
+import org.task.crypto.repository.PriceRollupRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+@DataJpaTest
+@Import({CryptoPriceBulkRepository.class, PriceRollupRepository.class, CryptoCurrencyDictionary.class})
+class CryptoPriceBulkRepositoryTest {
+
+    @Autowired
+    private CryptoPriceBulkRepository cryptoPriceBulkRepository;
+
+    @Autowired
+    private CryptoPriceRepository cryptoPriceRepository;
+
+    @Autowired
+    private CryptoCurrencyRepository cryptoCurrencyRepository;
+
+    @Autowired
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CryptoCurrency bitcoin;
+
+    @BeforeEach
+    void setUp() {
+        bitcoin = new CryptoCurrency();
+        bitcoin.setSymbol("BTC");
+        bitcoin.setName("Bitcoin");
+        cryptoCurrencyRepository.saveAndFlush(bitcoin);
+        cryptoCurrencyDictionary.register(bitcoin);
+    }
+
+    @Test
+    void testInsertAll_shouldWriteAllRows() {
+        List<CryptoPriceDto> prices = List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")));
+
+        PriceTickBatch written = cryptoPriceBulkRepository.insertAll(PriceTickBatch.of(prices));
+
+        List<CryptoPrice> stored = cryptoPriceRepository.findByCryptoCurrencyId(bitcoin.getId());
+        assertThat(written.size()).isEqualTo(2);
+        assertThat(stored).hasSize(2);
+        assertThat(stored).extracting(CryptoPrice::getTimestamp).containsExactlyInAnyOrder(
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(1641009600000L), ZoneId.systemDefault()),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(1641020400000L), ZoneId.systemDefault()));
+        assertThat(stored).extracting(CryptoPrice::getCryptoCurrencyId).containsOnly(bitcoin.getId());
+        assertThat(stored).extracting(CryptoPrice::getPrice).containsExactlyInAnyOrder(
+                new BigDecimal("46813.21"), new BigDecimal("46979.61"));
+    }
+
+    @Test
+    void testInsertAll_withUnknownSymbol_shouldSkipRow() {
+        List<CryptoPriceDto> prices = List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641009600000L, "XYZ", new BigDecimal("1.00")));
+
+        PriceTickBatch written = cryptoPriceBulkRepository.insertAll(PriceTickBatch.of(prices));
+
+        assertThat(written.toDtos()).containsExactly(prices.get(0));
+        assertThat(cryptoPriceRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testInsertAll_withStoredAndRepeatedPrices_shouldSkipDuplicates() {
+        cryptoPriceBulkRepository.insertAll(PriceTickBatch.of(List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")))));
+
+        PriceTickBatch written = cryptoPriceBulkRepository.insertAll(PriceTickBatch.of(List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")))));
+
+        assertThat(written.toDtos()).containsExactly(
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")));
+        assertThat(cryptoPriceRepository.findByCryptoCurrencyId(bitcoin.getId())).hasSize(2);
+    }
+
+    @Test
+    void testInsertAll_withRollups_shouldCountOnlyInsertedPrices() {
+        ReflectionTestUtils.setField(cryptoPriceBulkRepository, "maintainRollups", true);
+        cryptoPriceBulkRepository.insertAll(PriceTickBatch.of(List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")))));
+
+        cryptoPriceBulkRepository.insertAll(PriceTickBatch.of(List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")))));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT tick_count FROM crypto_price_rollups "
+                + "WHERE crypto_currency_id = ? AND resolution = 'DAY'", Long.class, bitcoin.getId())).isEqualTo(2L);
+        assertThat(jdbcTemplate.queryForObject("SELECT high_price FROM crypto_price_rollups "
+                + "WHERE crypto_currency_id = ? AND resolution = 'DAY'", Long.class, bitcoin.getId()))
+                .isEqualTo(4_697_961_000_000L);
+    }
+
+    @Test
+    void testForEachBatch_shouldStreamPricesOrderedBySymbolAndTimestamp() {
+        cryptoPriceBulkRepository.insertAll(PriceTickBatch.of(List.of(
+                new CryptoPriceDto(1641009599999L, "BTC", new BigDecimal("46000")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")),
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641031200000L, "BTC", new BigDecimal("47000")))));
+        List<Long> timestamps = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+
+        cryptoPriceBulkRepository.forEachBatch(1641009600000L, 2, batch -> {
+            batchSizes.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                timestamps.add(batch.timestamp(i));
+            }
+        });
+
+        assertThat(batchSizes).containsExactly(2, 1);
+        assertThat(timestamps).containsExactly(1641009600000L, 1641020400000L, 1641031200000L);
+    }
+}
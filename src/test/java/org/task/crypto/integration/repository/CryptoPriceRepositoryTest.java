@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.task.crypto.dto.CurrencyPrice;
+import org.task.crypto.dto.PriceBounds;
 import org.task.crypto.model.CryptoCurrency;
 import org.task.crypto.model.CryptoPrice;
 import org.task.crypto.repository.CryptoCurrencyRepository;
@@ -12,13 +14,17 @@ import org.task.crypto.repository.CryptoPriceRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 @Tag("integration")
 @DataJpaTest
 public class CryptoPriceRepositoryTest {
+    private static final long PRICE1_MILLIS = epochMilli(LocalDateTime.of(2024, 1, 1, 0, 59, 59));
+    private static final long PRICE2_MILLIS = epochMilli(LocalDateTime.of(2024, 1, 2, 1, 0, 0));
 
     @Autowired
     private CryptoPriceRepository cryptoPriceRepository;
@@ -29,7 +35,6 @@ public class CryptoPriceRepositoryTest {
     private CryptoCurrency bitcoin;
     private CryptoPrice bitcoinPrice1;
     private CryptoPrice bitcoinPrice2;
-    private CryptoPrice bitcoinPrice3;
 
     @BeforeEach
     public void setUp() {
@@ -41,14 +46,14 @@ public class CryptoPriceRepositoryTest {
         bitcoinPrice1 = new CryptoPrice();
         bitcoinPrice1.setSymbol("BTC");
         bitcoinPrice1.setPrice(BigDecimal.valueOf(50000.0));
-        bitcoinPrice1.setTimestampFromEpochMilli(1704067199000L);
+        bitcoinPrice1.setTimestampFromEpochMilli(PRICE1_MILLIS);
         bitcoinPrice1.setCryptoCurrency(bitcoin);
 
 
         bitcoinPrice2 = new CryptoPrice();
         bitcoinPrice2.setSymbol("BTC");
         bitcoinPrice2.setPrice(BigDecimal.valueOf(52000.0));
-        bitcoinPrice2.setTimestampFromEpochMilli(1704153600000L);
+        bitcoinPrice2.setTimestampFromEpochMilli(PRICE2_MILLIS);
         bitcoinPrice2.setCryptoCurrency(bitcoin);
 
         cryptoPriceRepository.save(bitcoinPrice1);
@@ -57,37 +62,68 @@ public class CryptoPriceRepositoryTest {
     }
 
     @Test
-    public void testFindBySymbol() {
-        List<CryptoPrice> prices = cryptoPriceRepository.findBySymbol("BTC");
+    public void testFindByCryptoCurrencyId() {
+        List<CryptoPrice> prices = cryptoPriceRepository.findByCryptoCurrencyId(bitcoin.getId());
         assertThat(prices).hasSize(2);
         assertThat(prices).extracting(CryptoPrice::getSymbol).containsOnly("BTC");
     }
 
     @Test
-    public void testFindBySymbolAndTimestampBetween() {
+    public void testFindByCryptoCurrencyIdAndTimestampBetween() {
         LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
         LocalDateTime end = LocalDateTime.of(2024, 1, 1, 23, 59, 59);
 
-        List<CryptoPrice> prices = cryptoPriceRepository.findBySymbolAndTimestampBetween("BTC", start, end);
+        List<CryptoPrice> prices = cryptoPriceRepository.findByCryptoCurrencyIdAndTimestampBetween(bitcoin.getId(), start, end);
         assertThat(prices).hasSize(1);
         assertThat(prices.getFirst().getSymbol()).isEqualTo("BTC");
         assertThat(prices.getFirst().getTimestamp()).isEqualTo(bitcoinPrice1.getTimestamp());
     }
 
     @Test
-    public void testFindByTimestampBetween() {
+    public void testFindFirstByCryptoCurrencyIdOrderByTimestamp() {
+        assertThat(cryptoPriceRepository.findFirstByCryptoCurrencyIdOrderByTimestampAsc(bitcoin.getId()))
+                .get().extracting(CryptoPrice::getTimestamp).isEqualTo(bitcoinPrice1.getTimestamp());
+        assertThat(cryptoPriceRepository.findFirstByCryptoCurrencyIdOrderByTimestampDesc(bitcoin.getId()))
+                .get().extracting(CryptoPrice::getTimestamp).isEqualTo(bitcoinPrice2.getTimestamp());
+        assertThat(cryptoPriceRepository.findFirstByCryptoCurrencyIdOrderByTimestampAsc(bitcoin.getId() + 1)).isEmpty();
+    }
+
+    @Test
+    public void testFindPriceBounds() {
+        LocalDateTime start = LocalDateTime.of(2023, 12, 31, 0, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 1, 3, 0, 0, 0);
+
+        PriceBounds bounds = cryptoPriceRepository.findPriceBounds(bitcoin.getId(), start, end);
+        assertThat(bounds.minPrice()).isEqualByComparingTo("50000");
+        assertThat(bounds.maxPrice()).isEqualByComparingTo("52000");
+
+        PriceBounds empty = cryptoPriceRepository.findPriceBounds(bitcoin.getId() + 1, start, end);
+        assertThat(empty.minPrice()).isNull();
+        assertThat(empty.maxPrice()).isNull();
+    }
+
+    @Test
+    public void testFindEpochMillis() {
+        assertThat(cryptoPriceRepository.findEpochMillis(bitcoin.getId(), PRICE1_MILLIS, PRICE2_MILLIS))
+                .containsExactlyInAnyOrder(PRICE1_MILLIS, PRICE2_MILLIS);
+        assertThat(cryptoPriceRepository.findEpochMillis(bitcoin.getId(), PRICE1_MILLIS + 1, PRICE2_MILLIS))
+                .containsExactly(PRICE2_MILLIS);
+        assertThat(cryptoPriceRepository.findEpochMillis(bitcoin.getId() + 1, PRICE1_MILLIS, PRICE2_MILLIS)).isEmpty();
+    }
+
+    @Test
+    public void testStreamByTimestampBetween() {
         LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0, 0);
         LocalDateTime end = LocalDateTime.of(2024, 1, 3, 0, 0, 0);
-        bitcoinPrice3 = new CryptoPrice();
-        bitcoinPrice3.setSymbol("BTC");
-        bitcoinPrice3.setPrice(BigDecimal.valueOf(55000.0));
-        bitcoinPrice3.setTimestampFromEpochMilli(1704067199000L);
-        bitcoinPrice3.setCryptoCurrency(bitcoin);
-        cryptoPriceRepository.save(bitcoinPrice3);
-
-        List<CryptoPrice> prices = cryptoPriceRepository.findByTimestampBetween(start, end);
-        assertThat(prices).hasSize(3);
-        assertThat(prices).extracting(CryptoPrice::getTimestamp)
-                .allMatch(timestamp -> !timestamp.isBefore(start) && !timestamp.isAfter(end));
+
+        try (Stream<CurrencyPrice> prices = cryptoPriceRepository.streamByTimestampBetween(start, end)) {
+            assertThat(prices.toList()).containsExactlyInAnyOrder(
+                    new CurrencyPrice(bitcoin.getId(), PRICE1_MILLIS, 5_000_000_000_000L),
+                    new CurrencyPrice(bitcoin.getId(), PRICE2_MILLIS, 5_200_000_000_000L));
+        }
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package org.task.crypto.integration.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.task.crypto.model.DailyPriceRange;
+import org.task.crypto.repository.DailyPriceRangeRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+@DataJpaTest
+@Import(DailyPriceRangeRepository.class)
+class DailyPriceRangeRepositoryTest {
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 2);
+    private static final long BTC_ID = 1L;
+    private static final long ETH_ID = 2L;
+
+    @Autowired
+    private DailyPriceRangeRepository dailyPriceRangeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testAddRanges_shouldKeepLowestAndHighestPrice() {
+        dailyPriceRangeRepository.addRanges(List.of(range(DAY, BTC_ID, 4_000_000_000L, 5_000_000_000L)));
+        dailyPriceRangeRepository.addRanges(List.of(range(DAY, BTC_ID, 4_500_000_000L, 6_000_000_000L),
+                range(DAY.plusDays(1), BTC_ID, 100L, 100L)));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT * FROM crypto_daily_ranges WHERE trading_day = ? AND crypto_currency_id = ?", DAY, BTC_ID);
+        assertThat(row.get("LOW_PRICE")).isEqualTo(4_000_000_000L);
+        assertThat(row.get("HIGH_PRICE")).isEqualTo(6_000_000_000L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM crypto_daily_ranges", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void testFindRanges_shouldOnlyReadTheGivenDay() {
+        dailyPriceRangeRepository.addRanges(List.of(
+                range(DAY, ETH_ID, 3_000L, 4_500L),
+                range(DAY, BTC_ID, 40_000L, 50_000L),
+                range(DAY.plusDays(1), BTC_ID, 10_000L, 50_000L)));
+
+        List<DailyPriceRange> ranges = dailyPriceRangeRepository.findRanges(DAY);
+
+        assertThat(ranges).extracting(DailyPriceRange::getCryptoCurrencyId).containsExactly(BTC_ID, ETH_ID);
+        assertThat(ranges).extracting(DailyPriceRange::getLowPrice).containsExactly(40_000L, 3_000L);
+        assertThat(ranges).extracting(DailyPriceRange::getHighPrice).containsExactly(50_000L, 4_500L);
+        assertThat(dailyPriceRangeRepository.findRanges(DAY.minusDays(1))).isEmpty();
+    }
+
+    @Test
+    void testDeleteBefore_shouldKeepTheGivenDayAndLater() {
+        dailyPriceRangeRepository.addRanges(List.of(
+                range(DAY.minusDays(1), BTC_ID, 100L, 200L),
+                range(DAY, BTC_ID, 100L, 200L),
+                range(DAY.plusDays(1), ETH_ID, 100L, 200L)));
+
+        assertThat(dailyPriceRangeRepository.deleteBefore(DAY)).isEqualTo(1);
+        assertThat(dailyPriceRangeRepository.findRanges(DAY.minusDays(1))).isEmpty();
+        assertThat(dailyPriceRangeRepository.findRanges(DAY)).hasSize(1);
+        assertThat(dailyPriceRangeRepository.findRanges(DAY.plusDays(1))).hasSize(1);
+    }
+
+    private static DailyPriceRange range(LocalDate day, long cryptoCurrencyId, long low, long high) {
+        DailyPriceRange range = DailyPriceRange.of(day, cryptoCurrencyId, low);
+        range.add(high);
+        return range;
+    }
+}
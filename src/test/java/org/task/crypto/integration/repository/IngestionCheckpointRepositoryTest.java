@@ -0,0 +1,46 @@
+package org.task.crypto.integration.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.task.crypto.model.IngestionCheckpoint;
+import org.task.crypto.repository.IngestionCheckpointRepository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("integration")
+@DataJpaTest
+class IngestionCheckpointRepositoryTest {
+
+    @Autowired
+    private IngestionCheckpointRepository ingestionCheckpointRepository;
+
+    @Test
+    void testFindByFilePath() {
+        IngestionCheckpoint checkpoint = new IngestionCheckpoint();
+        checkpoint.setFilePath("BTC_values.csv");
+        checkpoint.setContentHash("a".repeat(64));
+        checkpoint.setByteOffset(1024);
+        checkpoint.setFileModifiedAt(1641009600000L);
+        checkpoint.setLastTimestamp(1641020400000L);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        ingestionCheckpointRepository.save(checkpoint);
+
+        Optional<IngestionCheckpoint> found = ingestionCheckpointRepository.findByFilePath("BTC_values.csv");
+
+        assertTrue(found.isPresent());
+        assertEquals(1024, found.get().getByteOffset());
+        assertEquals(1641020400000L, found.get().getLastTimestamp());
+    }
+
+    @Test
+    void testFindByFilePathNotFound() {
+        assertFalse(ingestionCheckpointRepository.findByFilePath("ETH_values.csv").isPresent());
+    }
+}
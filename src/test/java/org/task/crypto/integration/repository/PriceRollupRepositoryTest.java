@@ -0,0 +1,92 @@
+package org.task.crypto.integration.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.enums.RollupResolution;
+import org.task.crypto.repository.PriceRollupRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag("integration")
+@DataJpaTest
+@Import(PriceRollupRepository.class)
+class PriceRollupRepositoryTest {
+    private static final long DAY = 1641081600000L; // 2022-01-02T00:00Z
+    private static final long BTC_ID = 1L;
+    private static final long XRP_ID = 3L;
+    private static final Map<String, Long> CURRENCY_IDS = Map.of("BTC", BTC_ID, "ETH", 2L, "XRP", XRP_ID);
+
+    @Autowired
+    private PriceRollupRepository priceRollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testAddTicks_shouldFoldBatchesIntoBuckets() {
+        addTicks(List.of(
+                new CryptoPriceDto(DAY + 120_000, "BTC", new BigDecimal("20")),
+                new CryptoPriceDto(DAY + 60_000, "BTC", new BigDecimal("10")),
+                new CryptoPriceDto(DAY + 3_600_000, "BTC", new BigDecimal("40"))));
+        addTicks(List.of(
+                new CryptoPriceDto(DAY + 5_000, "BTC", new BigDecimal("30")),
+                new CryptoPriceDto(DAY + 7_200_000, "BTC", new BigDecimal("5"))));
+
+        Map<String, Object> day = jdbcTemplate.queryForMap("SELECT * FROM crypto_price_rollups "
+                + "WHERE crypto_currency_id = ? AND resolution = 'DAY' AND bucket_start = ?", BTC_ID, DAY);
+        assertThat(day.get("TICK_COUNT")).isEqualTo(5L);
+        assertThat(day.get("OPEN_PRICE")).isEqualTo(3_000_000_000L);
+        assertThat(day.get("CLOSE_PRICE")).isEqualTo(500_000_000L);
+        assertThat(day.get("HIGH_PRICE")).isEqualTo(4_000_000_000L);
+        assertThat(day.get("LOW_PRICE")).isEqualTo(500_000_000L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM crypto_price_rollups WHERE resolution = 'MINUTE'",
+                Integer.class)).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM crypto_price_rollups WHERE resolution = 'HOUR'",
+                Integer.class)).isEqualTo(3);
+    }
+
+    @Test
+    void testFindBounds_shouldOnlyReadBucketsStartingInRange() {
+        addTicks(List.of(
+                new CryptoPriceDto(DAY - 1, "BTC", new BigDecimal("1")),
+                new CryptoPriceDto(DAY + 1_000, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(DAY + 86_399_999, "BTC", new BigDecimal("47000")),
+                new CryptoPriceDto(DAY + 1_000, "ETH", new BigDecimal("3700"))));
+
+        PriceBounds bounds = priceRollupRepository.findBounds(BTC_ID, RollupResolution.DAY, DAY, DAY + 86_400_000);
+        assertThat(bounds.minPrice()).isEqualTo(new BigDecimal("46813.21"));
+        assertThat(bounds.maxPrice()).isEqualTo(new BigDecimal("47000.00"));
+        assertThat(priceRollupRepository.findBounds(XRP_ID, RollupResolution.DAY, DAY, DAY + 86_400_000))
+                .isEqualTo(PriceBounds.EMPTY);
+    }
+
+    @Test
+    void testEvictBefore_shouldDeleteEarlierBuckets() {
+        addTicks(List.of(
+                new CryptoPriceDto(DAY - 1, "BTC", new BigDecimal("1")),
+                new CryptoPriceDto(DAY + 1_000, "BTC", new BigDecimal("46813.21"))));
+
+        int deleted = priceRollupRepository.evictBefore(DAY);
+
+        assertThat(deleted).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(bucket_start) FROM crypto_price_rollups", Long.class))
+                .isEqualTo(DAY);
+    }
+
+    private void addTicks(List<CryptoPriceDto> prices) {
+        priceRollupRepository.addTicks(PriceTickBatch.of(prices), IntStream.range(0, prices.size()).toArray(),
+                prices.stream().mapToLong(price -> CURRENCY_IDS.get(price.symbol())).toArray(), prices.size());
+    }
+}
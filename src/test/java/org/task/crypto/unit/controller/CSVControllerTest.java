@@ -7,27 +7,35 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.server.ResponseStatusException;
 import org.task.crypto.controller.CSVController;
-import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.FileIngestionResult;
+import org.task.crypto.dto.IngestionJobStatus;
+import org.task.crypto.enums.IngestionJobState;
+import org.task.crypto.enums.IngestionMode;
 import org.task.crypto.exception.GlobalExceptionHandler;
 import org.task.crypto.repository.CryptoPriceRepository;
-import org.task.crypto.service.CryptoPriceService;
+import org.task.crypto.service.IngestionJobService;
 import org.task.crypto.validation.FileTypeValidator;
 import org.task.crypto.validation.ValidFileType;
 
 import javax.validation.ConstraintValidatorContext;
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
 
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Tag("unit")
@@ -37,7 +45,7 @@ class CSVControllerTest {
     private MockMvc mockMvc;
 
     @Mock
-    private CryptoPriceService cryptoPriceService;
+    private IngestionJobService ingestionJobService;
 
     @InjectMocks
     private CSVController csvController;
@@ -54,6 +62,9 @@ class CSVControllerTest {
     @Mock
     private ConstraintValidatorContext context;
 
+    private final IngestionJobStatus queuedJob = new IngestionJobStatus(UUID.randomUUID(), "BTC_values.csv",
+            IngestionJobState.QUEUED, 0, 0, 0, 0, LocalDateTime.now(), null, null, null, List.of());
+
     @BeforeEach
     void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(csvController)
@@ -70,18 +81,23 @@ class CSVControllerTest {
         mockMvc.perform(multipart("/api/csv/upload")
                         .file(invalidFile)
                         .contentType(MediaType.MULTIPART_FORM_DATA))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted());
     }
 
     @Test
-    void uploadAllFiles_ShouldReturnOk_WhenFilesAreProcessed() throws Exception {
-        mockMvc.perform(get("/api/csv/upload/all"))
-                .andExpect(status().isOk());
+    void uploadAllFiles_ShouldReturnAccepted_WhenJobIsQueued() throws Exception {
+        when(ingestionJobService.submitLoadAll()).thenReturn(queuedJob);
 
+        mockMvc.perform(get("/api/csv/upload/all"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(queuedJob.id().toString()))
+                .andExpect(jsonPath("$.state").value("QUEUED"));
+        mockMvc.perform(post("/api/csv/upload/all"))
+                .andExpect(status().isAccepted());
     }
 
     @Test
-    void uploadFile_ShouldReturnOk_WhenFileContainsInvalidRecords() throws Exception {
+    void uploadFile_ShouldQueueJob_WhenFileContainsInvalidRecords() throws Exception {
         MockMultipartFile fileWithInvalidRecords = new MockMultipartFile(
                 "file",
                 "partial.csv",
@@ -89,26 +105,62 @@ class CSVControllerTest {
                 "timestamp,symbol,price\n1641009600000,BTC,46813.21\ninvalid,ETH,4000.50".getBytes()
         );
 
-        List<CryptoPriceDto> partialResult = List.of(
-                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21"))
-        );
-        when(cryptoPriceService.loadCryptoPrices(fileWithInvalidRecords)).thenReturn(partialResult);
+        when(ingestionJobService.submitUpload(fileWithInvalidRecords)).thenReturn(queuedJob);
 
         mockMvc.perform(multipart("/api/csv/upload").file(fileWithInvalidRecords))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(queuedJob.id().toString()));
 
-        verify(cryptoPriceService, times(1)).loadCryptoPrices(fileWithInvalidRecords);
+        verify(ingestionJobService, times(1)).submitUpload(fileWithInvalidRecords);
     }
 
     @Test
-    void uploadFile_ShouldReturnOk_WhenFileIsValid() throws Exception {
+    void uploadFile_ShouldReturnAccepted_WhenFileIsValid() throws Exception {
         MockMultipartFile file = new MockMultipartFile(
                 "file", "test.csv", "text/csv",
                 "timestamp,symbol,price\n1641009600000,BTC,46813.21".getBytes()
         );
         mockMvc.perform(multipart("/api/csv/upload")
                         .file(file))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void uploadFiles_ShouldReturnPerFileResults() throws Exception {
+        MockMultipartFile btc = new MockMultipartFile("files", "BTC_values.csv", "text/csv",
+                "timestamp,symbol,price\n1641009600000,BTC,46813.21".getBytes());
+        MockMultipartFile eth = new MockMultipartFile("files", "ETH_values.csv", "text/csv",
+                "timestamp,symbol,price\n1641009600000,ETH,3715.32".getBytes());
+        IngestionJobStatus finishedJob = new IngestionJobStatus(UUID.randomUUID(), "2 uploaded files",
+                IngestionJobState.COMPLETED, 2, 0, 2, 0, LocalDateTime.now(), LocalDateTime.now(), LocalDateTime.now(),
+                null, List.of(new FileIngestionResult("BTC_values.csv", IngestionMode.FULL, 1, 0, 1, 3, null),
+                new FileIngestionResult("ETH_values.csv", IngestionMode.FULL, 1, 0, 1, 3, null)));
+        when(ingestionJobService.importUploads(List.of(btc, eth))).thenReturn(finishedJob);
+
+        mockMvc.perform(multipart("/api/csv/upload/batch").file(btc).file(eth))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.files.length()").value(2))
+                .andExpect(jsonPath("$.files[1].fileName").value("ETH_values.csv"));
+    }
+
+    @Test
+    void getJob_ShouldReturnStatus() throws Exception {
+        when(ingestionJobService.getStatus(queuedJob.id())).thenReturn(queuedJob);
+
+        mockMvc.perform(get("/api/csv/jobs/{id}", queuedJob.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source").value("BTC_values.csv"));
+    }
+
+    @Test
+    void getJob_ShouldReturnNotFound_WhenJobIsUnknown() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(ingestionJobService.getStatus(id))
+                .thenThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown ingestion job: " + id));
+
+        mockMvc.perform(get("/api/csv/jobs/{id}", id))
+                .andExpect(status().isNotFound());
     }
 
 }
@@ -0,0 +1,153 @@
+package org.task.crypto.unit.messaging;
+
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.task.crypto.dto.PriceStatistics;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.messaging.KafkaPriceStatisticsStore;
+import org.task.crypto.messaging.PriceStatisticsTopology;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+class PriceStatisticsTopologyTest {
+    private static final String TOPIC = "ticks";
+
+    @TempDir
+    private Path stateDir;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, byte[]> ticks;
+    private KeyValueStore<String, PriceStatistics> store;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder streamsBuilder = new StreamsBuilder();
+        new PriceStatisticsTopology(TOPIC).buildPipeline(streamsBuilder);
+        Properties properties = new Properties();
+        properties.put(StreamsConfig.APPLICATION_ID_CONFIG, "price-statistics-test");
+        properties.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(streamsBuilder.build(), properties);
+        ticks = driver.createInputTopic(TOPIC, new StringSerializer(), new ByteArraySerializer());
+        store = driver.getKeyValueStore(PriceStatisticsTopology.STORE_NAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void testTicks_shouldAggregatePerDayMonthAndLifetime() {
+        long january31 = epochMilli(LocalDate.of(2022, 1, 31));
+        long february1 = epochMilli(LocalDate.of(2022, 2, 1));
+        send(january31 + 1000 + ",BTC,46813.21\n" + january31 + ",BTC,46000.00\n" + january31 + ",ETH,3700\n");
+        send(february1 + ",BTC,38000.5\nbroken line\n");
+
+        PriceStatistics day = store.get(PriceStatisticsTopology.dayKey("BTC", LocalDate.of(2022, 1, 31)));
+        assertEquals(2, day.count());
+        assertEquals(january31, day.firstTimestamp());
+        assertEquals(new BigDecimal("46000.00"), day.firstPrice());
+        assertEquals(new BigDecimal("46813.21"), day.lastPrice());
+
+        PriceStatistics month = store.get(PriceStatisticsTopology.monthKey("BTC", YearMonth.of(2022, 2)));
+        assertEquals(1, month.count());
+
+        PriceStatistics lifetime = store.get(PriceStatisticsTopology.lifetimeKey("BTC"));
+        assertEquals(3, lifetime.count());
+        assertEquals(new BigDecimal("38000.5"), lifetime.minPrice());
+        assertEquals(new BigDecimal("46813.21"), lifetime.maxPrice());
+        assertEquals(february1, lifetime.lastTimestamp());
+        assertEquals(1, store.get(PriceStatisticsTopology.lifetimeKey("ETH")).count());
+    }
+
+    @Test
+    void testAggregate_shouldCombineMonthAndDayBuckets() {
+        send(tick(LocalDate.of(2022, 1, 14), "5") + tick(LocalDate.of(2022, 1, 15), "10")
+                + tick(LocalDate.of(2022, 2, 10), "30") + tick(LocalDate.of(2022, 3, 5), "2")
+                + tick(LocalDate.of(2022, 3, 6), "1") + tick(LocalDate.of(2022, 1, 15), "20", "ETH"));
+
+        Optional<PriceStatistics> statistics = KafkaPriceStatisticsStore.aggregate(store, "BTC",
+                LocalDate.of(2022, 1, 15), LocalDate.of(2022, 3, 5));
+
+        assertTrue(statistics.isPresent());
+        assertEquals(3, statistics.get().count());
+        assertEquals(new BigDecimal("2"), statistics.get().minPrice());
+        assertEquals(new BigDecimal("30"), statistics.get().maxPrice());
+        assertTrue(KafkaPriceStatisticsStore.aggregate(store, "BTC",
+                LocalDate.of(2022, 4, 1), LocalDate.of(2022, 6, 30)).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAddAll_shouldPublishStoredPricesToTheTopology() {
+        KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(eq(TOPIC), any(byte[].class))).thenAnswer(invocation -> {
+            ticks.pipeInput(null, invocation.<byte[]>getArgument(1));
+            return new CompletableFuture<>();
+        });
+        KafkaPriceStatisticsStore statisticsStore = new KafkaPriceStatisticsStore(
+                mock(StreamsBuilderFactoryBean.class), kafkaTemplate, mock(CryptoPriceBulkRepository.class));
+        ReflectionTestUtils.setField(statisticsStore, "storedTicksTopic", TOPIC);
+        long january31 = epochMilli(LocalDate.of(2022, 1, 31));
+        PriceTickBatch prices = new PriceTickBatch(1500);
+        for (int i = 0; i < 1500; i++) {
+            prices.add(january31 + i, "BTC", new BigDecimal(i + 1 + ".50"));
+        }
+
+        statisticsStore.addAll(prices);
+
+        verify(kafkaTemplate, times(2)).send(eq(TOPIC), any(byte[].class));
+        PriceStatistics lifetime = store.get(PriceStatisticsTopology.lifetimeKey("BTC"));
+        assertEquals(1500, lifetime.count());
+        assertEquals(new BigDecimal("1.50"), lifetime.firstPrice());
+        assertEquals(new BigDecimal("1500.50"), lifetime.maxPrice());
+    }
+
+    private void send(String lines) {
+        ticks.pipeInput(null, lines.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String tick(LocalDate day, String price) {
+        return tick(day, price, "BTC");
+    }
+
+    private static String tick(LocalDate day, String price, String symbol) {
+        return epochMilli(day) + "," + symbol + "," + price + "\n";
+    }
+
+    private static long epochMilli(LocalDate day) {
+        return day.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
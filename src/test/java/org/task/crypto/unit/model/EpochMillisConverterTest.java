@@ -0,0 +1,31 @@
+package org.task.crypto.unit.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.task.crypto.model.EpochMillisConverter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@Tag("unit")
+class EpochMillisConverterTest {
+    private final EpochMillisConverter converter = new EpochMillisConverter();
+
+    @Test
+    void testConversion_shouldRoundTripInSystemTimeZone() {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(1641009600123L), ZoneId.systemDefault());
+
+        assertEquals(1641009600123L, converter.convertToDatabaseColumn(dateTime));
+        assertEquals(dateTime, converter.convertToEntityAttribute(1641009600123L));
+    }
+
+    @Test
+    void testConversion_withNull_shouldReturnNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,31 @@
+package org.task.crypto.unit.model;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.task.crypto.model.ScaledPriceConverter;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@Tag("unit")
+class ScaledPriceConverterTest {
+    private final ScaledPriceConverter converter = new ScaledPriceConverter();
+
+    @Test
+    void testConvertToDatabaseColumn_shouldScaleToEightDecimals() {
+        assertEquals(4_681_321_000_000L, converter.convertToDatabaseColumn(new BigDecimal("46813.21")));
+        assertEquals(123L, converter.convertToDatabaseColumn(new BigDecimal("0.0000012345")));
+        assertEquals(-50_000_000L, converter.convertToDatabaseColumn(new BigDecimal("-0.5")));
+        assertNull(converter.convertToDatabaseColumn(null));
+    }
+
+    @Test
+    void testConvertToEntityAttribute_shouldKeepAtLeastTwoDecimals() {
+        assertEquals(new BigDecimal("46813.21"), converter.convertToEntityAttribute(4_681_321_000_000L));
+        assertEquals(new BigDecimal("47000.00"), converter.convertToEntityAttribute(4_700_000_000_000L));
+        assertEquals(new BigDecimal("0.00000123"), converter.convertToEntityAttribute(123L));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
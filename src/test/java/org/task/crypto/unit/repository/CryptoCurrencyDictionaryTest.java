@@ -0,0 +1,73 @@
+package org.task.crypto.unit.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.task.crypto.model.CryptoCurrency;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoCurrencyRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class CryptoCurrencyDictionaryTest {
+
+    @Mock
+    private CryptoCurrencyRepository cryptoCurrencyRepository;
+
+    @InjectMocks
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    private CryptoCurrency bitcoin;
+
+    @BeforeEach
+    void setUp() {
+        bitcoin = new CryptoCurrency();
+        bitcoin.setId(7L);
+        bitcoin.setSymbol("BTC");
+    }
+
+    @Test
+    void testFindId_shouldLoadEachSymbolOnce() {
+        when(cryptoCurrencyRepository.findBySymbol("BTC")).thenReturn(Optional.of(bitcoin));
+
+        assertEquals(Optional.of(7L), cryptoCurrencyDictionary.findId("BTC"));
+        assertEquals(Optional.of(7L), cryptoCurrencyDictionary.findId("BTC"));
+        assertEquals(Optional.of("BTC"), cryptoCurrencyDictionary.findSymbol(7L));
+        verify(cryptoCurrencyRepository, times(1)).findBySymbol("BTC");
+        verify(cryptoCurrencyRepository, never()).findById(7L);
+    }
+
+    @Test
+    void testFindId_unknownSymbol_shouldBeLookedUpAgain() {
+        when(cryptoCurrencyRepository.findBySymbol("XYZ")).thenReturn(Optional.empty());
+
+        assertTrue(cryptoCurrencyDictionary.findId("XYZ").isEmpty());
+        assertTrue(cryptoCurrencyDictionary.findId("XYZ").isEmpty());
+        verify(cryptoCurrencyRepository, times(2)).findBySymbol("XYZ");
+    }
+
+    @Test
+    void testEvict_shouldForgetBothDirections() {
+        cryptoCurrencyDictionary.register(bitcoin);
+        when(cryptoCurrencyRepository.findBySymbol("BTC")).thenReturn(Optional.empty());
+        when(cryptoCurrencyRepository.findById(7L)).thenReturn(Optional.empty());
+
+        cryptoCurrencyDictionary.evict("BTC");
+
+        assertTrue(cryptoCurrencyDictionary.findId("BTC").isEmpty());
+        assertTrue(cryptoCurrencyDictionary.findSymbol(7L).isEmpty());
+    }
+}
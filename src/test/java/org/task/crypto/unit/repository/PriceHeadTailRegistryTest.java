@@ -0,0 +1,118 @@
+package org.task.crypto.unit.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoPriceRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class PriceHeadTailRegistryTest {
+    private static final Long BTC_ID = 1L;
+
+    @Mock
+    private CryptoPriceRepository cryptoPriceRepository;
+
+    @Mock
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    @InjectMocks
+    private PriceHeadTailRegistry priceHeadTailRegistry;
+
+    @Test
+    void testFindPrices_shouldSeedFromRepositoryOnce() {
+        stubStoredEdges(1_000L, "10.5", 2_000L, "11");
+
+        assertEquals(price(1_000L, "10.5"), priceHeadTailRegistry.findOldestPrice("BTC").orElseThrow());
+        assertEquals(price(2_000L, "11"), priceHeadTailRegistry.findNewestPrice("BTC").orElseThrow());
+        assertEquals(price(2_000L, "11"), priceHeadTailRegistry.findNewestPrice("BTC").orElseThrow());
+        verify(cryptoPriceRepository, times(1)).findFirstByCryptoCurrencyIdOrderByTimestampAsc(BTC_ID);
+        verify(cryptoPriceRepository, times(1)).findFirstByCryptoCurrencyIdOrderByTimestampDesc(BTC_ID);
+    }
+
+    @Test
+    void testAddAll_afterSeeding_shouldMoveEdgesWithoutRepository() {
+        stubStoredEdges(1_000L, "10.5", 2_000L, "11");
+        priceHeadTailRegistry.findNewestPrice("BTC");
+        PriceTickBatch batch = new PriceTickBatch(4);
+        batch.add(3_000L, "BTC", new BigDecimal("12.25"));
+        batch.add(500L, "BTC", new BigDecimal("9"));
+        batch.add(3_000L, "BTC", new BigDecimal("13"));
+        batch.add(1_500L, "BTC", new BigDecimal("10"));
+
+        priceHeadTailRegistry.addAll(batch);
+
+        assertEquals(price(500L, "9.00"), priceHeadTailRegistry.findOldestPrice("BTC").orElseThrow());
+        assertEquals(price(3_000L, "12.25"), priceHeadTailRegistry.findNewestPrice("BTC").orElseThrow());
+        verify(cryptoPriceRepository, times(1)).findFirstByCryptoCurrencyIdOrderByTimestampDesc(BTC_ID);
+    }
+
+    @Test
+    void testAddAll_beforeSeeding_shouldMergeWithStoredEdges() {
+        when(cryptoCurrencyDictionary.findId("BTC")).thenReturn(Optional.of(BTC_ID));
+        PriceTickBatch batch = new PriceTickBatch(1);
+        batch.add(3_000L, "BTC", new BigDecimal("12"));
+        priceHeadTailRegistry.addAll(batch);
+        stubStoredEdges(1_000L, "10.5", 2_000L, "11");
+
+        assertEquals(price(1_000L, "10.5"), priceHeadTailRegistry.findOldestPrice("BTC").orElseThrow());
+        assertEquals(price(3_000L, "12.00"), priceHeadTailRegistry.findNewestPrice("BTC").orElseThrow());
+    }
+
+    @Test
+    void testEvict_shouldSeedAgainOnNextRead() {
+        stubStoredEdges(1_000L, "10.5", 2_000L, "11");
+        priceHeadTailRegistry.findNewestPrice("BTC");
+
+        priceHeadTailRegistry.evict("BTC");
+        priceHeadTailRegistry.findNewestPrice("BTC");
+
+        verify(cryptoPriceRepository, times(2)).findFirstByCryptoCurrencyIdOrderByTimestampDesc(BTC_ID);
+    }
+
+    @Test
+    void testUnknownSymbol_shouldBeIgnored() {
+        when(cryptoCurrencyDictionary.findId("XYZ")).thenReturn(Optional.empty());
+        PriceTickBatch batch = new PriceTickBatch(1);
+        batch.add(1_000L, "XYZ", new BigDecimal("1"));
+
+        priceHeadTailRegistry.addAll(batch);
+
+        assertTrue(priceHeadTailRegistry.findNewestPrice("XYZ").isEmpty());
+        verify(cryptoPriceRepository, never()).findFirstByCryptoCurrencyIdOrderByTimestampDesc(any());
+    }
+
+    private void stubStoredEdges(long firstTimestamp, String firstPrice, long lastTimestamp, String lastPrice) {
+        when(cryptoCurrencyDictionary.findId("BTC")).thenReturn(Optional.of(BTC_ID));
+        when(cryptoPriceRepository.findFirstByCryptoCurrencyIdOrderByTimestampAsc(BTC_ID))
+                .thenReturn(Optional.of(price(firstTimestamp, firstPrice)));
+        when(cryptoPriceRepository.findFirstByCryptoCurrencyIdOrderByTimestampDesc(BTC_ID))
+                .thenReturn(Optional.of(price(lastTimestamp, lastPrice)));
+    }
+
+    private static CryptoPrice price(long timestamp, String price) {
+        CryptoPrice cryptoPrice = new CryptoPrice();
+        cryptoPrice.setSymbol("BTC");
+        cryptoPrice.setPrice(new BigDecimal(price));
+        cryptoPrice.setTimestampFromEpochMilli(timestamp);
+        return cryptoPrice;
+    }
+}
@@ -8,7 +8,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.task.crypto.model.CryptoCurrency;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
 import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
 import org.task.crypto.service.CryptoCurrencyService;
 
 import java.util.Arrays;
@@ -31,6 +33,12 @@ public class CryptoCurrencyServiceTest {
     @Mock
     private CryptoCurrencyRepository cryptoCurrencyRepository;
 
+    @Mock
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    @Mock
+    private PriceHeadTailRegistry priceHeadTailRegistry;
+
     @InjectMocks
     private CryptoCurrencyService cryptoCurrencyService;
 
@@ -55,6 +63,7 @@ public class CryptoCurrencyServiceTest {
         assertEquals(btc.getSymbol(), created.getSymbol());
         assertEquals(btc.getName(), created.getName());
         verify(cryptoCurrencyRepository).save(btc);
+        verify(cryptoCurrencyDictionary).register(btc);
     }
 
     @Test
@@ -70,6 +79,8 @@ public class CryptoCurrencyServiceTest {
 
         assertDoesNotThrow(() -> cryptoCurrencyService.removeCryptoCurrency("BTC"));
         verify(cryptoCurrencyRepository).delete(btc);
+        verify(cryptoCurrencyDictionary).evict("BTC");
+        verify(priceHeadTailRegistry).evict("BTC");
     }
 
     @Test
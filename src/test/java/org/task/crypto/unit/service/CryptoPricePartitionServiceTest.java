@@ -0,0 +1,107 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.task.crypto.repository.CryptoPricePartitionRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
+import org.task.crypto.service.CryptoPricePartitionService;
+import org.task.crypto.service.DailyRangeLeaderboardService;
+import org.task.crypto.service.InMemoryPriceStore;
+import org.task.crypto.service.PriceRollupService;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class CryptoPricePartitionServiceTest {
+    private static final YearMonth CURRENT_MONTH = YearMonth.of(2024, 11);
+
+    @Mock
+    private CryptoPricePartitionRepository partitionRepository;
+
+    @Mock
+    private PriceHeadTailRegistry priceHeadTailRegistry;
+
+    @Mock
+    private InMemoryPriceStore inMemoryPriceStore;
+
+    @Mock
+    private DailyRangeLeaderboardService dailyRangeLeaderboardService;
+
+    @Mock
+    private PriceRollupService priceRollupService;
+
+    @Test
+    void testMaintainPartitions_shouldCreateCurrentAndUpcomingMonths() {
+        when(partitionRepository.isPartitioned()).thenReturn(true);
+
+        new CryptoPricePartitionService(partitionRepository, priceHeadTailRegistry, 2, 0).maintainPartitions(CURRENT_MONTH);
+
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 11));
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2024, 12));
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2025, 1));
+        verify(partitionRepository, never()).findMonthlyPartitions();
+    }
+
+    @Test
+    void testMaintainPartitions_shouldDropPartitionsOutsideRetention() {
+        when(partitionRepository.isPartitioned()).thenReturn(true);
+        when(partitionRepository.findMonthlyPartitions()).thenReturn(List.of(YearMonth.of(2024, 7),
+                YearMonth.of(2024, 8), YearMonth.of(2024, 9), YearMonth.of(2024, 11)));
+
+        CryptoPricePartitionService service = new CryptoPricePartitionService(partitionRepository,
+                priceHeadTailRegistry, 0, 3);
+        service.setInMemoryPriceStore(inMemoryPriceStore);
+        service.setDailyRangeLeaderboardService(dailyRangeLeaderboardService);
+        service.setPriceRollupService(priceRollupService);
+        service.maintainPartitions(CURRENT_MONTH);
+
+        verify(partitionRepository).dropMonthlyPartition(YearMonth.of(2024, 7));
+        verify(partitionRepository, never()).dropMonthlyPartition(YearMonth.of(2024, 8));
+        verify(partitionRepository, never()).dropMonthlyPartition(YearMonth.of(2024, 9));
+        verify(priceHeadTailRegistry).clear();
+        verify(inMemoryPriceStore).evictBefore(YearMonth.of(2024, 8));
+        verify(dailyRangeLeaderboardService).evictBefore(YearMonth.of(2024, 8));
+        verify(priceRollupService).evictBefore(YearMonth.of(2024, 8));
+    }
+
+    @Test
+    void testMaintainPartitions_tableNotPartitioned_shouldDoNothing() {
+        when(partitionRepository.isPartitioned()).thenReturn(false);
+
+        new CryptoPricePartitionService(partitionRepository, priceHeadTailRegistry, 3, 12).maintainPartitions(CURRENT_MONTH);
+
+        verify(partitionRepository, never()).createMonthlyPartition(any());
+        verify(partitionRepository, never()).dropMonthlyPartition(any());
+    }
+
+    @Test
+    void testMaintainPartitions_databaseError_shouldNotPropagate() {
+        when(partitionRepository.isPartitioned()).thenReturn(true);
+        doThrow(new DataIntegrityViolationException("rows in default partition"))
+                .when(partitionRepository).createMonthlyPartition(CURRENT_MONTH);
+
+        assertDoesNotThrow(() -> new CryptoPricePartitionService(partitionRepository, priceHeadTailRegistry, 1, 0)
+                .maintainPartitions(CURRENT_MONTH));
+    }
+
+    @Test
+    void testPartitionBounds_shouldCoverUtcMonth() {
+        assertEquals("crypto_prices_p2024_02", CryptoPricePartitionRepository.partitionName(YearMonth.of(2024, 2)));
+        assertEquals(1706745600000L, CryptoPricePartitionRepository.startEpochMilli(YearMonth.of(2024, 2)));
+        assertEquals(1709251200000L, CryptoPricePartitionRepository.startEpochMilli(YearMonth.of(2024, 3)));
+    }
+}
@@ -1,40 +1,75 @@
 package org.task.crypto.unit.service;
 
+import com.github.luben.zstd.Zstd;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.Logger;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
 import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.FileIngestionResult;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.enums.IngestionMode;
 import org.task.crypto.exception.NoContentException;
+import org.task.crypto.model.CryptoCurrency;
 import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.model.IngestionCheckpoint;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
 import org.task.crypto.repository.CryptoPriceRepository;
+import org.task.crypto.repository.IngestionCheckpointRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
 import org.task.crypto.service.CryptoPriceService;
+import org.task.crypto.service.DailyRangeLeaderboardService;
+import org.task.crypto.service.InMemoryPriceStore;
+import org.task.crypto.service.IngestionProgress;
+import org.task.crypto.service.PriceStatisticsStore;
 import org.task.crypto.utils.CustomMultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @Tag("unit")
 @ExtendWith(MockitoExtension.class)
@@ -43,10 +78,23 @@ public class CryptoPriceServiceTest {
     @Mock
     private CryptoPriceRepository cryptoPriceRepository;
     @Mock
+    private CryptoPriceBulkRepository cryptoPriceBulkRepository;
+    @Mock
+    private IngestionCheckpointRepository checkpointRepository;
+    @Mock
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+    @Mock
+    private CryptoCurrencyRepository cryptoCurrencyRepository;
+    @Mock
+    private PriceHeadTailRegistry priceHeadTailRegistry;
+    @Spy
+    private AsyncTaskExecutor ingestionExecutor = new SimpleAsyncTaskExecutor();
+    @Mock
     private Logger logger;
 
     private static final String PRICES_DIRECTORY = "src/test/resources/prices";
     private static final String INVALID_PRICES_DIRECTORY = "src/test/resources/invalidFiles";
+    private static final long SETTLE_MILLIS = 60_000;
 
     @InjectMocks
     private CryptoPriceService cryptoPriceService;
@@ -72,6 +120,8 @@ public class CryptoPriceServiceTest {
         mockPrices = new ArrayList<>();
         mockPrices.add(new CryptoPriceDto(1638326400000L, "BTC", new BigDecimal("59000.00")));
         mockPrices.add(new CryptoPriceDto(1638326400001L, "ETH", new BigDecimal("4500.00")));
+        lenient().when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
     }
 
@@ -101,24 +151,121 @@ public class CryptoPriceServiceTest {
 
     @Test
     public void testSaveCryptoPricesToDatabase_shouldSavePrices() throws Exception {
-        Method saveMethod = CryptoPriceService.class.getDeclaredMethod("saveCryptoPricesToDatabase", List.class);
+        Method saveMethod = CryptoPriceService.class.getDeclaredMethod("saveCryptoPricesToDatabase", PriceTickBatch.class);
+        saveMethod.setAccessible(true);
+        ReflectionTestUtils.setField(cryptoPriceService, "bulkInsert", false);
+        CryptoCurrency bitcoin = new CryptoCurrency();
+        bitcoin.setId(1L);
+        when(cryptoCurrencyDictionary.findId("BTC")).thenReturn(Optional.of(1L));
+        when(cryptoCurrencyDictionary.findId("ETH")).thenReturn(Optional.empty());
+        when(cryptoCurrencyRepository.getReferenceById(1L)).thenReturn(bitcoin);
+
+        Object written = saveMethod.invoke(cryptoPriceService, PriceTickBatch.of(mockPrices));
+
+        ArgumentCaptor<List<CryptoPrice>> saved = ArgumentCaptor.captor();
+        verify(cryptoPriceRepository, times(1)).saveAll(saved.capture());
+        assertEquals(1, written);
+        assertEquals(1, saved.getValue().size());
+        assertEquals(bitcoin, saved.getValue().getFirst().getCryptoCurrency());
+    }
+
+    @Test
+    public void testSaveCryptoPricesToDatabase_withStoredPrices_shouldSaveOnlyNewPrices() throws Exception {
+        Method saveMethod = CryptoPriceService.class.getDeclaredMethod("saveCryptoPricesToDatabase", PriceTickBatch.class);
+        saveMethod.setAccessible(true);
+        ReflectionTestUtils.setField(cryptoPriceService, "bulkInsert", false);
+        CryptoCurrency bitcoin = new CryptoCurrency();
+        bitcoin.setId(1L);
+        when(cryptoCurrencyDictionary.findId("BTC")).thenReturn(Optional.of(1L));
+        when(cryptoCurrencyRepository.getReferenceById(1L)).thenReturn(bitcoin);
+        when(cryptoPriceRepository.findEpochMillis(1L, 1638326400000L, 1638326400001L))
+                .thenReturn(List.of(1638326400000L));
+        PriceTickBatch prices = PriceTickBatch.of(List.of(
+                new CryptoPriceDto(1638326400000L, "BTC", new BigDecimal("59000.00")),
+                new CryptoPriceDto(1638326400001L, "BTC", new BigDecimal("59100.00")),
+                new CryptoPriceDto(1638326400001L, "BTC", new BigDecimal("59100.00"))));
+
+        Object written = saveMethod.invoke(cryptoPriceService, prices);
+
+        ArgumentCaptor<List<CryptoPrice>> saved = ArgumentCaptor.captor();
+        verify(cryptoPriceRepository, times(1)).saveAll(saved.capture());
+        assertEquals(1, written);
+        assertEquals(1, saved.getValue().size());
+        assertEquals(new BigDecimal("59100.00"), saved.getValue().getFirst().getPrice());
+    }
+
+    @Test
+    public void testSaveCryptoPricesToDatabase_withBulkInsert_shouldUseBulkRepository() throws Exception {
+        Method saveMethod = CryptoPriceService.class.getDeclaredMethod("saveCryptoPricesToDatabase", PriceTickBatch.class);
         saveMethod.setAccessible(true);
 
-        saveMethod.invoke(cryptoPriceService, mockPrices);
+        PriceTickBatch batch = PriceTickBatch.of(mockPrices);
 
-        verify(cryptoPriceRepository, times(1)).saveAll(anyList());
+        saveMethod.invoke(cryptoPriceService, batch);
+
+        verify(cryptoPriceBulkRepository, times(1)).insertAll(batch);
+        verify(cryptoPriceRepository, never()).saveAll(anyList());
+        verify(priceHeadTailRegistry).addAll(batch);
+    }
+
+    @Test
+    public void testSaveCryptoPricesToDatabase_withLeaderboard_shouldFeedLeaderboard() {
+        DailyRangeLeaderboardService leaderboardService = mock(DailyRangeLeaderboardService.class);
+        cryptoPriceService.setDailyRangeLeaderboardService(leaderboardService);
+        PriceTickBatch batch = PriceTickBatch.of(mockPrices);
+
+        cryptoPriceService.saveCryptoPricesToDatabase(batch);
+
+        verify(cryptoPriceBulkRepository).insertAll(batch);
+        verify(leaderboardService).addAll(batch);
+    }
+
+    @Test
+    public void testSaveCryptoPricesToDatabase_withDuplicates_shouldFeedOnlyInsertedPrices() {
+        DailyRangeLeaderboardService leaderboardService = mock(DailyRangeLeaderboardService.class);
+        InMemoryPriceStore inMemoryPriceStore = mock(InMemoryPriceStore.class);
+        PriceStatisticsStore priceStatisticsStore = mock(PriceStatisticsStore.class);
+        cryptoPriceService.setDailyRangeLeaderboardService(leaderboardService);
+        cryptoPriceService.setInMemoryPriceStore(inMemoryPriceStore);
+        cryptoPriceService.setPriceStatisticsStore(priceStatisticsStore);
+        PriceTickBatch batch = PriceTickBatch.of(mockPrices);
+        PriceTickBatch inserted = batch.select(new int[]{1}, 1);
+        when(cryptoPriceBulkRepository.insertAll(batch)).thenReturn(inserted);
+
+        int written = cryptoPriceService.saveCryptoPricesToDatabase(batch);
+
+        assertEquals(1, written);
+        verify(priceHeadTailRegistry).addAll(inserted);
+        verify(leaderboardService).addAll(inserted);
+        verify(inMemoryPriceStore).addAll(inserted);
+        verify(priceStatisticsStore).addAll(inserted);
+    }
+
+    @Test
+    public void testSaveCryptoPricesToDatabase_withInMemoryStore_shouldFeedStore() {
+        InMemoryPriceStore inMemoryPriceStore = mock(InMemoryPriceStore.class);
+        cryptoPriceService.setInMemoryPriceStore(inMemoryPriceStore);
+        PriceTickBatch batch = PriceTickBatch.of(mockPrices);
+
+        cryptoPriceService.saveCryptoPricesToDatabase(batch);
+
+        verify(cryptoPriceBulkRepository).insertAll(batch);
+        verify(inMemoryPriceStore).addAll(batch);
     }
 
     @Test
     public void testConvertToCryptoPriceEntity_shouldConvertDtoToEntity() throws Exception {
-        Method convertMethod = CryptoPriceService.class.getDeclaredMethod("convertToCryptoPriceEntity", CryptoPriceDto.class);
+        Method convertMethod = CryptoPriceService.class.getDeclaredMethod("convertToCryptoPriceEntity", CryptoPriceDto.class,
+                Long.class);
         convertMethod.setAccessible(true);
 
         CryptoPriceDto dto = mockPrices.getFirst();
+        CryptoCurrency bitcoin = new CryptoCurrency();
+        when(cryptoCurrencyRepository.getReferenceById(1L)).thenReturn(bitcoin);
 
-        CryptoPrice cryptoPrice = (CryptoPrice) convertMethod.invoke(cryptoPriceService, dto);
+        CryptoPrice cryptoPrice = (CryptoPrice) convertMethod.invoke(cryptoPriceService, dto, 1L);
 
-        assertNotNull(cryptoPrice);
+        assertEquals(bitcoin, cryptoPrice.getCryptoCurrency());
         assertEquals(dto.symbol(), cryptoPrice.getSymbol());
         assertEquals(dto.price(), cryptoPrice.getPrice());
         assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(dto.timestamp()), ZoneId.systemDefault()), cryptoPrice.getTimestamp());
@@ -153,11 +300,12 @@ public class CryptoPriceServiceTest {
 
     @Test
     public void testConvertToCryptoPriceEntity_withNullDto_shouldThrowException() throws Exception {
-        Method convertMethod = CryptoPriceService.class.getDeclaredMethod("convertToCryptoPriceEntity", CryptoPriceDto.class);
+        Method convertMethod = CryptoPriceService.class.getDeclaredMethod("convertToCryptoPriceEntity", CryptoPriceDto.class,
+                Long.class);
         convertMethod.setAccessible(true);
 
         Exception exception = assertThrows(InvocationTargetException.class, () -> {
-            convertMethod.invoke(cryptoPriceService, (CryptoPriceDto) null);
+            convertMethod.invoke(cryptoPriceService, null, 1L);
         });
 
         assertEquals("Cannot invoke \"org.task.crypto.dto.CryptoPriceDto.symbol()\" because \"dto\" is null", exception.getCause().getMessage());
@@ -179,10 +327,58 @@ public class CryptoPriceServiceTest {
 
     @Test
     void testLoadAllCsvFiles_saveCryptoPricesToDatabase_shouldSavePrices() throws Exception {
+        ReflectionTestUtils.setField(cryptoPriceService, "bulkInsert", false);
         cryptoPriceService.loadAllCsvFiles();
         verify(cryptoPriceRepository, times(2)).saveAll(anyList());
     }
 
+    @Test
+    void testStreamCryptoPrices_shouldHandOverChunksOfBatchSize() throws Exception {
+        ReflectionTestUtils.setField(cryptoPriceService, "batchSize", 2);
+        String csvContent = "timestamp,symbol,price\n1638326400000,BTC,59000.00\n1638326400001,BTC,59100.00\n"
+                + "1638326400002,BTC,59200.00\n1638326400003,BTC,59300.00\n1638326400004,BTC,59400.00";
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        long parsed = cryptoPriceService.streamCryptoPrices(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)),
+                chunk -> chunkSizes.add(chunk.size()));
+
+        assertEquals(5, parsed);
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+    }
+
+    @Test
+    void testLoadAllCsvFiles_withSmallBatchSize_shouldSaveEveryChunk() throws Exception {
+        ReflectionTestUtils.setField(cryptoPriceService, "batchSize", 2);
+
+        cryptoPriceService.loadAllCsvFiles();
+
+        verify(cryptoPriceBulkRepository, times(3)).insertAll(any(PriceTickBatch.class));
+    }
+
+    @Test
+    void testLoadAllCsvFiles_shouldReportResultPerFile() throws Exception {
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<FileIngestionResult> results = cryptoPriceService.loadAllCsvFiles();
+
+        assertEquals(2, results.size());
+        assertEquals(5, results.stream().mapToLong(FileIngestionResult::pricesParsed).sum());
+        assertEquals(5, results.stream().mapToLong(FileIngestionResult::pricesPersisted).sum());
+        assertTrue(results.stream().allMatch(result -> result.error() == null));
+    }
+
+    @Test
+    void testLoadAllCsvFiles_withFailingWriter_shouldReportErrorForFile() throws Exception {
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenThrow(new IllegalStateException("database unavailable"));
+
+        List<FileIngestionResult> results = cryptoPriceService.loadAllCsvFiles();
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(result -> "database unavailable".equals(result.error())));
+        assertTrue(results.stream().allMatch(result -> result.pricesPersisted() == 0));
+    }
+
     @Test
     void testLoadAllCsvFiles_withInvalidFiles() throws Exception {
         ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", INVALID_PRICES_DIRECTORY);
@@ -202,4 +398,233 @@ public class CryptoPriceServiceTest {
         assertNotNull(exception.getMessage());
         assertEquals("No content available in the CSV files.", exception.getMessage());
     }
+
+    @Test
+    void testLoadAllCsvFiles_withUnchangedFile_shouldSkipIt(@TempDir Path pricesDirectory) throws Exception {
+        Files.writeString(pricesDirectory.resolve("btc.csv"), "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        IngestionCheckpoint checkpoint = importAndCaptureCheckpoint();
+
+        when(checkpointRepository.findByFilePath("btc.csv")).thenReturn(Optional.of(checkpoint));
+        List<FileIngestionResult> results = cryptoPriceService.loadAllCsvFiles();
+
+        assertEquals(IngestionMode.UNCHANGED, results.getFirst().mode());
+        assertEquals(0, results.getFirst().pricesParsed());
+        verify(cryptoPriceBulkRepository, times(1)).insertAll(any(PriceTickBatch.class));
+    }
+
+    @Test
+    void testLoadAllCsvFiles_withAppendedFile_shouldParseOnlyTheTail(@TempDir Path pricesDirectory) throws Exception {
+        Path file = pricesDirectory.resolve("btc.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        IngestionCheckpoint checkpoint = importAndCaptureCheckpoint();
+        long firstOffset = checkpoint.getByteOffset();
+        List<CryptoPriceDto> imported = new ArrayList<>();
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> {
+            PriceTickBatch batch = invocation.getArgument(0);
+            imported.addAll(batch.toDtos());
+            return batch;
+        });
+
+        Files.writeString(file, "1641020400000,BTC,46979.61\n", StandardOpenOption.APPEND);
+        when(checkpointRepository.findByFilePath("btc.csv")).thenReturn(Optional.of(checkpoint));
+        List<FileIngestionResult> results = cryptoPriceService.loadAllCsvFiles();
+
+        assertEquals(IngestionMode.APPEND, results.getFirst().mode());
+        assertNull(results.getFirst().error());
+        assertEquals(List.of(new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61"))), imported);
+        assertEquals(Files.size(file), checkpoint.getByteOffset());
+        assertTrue(checkpoint.getByteOffset() > firstOffset);
+        assertEquals(1641020400000L, checkpoint.getLastTimestamp());
+    }
+
+    @Test
+    void testLoadAllCsvFiles_withTouchedFile_shouldKeepOffset(@TempDir Path pricesDirectory) throws Exception {
+        Path file = pricesDirectory.resolve("btc.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        IngestionCheckpoint checkpoint = importAndCaptureCheckpoint();
+        long offset = checkpoint.getByteOffset();
+        when(checkpointRepository.findByFilePath("btc.csv")).thenReturn(Optional.of(checkpoint));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(checkpoint.getFileModifiedAt() + 60_000));
+        List<FileIngestionResult> touched = cryptoPriceService.loadAllCsvFiles();
+        List<FileIngestionResult> again = cryptoPriceService.loadAllCsvFiles();
+
+        assertEquals(IngestionMode.UNCHANGED, touched.getFirst().mode());
+        assertEquals(IngestionMode.UNCHANGED, again.getFirst().mode());
+        assertEquals(0, again.getFirst().pricesParsed());
+        assertEquals(offset, checkpoint.getByteOffset());
+        verify(cryptoPriceBulkRepository, times(1)).insertAll(any(PriceTickBatch.class));
+    }
+
+    @Test
+    void testLoadCsvFile_withLineAppendedInParts_shouldImportItOnceComplete(@TempDir Path pricesDirectory)
+            throws Exception {
+        Path file = pricesDirectory.resolve("btc.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,4697");
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        List<CryptoPriceDto> imported = stubCollectingInsert();
+        ArgumentCaptor<IngestionCheckpoint> checkpointCaptor = ArgumentCaptor.forClass(IngestionCheckpoint.class);
+        cryptoPriceService.loadCsvFile(file, SETTLE_MILLIS);
+        verify(checkpointRepository).save(checkpointCaptor.capture());
+        IngestionCheckpoint checkpoint = checkpointCaptor.getValue();
+        assertEquals(List.of(new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21"))), imported);
+        assertEquals(Files.size(file) - "1641020400000,BTC,4697".length(), checkpoint.getByteOffset());
+
+        Files.writeString(file, "9.61\n", StandardOpenOption.APPEND);
+        when(checkpointRepository.findByFilePath("btc.csv")).thenReturn(Optional.of(checkpoint));
+        FileIngestionResult result = cryptoPriceService.loadCsvFile(file, SETTLE_MILLIS);
+
+        assertEquals(IngestionMode.APPEND, result.mode());
+        assertEquals(0, result.pricesRejected());
+        assertEquals(List.of(new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61"))), imported);
+        assertEquals(Files.size(file), checkpoint.getByteOffset());
+    }
+
+    @Test
+    void testLoadAllCsvFiles_withoutFinalLineBreak_shouldImportAllRows(@TempDir Path pricesDirectory) throws Exception {
+        Path file = pricesDirectory.resolve("btc.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61");
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        List<CryptoPriceDto> imported = stubCollectingInsert();
+
+        IngestionCheckpoint checkpoint = importAndCaptureCheckpoint();
+
+        assertEquals(List.of(new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61"))), imported);
+        assertEquals(Files.size(file), checkpoint.getByteOffset());
+    }
+
+    @Test
+    void testLoadCsvFile_withSettledFileWithoutFinalLineBreak_shouldImportAllRows(@TempDir Path pricesDirectory)
+            throws Exception {
+        Path file = pricesDirectory.resolve("btc.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 2 * SETTLE_MILLIS));
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        List<CryptoPriceDto> imported = stubCollectingInsert();
+
+        FileIngestionResult result = cryptoPriceService.loadCsvFile(file, SETTLE_MILLIS);
+
+        assertEquals(2, result.pricesParsed());
+        assertEquals(new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")), imported.getLast());
+    }
+
+    private List<CryptoPriceDto> stubCollectingInsert() {
+        List<CryptoPriceDto> imported = new ArrayList<>();
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> {
+            PriceTickBatch batch = invocation.getArgument(0);
+            imported.addAll(batch.toDtos());
+            return batch;
+        });
+        return imported;
+    }
+
+    @Test
+    void testLoadAllCsvFiles_withRewrittenFile_shouldImportFromTheStart(@TempDir Path pricesDirectory) throws Exception {
+        Path file = pricesDirectory.resolve("btc.csv");
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46813.21\n");
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        IngestionCheckpoint checkpoint = importAndCaptureCheckpoint();
+
+        Files.writeString(file, "timestamp,symbol,price\n1641009600000,BTC,46000.00\n1641020400000,BTC,46979.61\n");
+        when(checkpointRepository.findByFilePath("btc.csv")).thenReturn(Optional.of(checkpoint));
+        List<FileIngestionResult> results = cryptoPriceService.loadAllCsvFiles();
+
+        assertEquals(IngestionMode.FULL, results.getFirst().mode());
+        assertEquals(2, results.getFirst().pricesParsed());
+    }
+
+    private IngestionCheckpoint importAndCaptureCheckpoint() {
+        ArgumentCaptor<IngestionCheckpoint> checkpointCaptor = ArgumentCaptor.forClass(IngestionCheckpoint.class);
+        List<FileIngestionResult> results = cryptoPriceService.loadAllCsvFiles();
+        assertEquals(IngestionMode.FULL, results.getFirst().mode());
+        verify(checkpointRepository).save(checkpointCaptor.capture());
+        return checkpointCaptor.getValue();
+    }
+
+    @Test
+    void testImportCsvFile_shouldPersistAndCountRejectedRows(@TempDir Path directory) throws Exception {
+        Path upload = directory.resolve("upload.csv");
+        Files.writeString(upload, "timestamp,symbol,price\n1641009600000,BTC,46813.21\nbad,BTC,1\n1641020400000,BTC,46979.61\n");
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        IngestionProgress progress = new IngestionProgress();
+
+        FileIngestionResult result = cryptoPriceService.importCsvFile(upload, "BTC_values.csv", progress);
+
+        assertEquals("BTC_values.csv", result.fileName());
+        assertEquals(2, result.pricesParsed());
+        assertEquals(1, result.pricesRejected());
+        assertEquals(2, result.pricesPersisted());
+        assertEquals(2, progress.getPersisted());
+        assertEquals(1, progress.getRejected());
+        assertEquals(1641020400000L, progress.getLatestTimestamp());
+        verify(checkpointRepository, never()).save(any(IngestionCheckpoint.class));
+    }
+
+    @Test
+    void testLoadAllCsvFiles_withAppendedGzipMember_shouldParseOnlyTheTail(@TempDir Path pricesDirectory) throws Exception {
+        Path file = pricesDirectory.resolve("btc.csv.gz");
+        Files.write(file, gzip("timestamp,symbol,price\n1641009600000,BTC,46813.21\n"));
+        ReflectionTestUtils.setField(cryptoPriceService, "pricesDirectory", pricesDirectory.toString());
+        IngestionCheckpoint checkpoint = importAndCaptureCheckpoint();
+        List<CryptoPriceDto> imported = new ArrayList<>();
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> {
+            PriceTickBatch batch = invocation.getArgument(0);
+            imported.addAll(batch.toDtos());
+            return batch;
+        });
+
+        Files.write(file, gzip("1641020400000,BTC,46979.61\n"), StandardOpenOption.APPEND);
+        when(checkpointRepository.findByFilePath("btc.csv.gz")).thenReturn(Optional.of(checkpoint));
+        List<FileIngestionResult> results = cryptoPriceService.loadAllCsvFiles();
+
+        assertEquals(IngestionMode.APPEND, results.getFirst().mode());
+        assertNull(results.getFirst().error());
+        assertEquals(List.of(new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61"))), imported);
+        assertEquals(Files.size(file), checkpoint.getByteOffset());
+    }
+
+    @Test
+    void testImportCsvFile_withZstdUpload_shouldDecompressWhileParsing(@TempDir Path directory) throws Exception {
+        Path upload = directory.resolve("upload.csv");
+        Files.write(upload, Zstd.compress("timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n"
+                .getBytes(StandardCharsets.UTF_8)));
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        FileIngestionResult result = cryptoPriceService.importCsvFile(upload, "BTC_values.csv.zst", new IngestionProgress());
+
+        assertNull(result.error());
+        assertEquals(2, result.pricesParsed());
+        assertEquals(2, result.pricesPersisted());
+    }
+
+    @Test
+    void testImportCsvFiles_shouldImportEveryPartAndKeepOrder() {
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "BTC_values.csv", "text/csv",
+                        "timestamp,symbol,price\n1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61\n".getBytes(StandardCharsets.UTF_8)),
+                new MockMultipartFile("files", "ETH_values.csv", "text/csv",
+                        "timestamp,symbol,price\n1641009600000,ETH,3715.32\n".getBytes(StandardCharsets.UTF_8)));
+        IngestionProgress progress = new IngestionProgress();
+
+        List<FileIngestionResult> results = cryptoPriceService.importCsvFiles(files, progress);
+
+        assertEquals(List.of("BTC_values.csv", "ETH_values.csv"), results.stream().map(FileIngestionResult::fileName).toList());
+        assertEquals(2, results.get(0).pricesPersisted());
+        assertEquals(1, results.get(1).pricesPersisted());
+        assertEquals(3, progress.getPersisted());
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
 }
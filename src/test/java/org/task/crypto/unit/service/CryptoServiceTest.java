@@ -3,114 +3,156 @@ package org.task.crypto.unit.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.task.crypto.dto.CryptoRange;
+import org.task.crypto.dto.CurrencyPrice;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceStatistics;
 import org.task.crypto.exception.NoContentException;
 import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
 import org.task.crypto.repository.CryptoPriceRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
 import org.task.crypto.service.CryptoService;
+import org.task.crypto.service.DailyRangeLeaderboardService;
+import org.task.crypto.service.InMemoryPriceStore;
+import org.task.crypto.service.PriceRollupService;
+import org.task.crypto.service.PriceStatisticsStore;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Tag("unit")
 class CryptoServiceTest {
+    private static final Long BTC_ID = 1L;
+    private static final Long ETH_ID = 2L;
 
     @Mock
     private CryptoPriceRepository mockRepository;
 
-    @InjectMocks
+    @Mock
+    private CryptoCurrencyDictionary mockDictionary;
+
+    @Mock
+    private PriceStatisticsStore mockStatisticsStore;
+
+    @Mock
+    private PriceRollupService mockRollupService;
+
+    @Mock
+    private InMemoryPriceStore mockInMemoryStore;
+
+    @Mock
+    private DailyRangeLeaderboardService mockLeaderboardService;
+
     private CryptoService cryptoService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        cryptoService = new CryptoService(mockRepository, mockDictionary,
+                new PriceHeadTailRegistry(mockRepository, mockDictionary));
+        when(mockDictionary.findId("BTC")).thenReturn(Optional.of(BTC_ID));
+        when(mockDictionary.findId("ETH")).thenReturn(Optional.of(ETH_ID));
+        when(mockDictionary.findSymbol(BTC_ID)).thenReturn(Optional.of("BTC"));
+        when(mockDictionary.findSymbol(ETH_ID)).thenReturn(Optional.of("ETH"));
     }
 
     @Test
     void testGetCryptoPrices_symbolWithPrices_returnsPrices() {
         String symbol = "BTC";
         List<CryptoPrice> expectedPrices = Arrays.asList(new CryptoPrice(), new CryptoPrice());
-        when(mockRepository.findBySymbol(symbol)).thenReturn(expectedPrices);
+        when(mockRepository.findByCryptoCurrencyId(BTC_ID)).thenReturn(expectedPrices);
 
         List<CryptoPrice> result = cryptoService.getCryptoPrices(symbol);
 
         assertEquals(expectedPrices, result);
-        verify(mockRepository).findBySymbol(symbol);
+        verify(mockRepository).findByCryptoCurrencyId(BTC_ID);
     }
 
     @Test
     void testGetCryptoPrices_symbolWithNoPrices_returnsEmptyList() {
         String symbol = "BTC";
-        when(mockRepository.findBySymbol(symbol)).thenReturn(List.of());
+        when(mockRepository.findByCryptoCurrencyId(BTC_ID)).thenReturn(List.of());
 
         List<CryptoPrice> result = cryptoService.getCryptoPrices(symbol);
 
         assertTrue(result.isEmpty());
-        verify(mockRepository).findBySymbol(symbol);
+        verify(mockRepository).findByCryptoCurrencyId(BTC_ID);
     }
 
     @Test
     void testGetOldestPrice_noPrices_throwsException() {
         String symbol = "BTC";
-        when(mockRepository.findBySymbol(symbol)).thenReturn(List.of());
+        when(mockRepository.findFirstByCryptoCurrencyIdOrderByTimestampAsc(BTC_ID)).thenReturn(Optional.empty());
 
         assertThrows(NoContentException.class, () -> cryptoService.getOldestPrice(symbol));
-        verify(mockRepository).findBySymbol(symbol);
+        verify(mockRepository).findFirstByCryptoCurrencyIdOrderByTimestampAsc(BTC_ID);
     }
 
     @Test
-    void testGetNewestPrice_withMultiplePrices_returnsNewest() {
+    void testGetNewestPrice_returnsNewestFromRepository() {
         String symbol = "BTC";
-        CryptoPrice newest = new CryptoPrice();
-        newest.setTimestamp(LocalDateTime.now());
-
-        CryptoPrice anotherPrice = new CryptoPrice();
-        anotherPrice.setTimestamp(LocalDateTime.now().minusDays(1));
-
-        List<CryptoPrice> prices = List.of(anotherPrice, newest);
-        when(mockRepository.findBySymbol(symbol)).thenReturn(prices);
+        stubStoredEdges(BTC_ID, price(symbol, 1641009600000L, "46813.21"), price(symbol, 1641020400000L, "46979.61"));
 
         CryptoPrice result = cryptoService.getNewestPrice(symbol);
 
-        assertEquals(newest, result);
+        assertEquals(price(symbol, 1641020400000L, "46979.61"), result);
+        verify(mockRepository, never()).findByCryptoCurrencyId(BTC_ID);
     }
 
     @Test
-    void testGetOldestPrice_withMultiplePrices_returnsOldest() {
+    void testGetOldestPrice_returnsOldestFromRepository() {
         String symbol = "BTC";
-        CryptoPrice oldest = new CryptoPrice();
-        oldest.setTimestamp(LocalDateTime.now().minusDays(5));
+        stubStoredEdges(BTC_ID, price(symbol, 1641009600000L, "46813.21"), price(symbol, 1641020400000L, "46979.61"));
 
-        CryptoPrice anotherPrice = new CryptoPrice();
-        anotherPrice.setTimestamp(LocalDateTime.now().minusDays(2));
+        CryptoPrice result = cryptoService.getOldestPrice(symbol);
 
-        List<CryptoPrice> prices = List.of(oldest, anotherPrice);
-        when(mockRepository.findBySymbol(symbol)).thenReturn(prices);
+        assertEquals(price(symbol, 1641009600000L, "46813.21"), result);
+        verify(mockRepository).findFirstByCryptoCurrencyIdOrderByTimestampAsc(BTC_ID);
+    }
 
-        CryptoPrice result = cryptoService.getOldestPrice(symbol);
+    @Test
+    void testGetOldestAndNewestPrice_repeatedReads_queryRepositoryOnce() {
+        String symbol = "BTC";
+        stubStoredEdges(BTC_ID, price(symbol, 1641009600000L, "46813.21"), price(symbol, 1641020400000L, "46979.61"));
 
-        assertEquals(oldest, result);
-        verify(mockRepository).findBySymbol(symbol);
+        cryptoService.getOldestPrice(symbol);
+        cryptoService.getNewestPrice(symbol);
+        cryptoService.getNewestPrice(symbol);
+
+        verify(mockRepository, times(1)).findFirstByCryptoCurrencyIdOrderByTimestampAsc(BTC_ID);
+        verify(mockRepository, times(1)).findFirstByCryptoCurrencyIdOrderByTimestampDesc(BTC_ID);
     }
 
     @Test
     void testGetMaxPrice_noPricesInDuration_returnsZero() {
         String symbol = "BTC";
-        when(mockRepository.findBySymbolAndTimestampBetween(eq(symbol), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(List.of());
+        when(mockRepository.findPriceBounds(eq(BTC_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(new PriceBounds(null, null));
 
         BigDecimal result = cryptoService.getMaxPrice(symbol, 12);
 
@@ -120,17 +162,8 @@ class CryptoServiceTest {
     @Test
     void testGetMaxPrice_withPrices_returnsMax() {
         String symbol = "BTC";
-        CryptoPrice price1 = new CryptoPrice();
-        price1.setPrice(new BigDecimal("10000"));
-        price1.setTimestamp(LocalDateTime.now().minusMonths(2));
-
-        CryptoPrice price2 = new CryptoPrice();
-        price2.setPrice(new BigDecimal("20000"));
-        price2.setTimestamp(LocalDateTime.now().minusMonths(1));
-
-        List<CryptoPrice> prices = List.of(price1, price2);
-        when(mockRepository.findBySymbolAndTimestampBetween(eq(symbol), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(prices);
+        when(mockRepository.findPriceBounds(eq(BTC_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(new PriceBounds(new BigDecimal("10000"), new BigDecimal("20000")));
 
         BigDecimal result = cryptoService.getMaxPrice(symbol, 12);
 
@@ -140,17 +173,8 @@ class CryptoServiceTest {
     @Test
     void testGetMinPrice_withPrices_returnsMin() {
         String symbol = "BTC";
-        CryptoPrice price1 = new CryptoPrice();
-        price1.setPrice(new BigDecimal("10000"));
-        price1.setTimestamp(LocalDateTime.now().minusMonths(2));
-
-        CryptoPrice price2 = new CryptoPrice();
-        price2.setPrice(new BigDecimal("5000"));
-        price2.setTimestamp(LocalDateTime.now().minusMonths(1));
-
-        List<CryptoPrice> prices = List.of(price1, price2);
-        when(mockRepository.findBySymbolAndTimestampBetween(eq(symbol), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(prices);
+        when(mockRepository.findPriceBounds(eq(BTC_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(new PriceBounds(new BigDecimal("5000"), new BigDecimal("10000")));
 
         BigDecimal result = cryptoService.getMinPrice(symbol, 12);
 
@@ -162,8 +186,8 @@ class CryptoServiceTest {
         String symbol = "BTC";
         LocalDateTime start = LocalDateTime.now().minusMonths(1);
         LocalDateTime end = LocalDateTime.now();
-        when(mockRepository.findBySymbolAndTimestampBetween(eq(symbol), eq(start), eq(end)))
-                .thenReturn(List.of());
+        when(mockRepository.findPriceBounds(eq(BTC_ID), eq(start), eq(end)))
+                .thenReturn(new PriceBounds(null, null));
 
         assertThrows(NoContentException.class, () -> cryptoService.calculateNormalizedRange(symbol, start, end));
     }
@@ -173,18 +197,8 @@ class CryptoServiceTest {
         String symbol = "BTC";
         LocalDateTime start = LocalDateTime.now().minusMonths(1);
         LocalDateTime end = LocalDateTime.now();
-
-        CryptoPrice price1 = new CryptoPrice();
-        price1.setPrice(new BigDecimal("10000"));
-        price1.setTimestamp(LocalDateTime.now().minusWeeks(3));
-
-        CryptoPrice price2 = new CryptoPrice();
-        price2.setPrice(new BigDecimal("5000"));
-        price2.setTimestamp(LocalDateTime.now().minusWeeks(1));
-
-        List<CryptoPrice> prices = List.of(price1, price2);
-        when(mockRepository.findBySymbolAndTimestampBetween(eq(symbol), eq(start), eq(end)))
-                .thenReturn(prices);
+        when(mockRepository.findPriceBounds(eq(BTC_ID), eq(start), eq(end)))
+                .thenReturn(new PriceBounds(new BigDecimal("5000"), new BigDecimal("10000")));
 
         BigDecimal result = cryptoService.calculateNormalizedRange(symbol, start, end);
 
@@ -195,64 +209,249 @@ class CryptoServiceTest {
     void testGetCryptosSortedByNormalizedRange_withMultipleSymbols_returnsSortedList() {
         LocalDateTime start = LocalDateTime.now().minusMonths(1);
         LocalDateTime end = LocalDateTime.now();
+        when(mockRepository.streamByTimestampBetween(eq(start), eq(end))).thenReturn(Stream.of(
+                new CurrencyPrice(BTC_ID, 1641009601000L, 10000_00000000L),
+                new CurrencyPrice(ETH_ID, 1641009602000L, 2000_00000000L),
+                new CurrencyPrice(BTC_ID, 1641009603000L, 5000_00000000L),
+                new CurrencyPrice(ETH_ID, 1641009604000L, 1500_00000000L)));
 
-        CryptoPrice btcPrice1 = new CryptoPrice();
-        btcPrice1.setPrice(new BigDecimal("10000"));
-        btcPrice1.setTimestamp(LocalDateTime.now().minusWeeks(3));
-        btcPrice1.setSymbol("BTC");
+        List<CryptoRange> result = cryptoService.getCryptosSortedByNormalizedRange(start, end);
 
-        CryptoPrice btcPrice2 = new CryptoPrice();
-        btcPrice2.setPrice(new BigDecimal("5000"));
-        btcPrice2.setTimestamp(LocalDateTime.now().minusWeeks(1));
-        btcPrice2.setSymbol("BTC");
+        assertEquals(List.of(new CryptoRange("BTC", new BigDecimal("1.00")), new CryptoRange("ETH", new BigDecimal("0.33"))),
+                result);
+    }
 
-        CryptoPrice ethPrice1 = new CryptoPrice();
-        ethPrice1.setPrice(new BigDecimal("2000"));
-        ethPrice1.setTimestamp(LocalDateTime.now().minusWeeks(2));
-        ethPrice1.setSymbol("ETH");
+    @Test
+    void testGetCryptoWithHighestNormalizedRange_returnsCryptoWithHighestRange() {
+        LocalDateTime day = LocalDateTime.now().minusDays(1);
+        CryptoPrice oldestBtcPrice = price("BTC", 1641009605000L, "10000");
+        when(mockRepository.streamByTimestampBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Stream.of(
+                        new CurrencyPrice(BTC_ID, 1641009605000L, 10000_00000000L),
+                        new CurrencyPrice(BTC_ID, 1641009606000L, 5000_00000000L),
+                        new CurrencyPrice(ETH_ID, 1641009607000L, 2000_00000000L),
+                        new CurrencyPrice(ETH_ID, 1641009608000L, 1900_00000000L)));
+        stubStoredEdges(BTC_ID, oldestBtcPrice, price("BTC", 1641009606000L, "5000"));
 
-        CryptoPrice ethPrice2 = new CryptoPrice();
-        ethPrice2.setPrice(new BigDecimal("1500"));
-        ethPrice2.setTimestamp(LocalDateTime.now().minusWeeks(1));
-        ethPrice2.setSymbol("ETH");
+        CryptoPrice result = cryptoService.getCryptoWithHighestNormalizedRange(day);
 
-        List<CryptoPrice> allPrices = List.of(btcPrice1, btcPrice2, ethPrice1, ethPrice2);
+        assertEquals(oldestBtcPrice, result);
+        verify(mockRepository).streamByTimestampBetween(day.toLocalDate().atStartOfDay(),
+                day.toLocalDate().atStartOfDay().plusDays(1).minusNanos(1));
+    }
 
-        when(mockRepository.findByTimestampBetween(eq(start), eq(end))).thenReturn(allPrices);
+    @Test
+    void testGetCryptoWithHighestNormalizedRange_withLeaderboard_skipsTicks() {
+        LocalDateTime day = LocalDateTime.of(2022, 1, 2, 15, 30);
+        CryptoPrice oldestEthPrice = price("ETH", 1641009600000L, "3700");
+        when(mockLeaderboardService.findHighestNormalizedRange(LocalDate.of(2022, 1, 2))).thenReturn(Optional.of("ETH"));
+        stubStoredEdges(ETH_ID, oldestEthPrice, price("ETH", 1641020400000L, "3800"));
+        cryptoService.setDailyRangeLeaderboardService(mockLeaderboardService);
+
+        assertEquals(oldestEthPrice, cryptoService.getCryptoWithHighestNormalizedRange(day));
+        verify(mockRepository, never()).streamByTimestampBetween(any(), any());
+    }
 
-        List<CryptoRange> result = cryptoService.getCryptosSortedByNormalizedRange(start, end);
+    @Test
+    void testGetCryptoWithHighestNormalizedRange_withLeaderboard_noPrices_throwsException() {
+        when(mockLeaderboardService.findHighestNormalizedRange(any())).thenReturn(Optional.empty());
+        cryptoService.setDailyRangeLeaderboardService(mockLeaderboardService);
+
+        assertThrows(NoContentException.class,
+                () -> cryptoService.getCryptoWithHighestNormalizedRange(LocalDateTime.now()));
+    }
 
-        assertEquals(2, result.size());
+    @Test
+    void testGetCryptoWithHighestNormalizedRange_noPrices_throwsException() {
+        when(mockRepository.streamByTimestampBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Stream.empty());
 
-        assertTrue(result.get(0).normalizedRange().compareTo(result.get(1).normalizedRange()) > 0);
+        assertThrows(NoContentException.class,
+                () -> cryptoService.getCryptoWithHighestNormalizedRange(LocalDateTime.now()));
     }
 
     @Test
-    void testGetCryptoWithHighestNormalizedRange_returnsCryptoWithHighestRange() {
-        LocalDateTime day = LocalDateTime.now().minusDays(1);
+    void testGetOldestAndNewestPrice_withStatistics_readsStoredEdges() {
+        String symbol = "BTC";
+        stubStoredEdges(BTC_ID, price(symbol, 1641009600000L, "46813.21"), price(symbol, 1641020400000L, "46979.61"));
+        cryptoService.setPriceStatisticsStore(mockStatisticsStore);
+
+        CryptoPrice oldest = cryptoService.getOldestPrice(symbol);
+        CryptoPrice newest = cryptoService.getNewestPrice(symbol);
 
-        CryptoPrice btcPrice1 = new CryptoPrice();
-        btcPrice1.setPrice(new BigDecimal("10000"));
-        btcPrice1.setTimestamp(LocalDateTime.now().minusDays(1).minusHours(2));
-        btcPrice1.setSymbol("BTC");
+        assertEquals(price(symbol, 1641009600000L, "46813.21"), oldest);
+        assertEquals(price(symbol, 1641020400000L, "46979.61"), newest);
+        verify(mockStatisticsStore, never()).getStatistics(symbol);
+    }
 
-        CryptoPrice btcPrice2 = new CryptoPrice();
-        btcPrice2.setPrice(new BigDecimal("5000"));
-        btcPrice2.setTimestamp(LocalDateTime.now().minusDays(1).minusHours(1));
-        btcPrice2.setSymbol("BTC");
+    @Test
+    void testGetMinAndMaxPrice_withStatistics_skipsRepository() {
+        String symbol = "BTC";
+        long oldest = epochMilli(LocalDateTime.now().minusYears(2));
+        stubStoredEdges(BTC_ID, price(symbol, oldest, "46813.21"), price(symbol, oldest + 1, "46979.61"));
+        PriceStatistics lifetime = new PriceStatistics(4, oldest, new BigDecimal("46813.21"), oldest + 1,
+                new BigDecimal("5"), new BigDecimal("5"), new BigDecimal("46813.21"));
+        PriceStatistics statistics = new PriceStatistics(2, 1, new BigDecimal("10"), 2, new BigDecimal("5"),
+                new BigDecimal("5"), new BigDecimal("10"));
+        when(mockStatisticsStore.getStatistics(symbol)).thenReturn(Optional.of(lifetime));
+        when(mockStatisticsStore.getStatistics(eq(symbol), any(LocalDate.class), eq(LocalDate.now())))
+                .thenReturn(Optional.of(statistics));
+        cryptoService.setPriceStatisticsStore(mockStatisticsStore);
+
+        assertEquals(new BigDecimal("5"), cryptoService.getMinPrice(symbol, 3));
+        assertEquals(new BigDecimal("10"), cryptoService.getMaxPrice(symbol, 3));
+        verify(mockStatisticsStore, times(2)).getStatistics(symbol, LocalDate.now().minusMonths(3), LocalDate.now());
+        verify(mockRepository, never()).findPriceBounds(any(), any(), any());
+    }
 
-        List<CryptoPrice> allPrices = List.of(btcPrice1, btcPrice2);
+    @Test
+    void testGetMaxPrice_statisticsMissingOlderStoredPrices_fallsBackToRepository() {
+        String symbol = "BTC";
+        long oldest = epochMilli(LocalDateTime.now().minusYears(2));
+        stubStoredEdges(BTC_ID, price(symbol, oldest, "46813.21"), price(symbol, oldest + 1, "46979.61"));
+        PriceStatistics lifetime = new PriceStatistics(1, oldest + 1, new BigDecimal("46979.61"), oldest + 1,
+                new BigDecimal("46979.61"), new BigDecimal("46979.61"), new BigDecimal("46979.61"));
+        when(mockStatisticsStore.getStatistics(symbol)).thenReturn(Optional.of(lifetime));
+        when(mockRepository.findPriceBounds(eq(BTC_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(new PriceBounds(new BigDecimal("10000"), new BigDecimal("20000")));
+        cryptoService.setPriceStatisticsStore(mockStatisticsStore);
+
+        assertEquals(new BigDecimal("20000"), cryptoService.getMaxPrice(symbol, 1));
+        verify(mockStatisticsStore, never()).getStatistics(eq(symbol), any(), any());
+    }
 
-        when(mockRepository.findByTimestampBetween(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(allPrices);
+    @Test
+    void testGetMinPrice_withStatisticsOfDroppedMonths_startsAtOldestStoredDay() {
+        String symbol = "BTC";
+        LocalDateTime oldestStored = LocalDateTime.now().minusDays(10);
+        long oldest = epochMilli(oldestStored);
+        stubStoredEdges(BTC_ID, price(symbol, oldest, "46813.21"), price(symbol, oldest + 1, "46979.61"));
+        PriceStatistics lifetime = new PriceStatistics(3, epochMilli(LocalDateTime.now().minusYears(1)),
+                new BigDecimal("1"), oldest + 1, new BigDecimal("46979.61"), new BigDecimal("1"),
+                new BigDecimal("46979.61"));
+        PriceStatistics statistics = new PriceStatistics(2, oldest, new BigDecimal("46813.21"), oldest + 1,
+                new BigDecimal("46979.61"), new BigDecimal("46813.21"), new BigDecimal("46979.61"));
+        when(mockStatisticsStore.getStatistics(symbol)).thenReturn(Optional.of(lifetime));
+        when(mockStatisticsStore.getStatistics(symbol, oldestStored.toLocalDate(), LocalDate.now()))
+                .thenReturn(Optional.of(statistics));
+        cryptoService.setPriceStatisticsStore(mockStatisticsStore);
+
+        assertEquals(new BigDecimal("46813.21"), cryptoService.getMinPrice(symbol, 3));
+    }
 
-        when(mockRepository.findBySymbol(eq("BTC"))).thenReturn(List.of(btcPrice1, btcPrice2));
+    @Test
+    void testGetMaxPrice_statisticsUnavailable_fallsBackToRepository() {
+        String symbol = "BTC";
+        when(mockStatisticsStore.getStatistics(eq(symbol), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Optional.empty());
+        when(mockRepository.findPriceBounds(eq(BTC_ID), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(new PriceBounds(new BigDecimal("10000"), new BigDecimal("20000")));
+        cryptoService.setPriceStatisticsStore(mockStatisticsStore);
 
-        CryptoPrice result = cryptoService.getCryptoWithHighestNormalizedRange(day);
+        assertEquals(new BigDecimal("20000"), cryptoService.getMaxPrice(symbol, 1));
+    }
 
-        assertEquals(btcPrice1, result);
+    @Test
+    void testCalculateNormalizedRange_withRollups_skipsRawTicks() {
+        String symbol = "BTC";
+        LocalDateTime start = LocalDateTime.now().minusMonths(12);
+        LocalDateTime end = LocalDateTime.now();
+        when(mockRollupService.getPriceBounds(symbol, start, end))
+                .thenReturn(new PriceBounds(new BigDecimal("5000"), new BigDecimal("10000")));
+        cryptoService.setPriceRollupService(mockRollupService);
 
-        verify(mockRepository).findByTimestampBetween(any(LocalDateTime.class), any(LocalDateTime.class));
+        assertEquals(new BigDecimal("1"), cryptoService.calculateNormalizedRange(symbol, start, end));
+        verify(mockRepository, never()).findPriceBounds(any(), any(), any());
     }
 
-}
\ No newline at end of file
+    @Test
+    void testGetCryptosSortedByNormalizedRange_withLoadedInMemoryStore_skipsDatabase() {
+        LocalDateTime start = LocalDateTime.now().minusMonths(1);
+        LocalDateTime end = LocalDateTime.now();
+        when(mockInMemoryStore.isLoaded()).thenReturn(true);
+        when(mockInMemoryStore.getSymbols()).thenReturn(Set.of("BTC", "ETH", "XRP"));
+        when(mockInMemoryStore.getPriceBounds("BTC", start, end))
+                .thenReturn(new PriceBounds(new BigDecimal("5000"), new BigDecimal("10000")));
+        when(mockInMemoryStore.getPriceBounds("ETH", start, end))
+                .thenReturn(new PriceBounds(new BigDecimal("1000"), new BigDecimal("4000")));
+        when(mockInMemoryStore.getPriceBounds("XRP", start, end)).thenReturn(PriceBounds.EMPTY);
+        cryptoService.setInMemoryPriceStore(mockInMemoryStore);
+
+        List<CryptoRange> result = cryptoService.getCryptosSortedByNormalizedRange(start, end);
+
+        assertEquals(List.of(new CryptoRange("ETH", new BigDecimal("3")), new CryptoRange("BTC", new BigDecimal("1"))),
+                result);
+        verify(mockRepository, never()).streamByTimestampBetween(any(), any());
+    }
+
+    @Test
+    void testGetCryptosSortedByNormalizedRange_withRankingPool_ranksCurrenciesOnPool() {
+        LocalDateTime start = LocalDateTime.now().minusMonths(1);
+        LocalDateTime end = LocalDateTime.now();
+        Set<String> symbols = new HashSet<>();
+        Set<Thread> rankingThreads = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 100; i++) {
+            String symbol = "S" + i;
+            symbols.add(symbol);
+            PriceBounds bounds = new PriceBounds(new BigDecimal("100"), new BigDecimal(100 + i * 100));
+            when(mockInMemoryStore.getPriceBounds(symbol, start, end)).thenAnswer(invocation -> {
+                rankingThreads.add(Thread.currentThread());
+                return bounds;
+            });
+        }
+        when(mockInMemoryStore.isLoaded()).thenReturn(true);
+        when(mockInMemoryStore.getSymbols()).thenReturn(symbols);
+        cryptoService.setInMemoryPriceStore(mockInMemoryStore);
+
+        List<CryptoRange> result;
+        try (ForkJoinPool rankingPool = new ForkJoinPool(4)) {
+            cryptoService.setRankingPool(rankingPool);
+            result = cryptoService.getCryptosSortedByNormalizedRange(start, end);
+        }
+
+        List<CryptoRange> expected = IntStream.iterate(99, i -> i >= 0, i -> i - 1)
+                .mapToObj(i -> new CryptoRange("S" + i, new BigDecimal(i)))
+                .toList();
+        assertEquals(expected, result);
+        assertFalse(rankingThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    void testGetMaxPrice_withLoadedInMemoryStore_skipsStatisticsAndDatabase() {
+        String symbol = "BTC";
+        when(mockInMemoryStore.isLoaded()).thenReturn(true);
+        when(mockInMemoryStore.getPriceBounds(eq(symbol), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(new PriceBounds(new BigDecimal("5000"), new BigDecimal("10000")));
+        cryptoService.setInMemoryPriceStore(mockInMemoryStore);
+        cryptoService.setPriceStatisticsStore(mockStatisticsStore);
+
+        assertEquals(new BigDecimal("10000"), cryptoService.getMaxPrice(symbol, 12));
+        verify(mockStatisticsStore, never()).getStatistics(any(), any(), any());
+        verify(mockRepository, never()).findPriceBounds(any(), any(), any());
+    }
+
+    @Test
+    void testGetOldestPrice_unknownSymbol_throwsWithoutQueryingPrices() {
+        when(mockDictionary.findId("XYZ")).thenReturn(Optional.empty());
+
+        assertThrows(NoContentException.class, () -> cryptoService.getOldestPrice("XYZ"));
+        verify(mockRepository, never()).findFirstByCryptoCurrencyIdOrderByTimestampAsc(any());
+    }
+
+    private void stubStoredEdges(Long cryptoCurrencyId, CryptoPrice oldest, CryptoPrice newest) {
+        when(mockRepository.findFirstByCryptoCurrencyIdOrderByTimestampAsc(cryptoCurrencyId)).thenReturn(Optional.of(oldest));
+        when(mockRepository.findFirstByCryptoCurrencyIdOrderByTimestampDesc(cryptoCurrencyId)).thenReturn(Optional.of(newest));
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static CryptoPrice price(String symbol, long timestamp, String price) {
+        CryptoPrice cryptoPrice = new CryptoPrice();
+        cryptoPrice.setSymbol(symbol);
+        cryptoPrice.setPrice(new BigDecimal(price));
+        cryptoPrice.setTimestampFromEpochMilli(timestamp);
+        return cryptoPrice;
+    }
+}
@@ -0,0 +1,104 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.DailyPriceRange;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.DailyPriceRangeRepository;
+import org.task.crypto.service.DailyRangeLeaderboardService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class DailyRangeLeaderboardServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2022, 1, 2);
+
+    @Mock
+    private DailyPriceRangeRepository dailyPriceRangeRepository;
+
+    @Mock
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    @Captor
+    private ArgumentCaptor<Collection<DailyPriceRange>> ranges;
+
+    @InjectMocks
+    private DailyRangeLeaderboardService dailyRangeLeaderboardService;
+
+    @Test
+    void testAddAll_shouldFoldTicksPerLocalDayAndCurrency() {
+        when(cryptoCurrencyDictionary.findId("BTC")).thenReturn(Optional.of(1L));
+        when(cryptoCurrencyDictionary.findId("XYZ")).thenReturn(Optional.empty());
+        PriceTickBatch batch = new PriceTickBatch(5);
+        batch.add(epochMilli(DAY.atTime(23, 59, 59)), "BTC", new BigDecimal("40"));
+        batch.add(epochMilli(DAY.atStartOfDay()), "BTC", new BigDecimal("50"));
+        batch.add(epochMilli(DAY.plusDays(1).atStartOfDay()), "BTC", new BigDecimal("10"));
+        batch.add(epochMilli(DAY.atTime(12, 0)), "XYZ", new BigDecimal("1"));
+        batch.add(epochMilli(DAY.atTime(12, 0)), "BTC", new BigDecimal("45"));
+
+        dailyRangeLeaderboardService.addAll(batch);
+
+        verify(dailyPriceRangeRepository).addRanges(ranges.capture());
+        List<DailyPriceRange> folded = ranges.getValue().stream()
+                .sorted(Comparator.comparing(DailyPriceRange::getTradingDay))
+                .toList();
+        assertEquals(2, folded.size());
+        assertEquals(DAY, folded.get(0).getTradingDay());
+        assertEquals(1L, folded.get(0).getCryptoCurrencyId());
+        assertEquals(4_000_000_000L, folded.get(0).getLowPrice());
+        assertEquals(5_000_000_000L, folded.get(0).getHighPrice());
+        assertEquals(DAY.plusDays(1), folded.get(1).getTradingDay());
+        assertEquals(1_000_000_000L, folded.get(1).getLowPrice());
+    }
+
+    @Test
+    void testFindHighestNormalizedRange_shouldRankWithDecimalsAndResolveSymbol() {
+        when(dailyPriceRangeRepository.findRanges(DAY)).thenReturn(List.of(
+                range(1L, 4_000_000_000_000L, 5_000_000_000_000L),
+                range(2L, 300_000_000_000L, 450_000_000_000L),
+                range(3L, 100_000_000L, 150_000_000L)));
+        when(cryptoCurrencyDictionary.findSymbol(2L)).thenReturn(Optional.of("ETH"));
+        when(dailyPriceRangeRepository.findRanges(DAY.plusDays(1))).thenReturn(List.of());
+
+        assertEquals(Optional.of("ETH"), dailyRangeLeaderboardService.findHighestNormalizedRange(DAY));
+        assertTrue(dailyRangeLeaderboardService.findHighestNormalizedRange(DAY.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void testEvictBefore_shouldDeleteDaysBeforeTheMonth() {
+        dailyRangeLeaderboardService.evictBefore(YearMonth.of(2022, 2));
+
+        verify(dailyPriceRangeRepository).deleteBefore(LocalDate.of(2022, 2, 1));
+    }
+
+    private static DailyPriceRange range(long cryptoCurrencyId, long low, long high) {
+        DailyPriceRange range = DailyPriceRange.of(DAY, cryptoCurrencyId, low);
+        range.add(high);
+        return range;
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
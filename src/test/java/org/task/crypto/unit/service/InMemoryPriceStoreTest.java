@@ -0,0 +1,187 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.model.CryptoCurrency;
+import org.task.crypto.model.CryptoPrice;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
+import org.task.crypto.service.InMemoryPriceStore;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class InMemoryPriceStoreTest {
+
+    @Mock
+    private CryptoPriceBulkRepository cryptoPriceBulkRepository;
+
+    @Mock
+    private CryptoCurrencyRepository cryptoCurrencyRepository;
+
+    @Mock
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    @InjectMocks
+    private InMemoryPriceStore inMemoryPriceStore;
+
+    @TempDir
+    private Path segmentsDirectory;
+
+    @Test
+    void testLoad_shouldServeStoredPrices() {
+        when(cryptoCurrencyRepository.findAll()).thenReturn(List.of(currency("BTC")));
+        stubStoredPrices(List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61")),
+                new CryptoPriceDto(1641031200000L, "BTC", new BigDecimal("47000"))));
+
+        assertFalse(inMemoryPriceStore.isLoaded());
+        inMemoryPriceStore.load();
+
+        assertTrue(inMemoryPriceStore.isLoaded());
+        CryptoPrice oldest = inMemoryPriceStore.getOldestPrice("BTC").orElseThrow();
+        assertEquals(new BigDecimal("46813.21"), oldest.getPrice());
+        assertEquals(toLocalDateTime(1641009600000L), oldest.getTimestamp());
+        assertEquals(new BigDecimal("47000.00"), inMemoryPriceStore.getNewestPrice("BTC").orElseThrow().getPrice());
+        assertEquals(new PriceBounds(new BigDecimal("46813.21"), new BigDecimal("46979.61")),
+                inMemoryPriceStore.getPriceBounds("BTC", toLocalDateTime(1641009600000L),
+                        toLocalDateTime(1641020400000L)));
+        assertEquals(PriceBounds.EMPTY, inMemoryPriceStore.getPriceBounds("ETH", toLocalDateTime(0),
+                toLocalDateTime(1641031200000L)));
+    }
+
+    @Test
+    void testAddAll_shouldRegisterKnownSymbolsAndIgnoreUnknownOnes() {
+        when(cryptoCurrencyDictionary.findId("ETH")).thenReturn(Optional.of(2L));
+        when(cryptoCurrencyDictionary.findId("XYZ")).thenReturn(Optional.empty());
+
+        inMemoryPriceStore.addAll(PriceTickBatch.of(List.of(
+                new CryptoPriceDto(1641009600000L, "ETH", new BigDecimal("3715.32")),
+                new CryptoPriceDto(1641009600000L, "XYZ", new BigDecimal("1.00")),
+                new CryptoPriceDto(1641020400000L, "ETH", new BigDecimal("3718.67")))));
+
+        assertEquals(new BigDecimal("3718.67"), inMemoryPriceStore.getNewestPrice("ETH").orElseThrow().getPrice());
+        assertTrue(inMemoryPriceStore.getOldestPrice("XYZ").isEmpty());
+        assertEquals(1, inMemoryPriceStore.getSymbols().size());
+        verify(cryptoCurrencyRepository, never()).findBySymbol(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubStoredPrices(List<CryptoPriceDto> prices) {
+        doAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            invocation.getArgument(2, Consumer.class).accept(PriceTickBatch.of(
+                    prices.stream().filter(price -> price.timestamp() >= from).toList()));
+            return null;
+        }).when(cryptoPriceBulkRepository).forEachBatch(anyLong(), anyInt(), any());
+    }
+
+    private static CryptoCurrency currency(String symbol) {
+        CryptoCurrency cryptoCurrency = new CryptoCurrency();
+        cryptoCurrency.setSymbol(symbol);
+        return cryptoCurrency;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+
+    @Test
+    void testRestart_afterCleanShutdown_shouldMapSegmentsAndOnlyLoadTicksAfterThem() {
+        long currentMonth = YearMonth.now(ZoneOffset.UTC).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        List<CryptoPriceDto> stored = List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1643702400000L, "BTC", new BigDecimal("38000.50")),
+                new CryptoPriceDto(currentMonth + 1_000, "BTC", new BigDecimal("60000")));
+        when(cryptoCurrencyRepository.findAll()).thenReturn(List.of(currency("BTC")));
+        stubStoredPrices(stored);
+        ReflectionTestUtils.setField(inMemoryPriceStore, "segmentsDirectory", segmentsDirectory.toString());
+        inMemoryPriceStore.load();
+        inMemoryPriceStore.shutdown();
+
+        assertTrue(Files.exists(segmentsDirectory.resolve("BTC").resolve("2022-01.seg")));
+        assertTrue(Files.exists(segmentsDirectory.resolve("BTC").resolve("2022-02.seg")));
+
+        InMemoryPriceStore restarted = new InMemoryPriceStore(cryptoPriceBulkRepository, cryptoCurrencyRepository,
+                cryptoCurrencyDictionary);
+        ReflectionTestUtils.setField(restarted, "segmentsDirectory", segmentsDirectory.toString());
+        restarted.load();
+
+        verify(cryptoPriceBulkRepository).forEachBatch(eq(1646092800000L), anyInt(), any());
+        assertEquals(new BigDecimal("46813.21"), restarted.getOldestPrice("BTC").orElseThrow().getPrice());
+        assertEquals(new BigDecimal("60000.00"), restarted.getNewestPrice("BTC").orElseThrow().getPrice());
+        assertEquals(new PriceBounds(new BigDecimal("38000.50"), new BigDecimal("60000.00")),
+                restarted.getPriceBounds("BTC", toLocalDateTime(1641009600001L), toLocalDateTime(currentMonth + 1_000)));
+        assertFalse(Files.exists(segmentsDirectory.resolve("clean-shutdown")));
+    }
+
+    @Test
+    void testEvictBefore_shouldDropOlderMonthsAndTheirSegments() {
+        when(cryptoCurrencyRepository.findAll()).thenReturn(List.of(currency("BTC")));
+        stubStoredPrices(List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1643702400000L, "BTC", new BigDecimal("38000.50")),
+                new CryptoPriceDto(1646092800000L, "BTC", new BigDecimal("43000"))));
+        ReflectionTestUtils.setField(inMemoryPriceStore, "segmentsDirectory", segmentsDirectory.toString());
+        inMemoryPriceStore.load();
+
+        inMemoryPriceStore.evictBefore(YearMonth.of(2022, 2));
+
+        assertFalse(Files.exists(segmentsDirectory.resolve("BTC").resolve("2022-01.seg")));
+        assertTrue(Files.exists(segmentsDirectory.resolve("BTC").resolve("2022-02.seg")));
+        assertEquals(new BigDecimal("38000.50"), inMemoryPriceStore.getOldestPrice("BTC").orElseThrow().getPrice());
+        assertEquals(new PriceBounds(new BigDecimal("38000.50"), new BigDecimal("43000.00")),
+                inMemoryPriceStore.getPriceBounds("BTC", toLocalDateTime(0), toLocalDateTime(1646092800000L)));
+    }
+
+    @Test
+    void testRestart_afterCrash_shouldRebuildFromDatabase() throws IOException {
+        Path staleSegment = Files.createDirectories(segmentsDirectory.resolve("BTC")).resolve("2021-12.seg");
+        Files.writeString(staleSegment, "stale");
+        when(cryptoCurrencyRepository.findAll()).thenReturn(List.of(currency("BTC")));
+        stubStoredPrices(List.of(new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21"))));
+        ReflectionTestUtils.setField(inMemoryPriceStore, "segmentsDirectory", segmentsDirectory.toString());
+
+        inMemoryPriceStore.load();
+
+        verify(cryptoPriceBulkRepository).forEachBatch(eq(Long.MIN_VALUE), anyInt(), any());
+        assertFalse(Files.exists(staleSegment));
+        assertTrue(Files.exists(segmentsDirectory.resolve("BTC").resolve("2022-01.seg")));
+        assertEquals(1, inMemoryPriceStore.getSymbols().size());
+    }
+}
@@ -0,0 +1,186 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.task.crypto.dto.FileIngestionResult;
+import org.task.crypto.dto.IngestionJobStatus;
+import org.task.crypto.enums.IngestionJobState;
+import org.task.crypto.enums.IngestionMode;
+import org.task.crypto.exception.NoContentException;
+import org.task.crypto.service.CryptoPriceService;
+import org.task.crypto.service.IngestionJobService;
+import org.task.crypto.service.IngestionProgress;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class IngestionJobServiceTest {
+
+    @Mock
+    private CryptoPriceService cryptoPriceService;
+
+    private ThreadPoolTaskExecutor executor;
+    private IngestionJobService ingestionJobService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        ingestionJobService = new IngestionJobService(cryptoPriceService, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testSubmitUpload_shouldPersistSpooledFileInBackground() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "BTC_values.csv", "text/csv",
+                "timestamp,symbol,price\n1641009600000,BTC,46813.21".getBytes(StandardCharsets.UTF_8));
+        AtomicReference<Path> spooledFile = new AtomicReference<>();
+        AtomicReference<String> spooledContent = new AtomicReference<>();
+        when(cryptoPriceService.importCsvFile(any(Path.class), eq("BTC_values.csv"), any(IngestionProgress.class)))
+                .thenAnswer(invocation -> {
+                    spooledFile.set(invocation.getArgument(0));
+                    spooledContent.set(Files.readString(spooledFile.get()));
+                    return new FileIngestionResult("BTC_values.csv", IngestionMode.FULL, 1, 0, 1, 5, null);
+                });
+
+        IngestionJobStatus queued = ingestionJobService.submitUpload(file);
+        IngestionJobStatus finished = awaitFinished(queued.id());
+
+        assertEquals("BTC_values.csv", queued.source());
+        assertEquals(IngestionJobState.COMPLETED, finished.state());
+        assertEquals(1, finished.files().size());
+        assertEquals("timestamp,symbol,price\n1641009600000,BTC,46813.21", spooledContent.get());
+        assertFalse(Files.exists(spooledFile.get()));
+    }
+
+    @Test
+    void testSubmitLoadAll_withNoContent_shouldFailJob() throws Exception {
+        when(cryptoPriceService.loadAllCsvFiles(any(IngestionProgress.class)))
+                .thenThrow(new NoContentException("No content available in the CSV files."));
+
+        IngestionJobStatus finished = awaitFinished(ingestionJobService.submitLoadAll().id());
+
+        assertEquals(IngestionJobState.FAILED, finished.state());
+        assertEquals("No content available in the CSV files.", finished.error());
+    }
+
+    @Test
+    void testSubmitLoadAll_withFileError_shouldFailJobAndKeepFileResults() throws Exception {
+        when(cryptoPriceService.loadAllCsvFiles(any(IngestionProgress.class))).thenReturn(List.of(
+                new FileIngestionResult("a.csv", IngestionMode.FULL, 2, 0, 2, 5, null),
+                new FileIngestionResult("b.csv", IngestionMode.FULL, 1, 0, 0, 5, "database unavailable")));
+
+        IngestionJobStatus finished = awaitFinished(ingestionJobService.submitLoadAll().id());
+
+        assertEquals(IngestionJobState.FAILED, finished.state());
+        assertEquals("database unavailable", finished.error());
+        assertEquals(2, finished.files().size());
+    }
+
+    @Test
+    void testSubmit_whenQueueIsFull_shouldRejectJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cryptoPriceService.loadAllCsvFiles(any(IngestionProgress.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        try {
+            ingestionJobService.submitLoadAll();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            ingestionJobService.submitLoadAll();
+            ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                    () -> ingestionJobService.submitLoadAll());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+            assertEquals(2, ingestionJobService.getStatuses().size());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testImportUploads_shouldRunWhileRequestIsOpenAndListJob() {
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "BTC_values.csv", "text/csv", new byte[0]),
+                new MockMultipartFile("files", "ETH_values.csv", "text/csv", new byte[0]));
+        when(cryptoPriceService.importCsvFiles(eq(files), any(IngestionProgress.class))).thenReturn(List.of(
+                new FileIngestionResult("BTC_values.csv", IngestionMode.FULL, 2, 0, 2, 5, null),
+                new FileIngestionResult("ETH_values.csv", IngestionMode.FULL, 1, 0, 1, 5, null)));
+
+        IngestionJobStatus finished = ingestionJobService.importUploads(files);
+
+        assertEquals(IngestionJobState.COMPLETED, finished.state());
+        assertEquals("2 uploaded files", finished.source());
+        assertEquals(2, finished.files().size());
+        assertEquals(finished.id(), ingestionJobService.getStatuses().getFirst().id());
+    }
+
+    @Test
+    void testImportUploads_withInvalidFileType_shouldThrowBadRequest() {
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("files", "BTC_values.csv", "text/csv", new byte[0]),
+                new MockMultipartFile("files", "notes.txt", "text/plain", new byte[0]));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> ingestionJobService.importUploads(files));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        assertTrue(ingestionJobService.getStatuses().isEmpty());
+        verifyNoInteractions(cryptoPriceService);
+    }
+
+    @Test
+    void testGetStatus_withUnknownId_shouldThrowNotFound() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> ingestionJobService.getStatus(UUID.randomUUID()));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+    }
+
+    private IngestionJobStatus awaitFinished(UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        IngestionJobStatus status = ingestionJobService.getStatus(id);
+        while (status.finishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = ingestionJobService.getStatus(id);
+        }
+        assertTrue(status.finishedAt() != null, "Job did not finish in time");
+        return status;
+    }
+}
@@ -0,0 +1,202 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.FileIngestionResult;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.enums.IngestionMode;
+import org.task.crypto.model.IngestionCheckpoint;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.CryptoCurrencyRepository;
+import org.task.crypto.repository.CryptoPriceBulkRepository;
+import org.task.crypto.repository.CryptoPriceRepository;
+import org.task.crypto.repository.IngestionCheckpointRepository;
+import org.task.crypto.repository.PriceHeadTailRegistry;
+import org.task.crypto.service.CryptoPriceService;
+import org.task.crypto.service.PriceDirectoryWatcher;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class PriceDirectoryWatcherTest {
+    private static final long DEBOUNCE_MILLIS = 300;
+    private static final long SETTLE_MILLIS = 1_500;
+    private static final String HEADER = "timestamp,symbol,price\n";
+
+    @Mock
+    private CryptoPriceService cryptoPriceService;
+
+    @Mock
+    private CryptoPriceRepository cryptoPriceRepository;
+
+    @Mock
+    private CryptoPriceBulkRepository cryptoPriceBulkRepository;
+
+    @Mock
+    private IngestionCheckpointRepository checkpointRepository;
+
+    @Mock
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    @Mock
+    private CryptoCurrencyRepository cryptoCurrencyRepository;
+
+    @Mock
+    private PriceHeadTailRegistry priceHeadTailRegistry;
+
+    @TempDir
+    private Path directory;
+
+    private PriceDirectoryWatcher watcher;
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+    }
+
+    @Test
+    void testStart_shouldImportExistingFiles() throws IOException {
+        Path file = Files.writeString(directory.resolve("BTC_values.csv"), HEADER + "1641009600000,BTC,46813.21\n");
+        Files.writeString(directory.resolve("notes.txt"), "not a price file");
+        stubImport();
+
+        startWatcher();
+
+        verify(cryptoPriceService, timeout(5_000)).loadCsvFile(file, SETTLE_MILLIS);
+        verify(cryptoPriceService, after(DEBOUNCE_MILLIS * 2).times(1)).loadCsvFile(any(Path.class), anyLong());
+    }
+
+    @Test
+    void testAppends_shouldBeDebouncedIntoOneImport() throws IOException {
+        stubImport();
+        startWatcher();
+        Path file = directory.resolve("ETH_values.csv");
+
+        Files.writeString(file, HEADER);
+        for (int i = 0; i < 3; i++) {
+            Files.writeString(file, "164100960000" + i + ",ETH,3715.32\n", StandardOpenOption.APPEND);
+        }
+
+        verify(cryptoPriceService, timeout(5_000)).loadCsvFile(file, SETTLE_MILLIS);
+        verify(cryptoPriceService, after(DEBOUNCE_MILLIS * 2).times(1)).loadCsvFile(file, SETTLE_MILLIS);
+    }
+
+    @Test
+    void testLineWrittenInTwoParts_shouldBeImportedWhole() throws IOException {
+        List<CryptoPriceDto> imported = startWatcherOnService();
+        Path file = directory.resolve("BTC_values.csv");
+
+        Files.writeString(file, HEADER + "1641009600000,BTC,46813.21\n1641020400000,BTC,4697");
+        verify(cryptoPriceBulkRepository, timeout(5_000)).insertAll(any(PriceTickBatch.class));
+        verify(checkpointRepository, timeout(5_000)).save(any(IngestionCheckpoint.class));
+        Files.writeString(file, "9.61\n", StandardOpenOption.APPEND);
+
+        verify(cryptoPriceBulkRepository, timeout(5_000).times(2)).insertAll(any(PriceTickBatch.class));
+        assertEquals(List.of(new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61"))), imported);
+    }
+
+    @Test
+    void testFileWithoutFinalLineBreak_shouldBeImportedWholeOnceSettled() throws IOException {
+        List<CryptoPriceDto> imported = startWatcherOnService();
+        Path file = directory.resolve("BTC_values.csv");
+
+        Files.writeString(file, HEADER + "1641009600000,BTC,46813.21\n1641020400000,BTC,46979.61");
+
+        verify(cryptoPriceBulkRepository, timeout(5_000).times(2)).insertAll(any(PriceTickBatch.class));
+        assertEquals(List.of(new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "BTC", new BigDecimal("46979.61"))), imported);
+    }
+
+    @Test
+    void testNewSubdirectory_shouldBeWatched() throws IOException {
+        stubImport();
+        startWatcher();
+        Path subdirectory = Files.createDirectory(directory.resolve("2022"));
+        Path file = Files.writeString(subdirectory.resolve("XRP_values.csv"), HEADER);
+
+        verify(cryptoPriceService, timeout(5_000)).loadCsvFile(file, SETTLE_MILLIS);
+    }
+
+    @Test
+    void testStop_shouldStopWatching() throws IOException {
+        startWatcher();
+        assertTrue(watcher.isRunning());
+
+        watcher.stop();
+        Files.writeString(directory.resolve("DOGE_values.csv"), HEADER);
+
+        assertFalse(watcher.isRunning());
+        verify(cryptoPriceService, after(DEBOUNCE_MILLIS * 2).never()).loadCsvFile(any(Path.class), anyLong());
+    }
+
+    private void startWatcher() {
+        watcher = new PriceDirectoryWatcher(cryptoPriceService, new SimpleAsyncTaskExecutor("test-ingestion-"),
+                directory.toString(), DEBOUNCE_MILLIS, SETTLE_MILLIS);
+        watcher.start();
+    }
+
+    /**
+     * Starts the watcher on a real {@link CryptoPriceService} whose repositories are mocks.
+     *
+     * @return The prices inserted by the service
+     */
+    private List<CryptoPriceDto> startWatcherOnService() {
+        CryptoPriceService service = new CryptoPriceService(cryptoPriceRepository, cryptoPriceBulkRepository,
+                checkpointRepository, new SimpleAsyncTaskExecutor("test-ingestion-"), cryptoCurrencyDictionary,
+                cryptoCurrencyRepository, priceHeadTailRegistry);
+        ReflectionTestUtils.setField(service, "pricesDirectory", directory.toString());
+        AtomicReference<IngestionCheckpoint> checkpoint = new AtomicReference<>();
+        when(checkpointRepository.findByFilePath("BTC_values.csv"))
+                .thenAnswer(invocation -> Optional.ofNullable(checkpoint.get()));
+        when(checkpointRepository.save(any(IngestionCheckpoint.class)))
+                .thenAnswer(invocation -> {
+                    checkpoint.set(invocation.getArgument(0));
+                    return checkpoint.get();
+                });
+        List<CryptoPriceDto> imported = new CopyOnWriteArrayList<>();
+        when(cryptoPriceBulkRepository.insertAll(any(PriceTickBatch.class))).thenAnswer(invocation -> {
+            PriceTickBatch batch = invocation.getArgument(0);
+            imported.addAll(batch.toDtos());
+            return batch;
+        });
+        watcher = new PriceDirectoryWatcher(service, new SimpleAsyncTaskExecutor("test-watch-"),
+                directory.toString(), DEBOUNCE_MILLIS, SETTLE_MILLIS);
+        watcher.start();
+        return imported;
+    }
+
+    private void stubImport() {
+        lenient().when(cryptoPriceService.loadCsvFile(any(Path.class), anyLong())).thenAnswer(invocation ->
+                new FileIngestionResult(invocation.getArgument(0, Path.class).getFileName().toString(),
+                        IngestionMode.APPEND, 1, 0, 1, 1, null));
+    }
+}
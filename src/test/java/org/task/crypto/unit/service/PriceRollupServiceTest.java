@@ -0,0 +1,128 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.enums.RollupResolution;
+import org.task.crypto.repository.CryptoCurrencyDictionary;
+import org.task.crypto.repository.PriceRollupRepository;
+import org.task.crypto.service.PriceRollupService;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@Tag("unit")
+@ExtendWith(MockitoExtension.class)
+class PriceRollupServiceTest {
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 86_400_000L;
+    private static final long JANUARY_2 = 1641081600000L; // 2022-01-02T00:00Z
+    private static final long BTC_ID = 1L;
+
+    @Mock
+    private PriceRollupRepository priceRollupRepository;
+
+    @Mock
+    private CryptoCurrencyDictionary cryptoCurrencyDictionary;
+
+    private PriceRollupService priceRollupService;
+
+    @BeforeEach
+    void setUp() {
+        priceRollupService = new PriceRollupService(priceRollupRepository, cryptoCurrencyDictionary, true);
+        lenient().when(cryptoCurrencyDictionary.findId("BTC")).thenReturn(Optional.of(BTC_ID));
+    }
+
+    @Test
+    void testGetPriceBounds_shouldUseCoarsestBucketsAndTicksAtEdges() {
+        long start = JANUARY_2 - HOUR - MINUTE - 1_000;
+        long end = JANUARY_2 + 3 * DAY + 2 * HOUR + 3 * MINUTE + 500;
+        stubBounds();
+
+        PriceBounds bounds = priceRollupService.getPriceBounds("BTC", toLocalDateTime(start), toLocalDateTime(end));
+
+        verify(priceRollupRepository).findTickBounds(BTC_ID, start, JANUARY_2 - HOUR - MINUTE);
+        verify(priceRollupRepository).findBounds(BTC_ID, RollupResolution.MINUTE, JANUARY_2 - HOUR - MINUTE,
+                JANUARY_2 - HOUR);
+        verify(priceRollupRepository).findBounds(BTC_ID, RollupResolution.HOUR, JANUARY_2 - HOUR, JANUARY_2);
+        verify(priceRollupRepository).findBounds(BTC_ID, RollupResolution.DAY, JANUARY_2, JANUARY_2 + 3 * DAY);
+        verify(priceRollupRepository).findBounds(BTC_ID, RollupResolution.HOUR, JANUARY_2 + 3 * DAY,
+                JANUARY_2 + 3 * DAY + 2 * HOUR);
+        verify(priceRollupRepository).findBounds(BTC_ID, RollupResolution.MINUTE, JANUARY_2 + 3 * DAY + 2 * HOUR,
+                JANUARY_2 + 3 * DAY + 2 * HOUR + 3 * MINUTE);
+        verify(priceRollupRepository).findTickBounds(BTC_ID, JANUARY_2 + 3 * DAY + 2 * HOUR + 3 * MINUTE, end + 1);
+        verifyNoMoreInteractions(priceRollupRepository);
+        assertEquals(new BigDecimal("1"), bounds.minPrice());
+        assertEquals(new BigDecimal("30"), bounds.maxPrice());
+    }
+
+    @Test
+    void testGetPriceBounds_withinOneMinute_shouldOnlyReadTicks() {
+        long start = JANUARY_2 + 1_000;
+        stubBounds();
+
+        priceRollupService.getPriceBounds("BTC", toLocalDateTime(start), toLocalDateTime(start + 30_000));
+
+        verify(priceRollupRepository).findTickBounds(BTC_ID, start, start + 30_001);
+        verify(priceRollupRepository, never()).findBounds(eq(BTC_ID), eq(RollupResolution.MINUTE), anyLong(), anyLong());
+    }
+
+    @Test
+    void testGetPriceBounds_unknownSymbol_shouldNotQuery() {
+        when(cryptoCurrencyDictionary.findId("XYZ")).thenReturn(Optional.empty());
+
+        PriceBounds bounds = priceRollupService.getPriceBounds("XYZ", toLocalDateTime(JANUARY_2),
+                toLocalDateTime(JANUARY_2 + DAY));
+
+        assertEquals(PriceBounds.EMPTY, bounds);
+        verifyNoInteractions(priceRollupRepository);
+    }
+
+    @Test
+    void testConstructor_withoutBulkInsert_shouldRefuseToStart() {
+        assertThrows(IllegalStateException.class,
+                () -> new PriceRollupService(priceRollupRepository, cryptoCurrencyDictionary, false));
+    }
+
+    @Test
+    void testEvictBefore_shouldDeleteBucketsBeforeTheUtcMonth() {
+        priceRollupService.evictBefore(YearMonth.of(2022, 1));
+
+        verify(priceRollupRepository).evictBefore(1640995200000L); // 2022-01-01T00:00Z
+    }
+
+    private void stubBounds() {
+        lenient().when(priceRollupRepository.findTickBounds(eq(BTC_ID), anyLong(), anyLong()))
+                .thenReturn(new PriceBounds(new BigDecimal("1"), new BigDecimal("2")));
+        lenient().when(priceRollupRepository.findBounds(eq(BTC_ID), eq(RollupResolution.DAY), anyLong(), anyLong()))
+                .thenReturn(new PriceBounds(new BigDecimal("10"), new BigDecimal("30")));
+        lenient().when(priceRollupRepository.findBounds(eq(BTC_ID), eq(RollupResolution.HOUR), anyLong(), anyLong()))
+                .thenReturn(PriceBounds.EMPTY);
+        lenient().when(priceRollupRepository.findBounds(eq(BTC_ID), eq(RollupResolution.MINUTE), anyLong(), anyLong()))
+                .thenReturn(PriceBounds.EMPTY);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,83 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.task.crypto.service.PriceSegment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+class PriceSegmentTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testWriteAndOpen_shouldRoundTripColumns() throws IOException {
+        Path file = directory.resolve("BTC").resolve("2022-01.seg");
+
+        PriceSegment.write(file, new long[]{1_000, 2_000, 3_000, 99}, new long[]{30, 10, 20, 99}, 3);
+        PriceSegment segment = PriceSegment.open(file);
+
+        assertEquals(3, segment.count());
+        assertEquals(1_000, segment.firstTimestamp());
+        assertEquals(3_000, segment.lastTimestamp());
+        assertEquals(10, segment.minPrice());
+        assertEquals(30, segment.maxPrice());
+        assertEquals(20, segment.price(2));
+        assertEquals(1, segment.lowerBound(1_500));
+        assertEquals(3, segment.lowerBound(3_001));
+        assertTrue(segment.contains(2_000));
+        assertFalse(segment.contains(2_001));
+        assertFalse(Files.exists(directory.resolve("BTC").resolve("2022-01.seg.tmp")));
+    }
+
+    @Test
+    void testOpen_withForeignOrTruncatedFile_shouldFail() throws IOException {
+        Path foreign = Files.writeString(directory.resolve("notes.seg"), "not a segment at all, but long enough");
+        Path segment = directory.resolve("ETH.seg");
+        PriceSegment.write(segment, new long[]{1, 2}, new long[]{3, 4}, 2);
+        Path truncated = Files.write(directory.resolve("truncated.seg"),
+                Arrays.copyOf(Files.readAllBytes(segment), 40));
+
+        assertThrows(IOException.class, () -> PriceSegment.open(foreign));
+        assertThrows(IOException.class, () -> PriceSegment.open(truncated));
+    }
+
+    @Test
+    void testAccumulateBounds_shouldMatchFullScan() throws IOException {
+        Random random = new Random(11);
+        int count = 5_000;
+        long[] timestamps = new long[count];
+        long[] prices = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = i;
+            prices[i] = random.nextLong(-1_000, 1_000_000);
+        }
+        PriceSegment segment = PriceSegment.write(directory.resolve("random.seg"), timestamps, prices, count);
+
+        for (int query = 0; query < 500; query++) {
+            int start = random.nextInt(count);
+            int end = start + random.nextInt(count - start) + 1;
+            long[] expected = {Long.MAX_VALUE, Long.MIN_VALUE};
+            for (int i = start; i < end; i++) {
+                expected[0] = Math.min(expected[0], prices[i]);
+                expected[1] = Math.max(expected[1], prices[i]);
+            }
+            long[] bounds = {Long.MAX_VALUE, Long.MIN_VALUE};
+            segment.accumulateBounds(start, end, bounds);
+            assertArrayEquals(expected, bounds);
+        }
+    }
+}
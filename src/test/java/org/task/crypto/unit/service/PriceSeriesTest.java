@@ -0,0 +1,170 @@
+package org.task.crypto.unit.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.task.crypto.service.PriceSegment;
+import org.task.crypto.service.PriceSeries;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+class PriceSeriesTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testAdd_shouldKeepTicksSortedAndSkipDuplicates() {
+        PriceSeries series = new PriceSeries();
+
+        assertTrue(series.add(2_000, 20));
+        assertTrue(series.add(3_000, 30));
+        assertTrue(series.add(1_000, 10));
+        assertFalse(series.add(2_000, 99));
+
+        assertEquals(3, series.size());
+        assertEquals(new PriceSeries.Tick(1_000, 10), series.first());
+        assertEquals(new PriceSeries.Tick(3_000, 30), series.last());
+        assertArrayEquals(new long[]{20, 30}, series.bounds(1_500, 3_001));
+        assertNull(series.bounds(3_001, 5_000));
+    }
+
+    @Test
+    void testEmptySeries_shouldHaveNoTicks() {
+        PriceSeries series = new PriceSeries();
+
+        assertNull(series.first());
+        assertNull(series.last());
+        assertNull(series.bounds(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void testBounds_acrossSplitChunks_shouldMatchFullScan() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            order.add(i);
+        }
+        Random random = new Random(42);
+        Collections.shuffle(order, random);
+        long[] prices = new long[order.size()];
+        PriceSeries series = new PriceSeries();
+        for (int i : order) {
+            prices[i] = random.nextLong(1_000_000);
+            series.add(i * 1_000L, prices[i]);
+        }
+
+        assertEquals(prices.length, series.size());
+        for (int query = 0; query < 200; query++) {
+            int from = random.nextInt(prices.length);
+            int to = from + random.nextInt(prices.length - from) + 1;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, prices[i]);
+                max = Math.max(max, prices[i]);
+            }
+            assertArrayEquals(new long[]{min, max}, series.bounds(from * 1_000L, to * 1_000L - 999));
+        }
+    }
+
+    @Test
+    void testSeal_shouldMoveTicksIntoSegmentAndKeepAnswers() throws IOException {
+        PriceSeries series = new PriceSeries();
+        for (long timestamp = 0; timestamp < 10_000; timestamp += 1_000) {
+            series.add(timestamp, timestamp / 100);
+        }
+        Path file = directory.resolve("BTC").resolve("segment.seg");
+
+        PriceSegment sealed = series.seal(0, 5_000, file);
+
+        assertEquals(5, sealed.count());
+        assertEquals(10, series.size());
+        assertEquals(5_000L, series.firstUnsealedTimestamp());
+        assertEquals(new PriceSeries.Tick(0, 0), series.first());
+        assertArrayEquals(new long[]{30, 60}, series.bounds(3_000, 7_000));
+        assertFalse(series.add(2_000, 1));
+        assertNull(series.seal(0, 5_000, file));
+
+        assertTrue(series.add(2_500, 99));
+        PriceSegment resealed = series.seal(0, 5_000, file);
+
+        assertEquals(6, resealed.count());
+        assertEquals(2_500, resealed.timestamp(3));
+        assertEquals(11, series.size());
+        assertArrayEquals(new long[]{0, 99}, series.bounds(0, 5_000));
+    }
+
+    @Test
+    void testRemoveBefore_shouldDropOlderTicksAndSegments() throws IOException {
+        PriceSeries series = new PriceSeries();
+        for (long timestamp = 0; timestamp < 10_000; timestamp += 1_000) {
+            series.add(timestamp, timestamp / 100);
+        }
+        PriceSegment sealed = series.seal(0, 3_000, directory.resolve("BTC").resolve("segment.seg"));
+
+        assertEquals(List.of(), series.removeBefore(2_000));
+        assertEquals(List.of(sealed), series.removeBefore(6_000));
+
+        assertEquals(4, series.size());
+        assertEquals(new PriceSeries.Tick(6_000, 60), series.first());
+        assertArrayEquals(new long[]{60, 90}, series.bounds(0, 10_000));
+        assertTrue(series.add(3_000, 1));
+    }
+
+    @Test
+    void testAddSegment_shouldServeMappedTicks() throws IOException {
+        PriceSeries series = new PriceSeries();
+        series.addSegment(PriceSegment.write(directory.resolve("2022-01.seg"),
+                new long[]{1_000, 2_000}, new long[]{5, 7}, 2));
+        series.add(3_000, 6);
+
+        assertEquals(3, series.size());
+        assertEquals(new PriceSeries.Tick(1_000, 5), series.first());
+        assertEquals(new PriceSeries.Tick(3_000, 6), series.last());
+        assertArrayEquals(new long[]{6, 7}, series.bounds(2_000, 4_000));
+    }
+
+    @Test
+    void testBounds_whileAppendingAndAfterSealing_shouldMatchFullScan() throws IOException {
+        Random random = new Random(7);
+        long[] prices = new long[12_000];
+        PriceSeries series = new PriceSeries();
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = random.nextLong(1_000_000);
+            series.add(i * 1_000L, prices[i]);
+            if (i % 997 == 0) {
+                assertBoundsMatch(series, prices, i + 1, random);
+            }
+        }
+
+        series.seal(0, 7_000_000L, directory.resolve("sealed.seg"));
+
+        assertBoundsMatch(series, prices, prices.length, random);
+    }
+
+    private static void assertBoundsMatch(PriceSeries series, long[] prices, int count, Random random) {
+        for (int query = 0; query < 50; query++) {
+            int from = random.nextInt(count);
+            int to = from + random.nextInt(count - from) + 1;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, prices[i]);
+                max = Math.max(max, prices[i]);
+            }
+            assertArrayEquals(new long[]{min, max}, series.bounds(from * 1_000L, to * 1_000L - 999));
+        }
+    }
+}
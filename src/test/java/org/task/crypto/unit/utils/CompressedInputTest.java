@@ -0,0 +1,77 @@
+package org.task.crypto.unit.utils;
+
+import com.github.luben.zstd.Zstd;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.task.crypto.enums.Compression;
+import org.task.crypto.utils.CompressedInput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+class CompressedInputTest {
+    private static final String CONTENT = "timestamp,symbol,price\n1641009600000,BTC,46813.21\n";
+
+    @Test
+    void testIsPriceFile() {
+        assertTrue(CompressedInput.isPriceFile(Path.of("prices", "BTC_values.csv")));
+        assertTrue(CompressedInput.isPriceFile(Path.of("BTC_values.csv.gz")));
+        assertTrue(CompressedInput.isPriceFile(Path.of("BTC_values.csv.zst")));
+        assertFalse(CompressedInput.isPriceFile(Path.of("BTC_values.gz")));
+        assertFalse(CompressedInput.isPriceFile(Path.of("notes.txt")));
+    }
+
+    @Test
+    void testDetect() {
+        assertEquals(Compression.GZIP, CompressedInput.detect(gzip(CONTENT), 4));
+        assertEquals(Compression.ZSTD, CompressedInput.detect(Zstd.compress(bytes(CONTENT)), 4));
+        assertEquals(Compression.NONE, CompressedInput.detect(bytes(CONTENT), 4));
+        assertEquals(Compression.NONE, CompressedInput.detect(new byte[]{0x28, (byte) 0xB5}, 2));
+    }
+
+    @Test
+    void testOpen_shouldDecompressOrPassThrough() throws IOException {
+        assertEquals(CONTENT, read(new ByteArrayInputStream(bytes(CONTENT))));
+        assertEquals(CONTENT, read(new ByteArrayInputStream(Zstd.compress(bytes(CONTENT)))));
+        assertEquals("", read(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    void testOpen_withConcatenatedGzipMembers_shouldReadAllOfThem() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        archive.writeBytes(gzip(CONTENT));
+        archive.writeBytes(gzip("1641020400000,BTC,46979.61\n"));
+
+        assertEquals(CONTENT + "1641020400000,BTC,46979.61\n", read(new ByteArrayInputStream(archive.toByteArray())));
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        try (InputStream content = CompressedInput.open(inputStream)) {
+            return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] gzip(String content) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(bytes(content));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
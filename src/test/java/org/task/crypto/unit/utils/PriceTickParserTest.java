@@ -0,0 +1,134 @@
+package org.task.crypto.unit.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.task.crypto.dto.CryptoPriceDto;
+import org.task.crypto.dto.PriceTickBatch;
+import org.task.crypto.utils.PriceTickParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+class PriceTickParserTest {
+
+    @Test
+    void testIsTickHeader() {
+        assertTrue(PriceTickParser.isTickHeader("timestamp,symbol,price"));
+        assertTrue(PriceTickParser.isTickHeader("\uFEFFTimestamp, Symbol, Price\r"));
+        assertFalse(PriceTickParser.isTickHeader("symbol,price"));
+        assertFalse(PriceTickParser.isTickHeader("timestamp,symbol,price,extraColumn"));
+        assertFalse(PriceTickParser.isTickHeader(null));
+    }
+
+    @Test
+    void testParse_shouldDecodePlainRows() throws IOException {
+        List<CryptoPriceDto> prices = parse("1641009600000,BTC,46813.21\r\n1641020400000, ETH ,3715.3200\n1641024000000,DOGE,7\n");
+
+        assertEquals(List.of(
+                new CryptoPriceDto(1641009600000L, "BTC", new BigDecimal("46813.21")),
+                new CryptoPriceDto(1641020400000L, "ETH", new BigDecimal("3715.3200")),
+                new CryptoPriceDto(1641024000000L, "DOGE", new BigDecimal("7"))), prices);
+    }
+
+    @Test
+    void testParse_withQuotedFieldsAndExponents_shouldUseGenericPath() throws IOException {
+        List<CryptoPriceDto> prices = parse("1641009600000,\"BTC\",46813.21\n1641009600001,XRP,1.5E-3\n"
+                + "1641009600002,SHIB,0.0000012345\n");
+
+        assertEquals(3, prices.size());
+        assertEquals("BTC", prices.get(0).symbol());
+        assertEquals(0, new BigDecimal("0.0015").compareTo(prices.get(1).price()));
+        assertEquals(0, new BigDecimal("0.00000123").compareTo(prices.get(2).price()));
+    }
+
+    @Test
+    void testParse_withInvalidRows_shouldSkipAndCountThem() throws IOException {
+        PriceTickParser parser = new PriceTickParser();
+        PriceTickBatch batch = new PriceTickBatch(10);
+        List<CryptoPriceDto> prices = new ArrayList<>();
+        String content = "badtimestamp,BTC,not_a_price\n\n1641009600000,BTC,46813.21\nmissing_comma_ETH_4500.00\n"
+                + "1641009600000,,1.0\n1641009600000,BTC,\n";
+
+        long parsed = parser.parse(stream(content), batch, full -> prices.addAll(full.toDtos()));
+
+        assertEquals(1, parsed);
+        assertEquals(1, prices.size());
+        assertEquals(4, parser.getRejectedCount());
+    }
+
+    @Test
+    void testParse_shouldHandOverFullBatchesAndShareSymbols() throws IOException {
+        PriceTickParser parser = new PriceTickParser(32);
+        PriceTickBatch batch = new PriceTickBatch(2);
+        List<Integer> batchSizes = new ArrayList<>();
+        List<String> symbols = new ArrayList<>();
+        String content = "1641009600000,BTC,1.0\n1641009600001,BTC,2.0\n1641009600002,BTC,3.0\n"
+                + "1641009600003,BTC,4.0\n1641009600004,BTC,5.0";
+
+        long parsed = parser.parse(stream(content), batch, full -> {
+            batchSizes.add(full.size());
+            for (int i = 0; i < full.size(); i++) {
+                symbols.add(full.symbol(i));
+            }
+        });
+
+        assertEquals(5, parsed);
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        assertTrue(batch.isEmpty());
+        symbols.forEach(symbol -> assertSame(symbols.getFirst(), symbol));
+    }
+
+    @Test
+    void testParse_withLineLongerThanBuffer_shouldThrow() {
+        PriceTickParser parser = new PriceTickParser(16);
+
+        assertThrows(IOException.class, () -> parser.parse(stream("1641009600000,BTC,46813.21\n"),
+                new PriceTickBatch(10), batch -> {
+                }));
+    }
+
+    @Test
+    void testParseLines_shouldLeaveIncompleteLineInBuffer() {
+        PriceTickParser parser = new PriceTickParser();
+        PriceTickBatch batch = new PriceTickBatch(10);
+        ByteBuffer buffer = ByteBuffer.wrap("1641009600000,BTC,1.5\n1641009600001,BT".getBytes(StandardCharsets.UTF_8));
+
+        long parsed = parser.parseLines(buffer, false, batch, full -> {
+        });
+
+        assertEquals(1, parsed);
+        assertEquals(22, buffer.position());
+        assertEquals(new BigDecimal("1.5"), batch.price(0));
+    }
+
+    @Test
+    void testParse_withNegativeAndSignedPrices() throws IOException {
+        List<CryptoPriceDto> prices = parse("1641009600000,BTC,-0.5\n1641009600001,BTC,+12.25\n");
+
+        assertEquals(new BigDecimal("-0.5"), prices.get(0).price());
+        assertEquals(new BigDecimal("12.25"), prices.get(1).price());
+    }
+
+    private static List<CryptoPriceDto> parse(String content) throws IOException {
+        List<CryptoPriceDto> prices = new ArrayList<>();
+        new PriceTickParser().parse(stream(content), new PriceTickBatch(100), batch -> prices.addAll(batch.toDtos()));
+        return prices;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+package org.task.crypto.unit.utils;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.task.crypto.dto.PriceBounds;
+import org.task.crypto.utils.WindowStatistics;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("unit")
+class WindowStatisticsTest {
+
+    @Test
+    void testAdd_shouldTrackAllStatisticsInOnePass() {
+        WindowStatistics statistics = new WindowStatistics();
+
+        statistics.add(2_000, 300_000_000L);
+        statistics.add(1_000, 100_000_000L);
+        statistics.add(3_000, 200_000_000L);
+
+        assertEquals(3, statistics.count());
+        assertEquals(100_000_000L, statistics.minPrice());
+        assertEquals(300_000_000L, statistics.maxPrice());
+        assertEquals(1_000, statistics.firstTimestamp());
+        assertEquals(100_000_000L, statistics.firstPrice());
+        assertEquals(3_000, statistics.lastTimestamp());
+        assertEquals(200_000_000L, statistics.lastPrice());
+        assertEquals(new PriceBounds(new BigDecimal("1.00"), new BigDecimal("3.00")), statistics.toPriceBounds());
+    }
+
+    @Test
+    void testMerge_shouldMatchAddingOneByOne() {
+        Random random = new Random(3);
+        int count = 1_000;
+        WindowStatistics expected = new WindowStatistics();
+        WindowStatistics lower = new WindowStatistics();
+        WindowStatistics upper = new WindowStatistics();
+        for (int i = 0; i < count; i++) {
+            long timestamp = random.nextLong(1_000_000);
+            long price = random.nextLong(1, 10_000_000_000L);
+            expected.add(timestamp, price);
+            (i < 400 ? lower : upper).add(timestamp, price);
+        }
+
+        WindowStatistics merged = lower.merge(upper);
+
+        assertEquals(expected.count(), merged.count());
+        assertEquals(expected.minPrice(), merged.minPrice());
+        assertEquals(expected.maxPrice(), merged.maxPrice());
+        assertEquals(expected.firstTimestamp(), merged.firstTimestamp());
+        assertEquals(expected.firstPrice(), merged.firstPrice());
+        assertEquals(expected.lastTimestamp(), merged.lastTimestamp());
+        assertEquals(expected.lastPrice(), merged.lastPrice());
+    }
+
+    @Test
+    void testEmptyWindow_shouldHaveNoBounds() {
+        WindowStatistics statistics = new WindowStatistics();
+        statistics.merge(new WindowStatistics());
+
+        assertTrue(statistics.isEmpty());
+        assertEquals(PriceBounds.EMPTY, statistics.toPriceBounds());
+    }
+}